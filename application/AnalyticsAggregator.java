@@ -0,0 +1,188 @@
+package application;
+//AnalyticsAggregator.java
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Running totals behind the Analytics tab: customer and order counts, rating sum and count,
+// and quantity ordered per menu item. Seeded from the wrapped repositories once, then kept
+// current by the wrappers handed out here, so reading them never scans order history.
+//
+// Rows written by another process after seeding are not seen until the next start.
+public class AnalyticsAggregator {
+
+ private static final long MENU_TTL_MILLIS = 10 * 60_000;
+
+ private final CustomerRepository customers;
+ private final OrderRepository orders;
+ private final FeedbackRepository feedback;
+ // Names for the most popular item; quantities are kept per item id
+ private final MenuCatalog menu;
+
+ private final LongAdder customerCount = new LongAdder();
+ private final LongAdder orderCount = new LongAdder();
+ private final LongAdder ratingSum = new LongAdder();
+ private final LongAdder ratingCount = new LongAdder();
+ private final Map<Integer, LongAdder> quantityByItem = new ConcurrentHashMap<>();
+
+ private final Object loadLock = new Object();
+ private volatile boolean loaded;
+
+ private final CustomerRepository customerRepository = new Customers();
+ private final OrderRepository orderRepository = new Orders();
+ private final FeedbackRepository feedbackRepository = new Feedbacks();
+
+ public AnalyticsAggregator(CustomerRepository customers, OrderRepository orders,
+                            FeedbackRepository feedback, MenuRepository menu) {
+     this.customers = customers;
+     this.orders = orders;
+     this.feedback = feedback;
+     this.menu = new MenuCatalog(menu::findAll, MENU_TTL_MILLIS);
+ }
+
+ // The wrapped repositories, with count, average and most-popular answered from the totals
+
+ public CustomerRepository customers() {
+     return customerRepository;
+ }
+
+ public OrderRepository orders() {
+     return orderRepository;
+ }
+
+ public FeedbackRepository feedback() {
+     return feedbackRepository;
+ }
+
+ // Called at startup; writes made while this runs may be missed by the totals
+ public void load() throws SQLException {
+     if (loaded) {
+         return;
+     }
+     synchronized (loadLock) {
+         if (loaded) {
+             return;
+         }
+         customerCount.add(customers.count());
+         orderCount.add(orders.count());
+         FeedbackRepository.RatingTotals ratings = feedback.ratingTotals();
+         ratingSum.add(ratings.sum());
+         ratingCount.add(ratings.count());
+         orders.quantitiesByItem().forEach((itemId, quantity) ->
+             quantityByItem.computeIfAbsent(itemId, id -> new LongAdder()).add(quantity));
+         loaded = true;
+     }
+ }
+
+ private final class Customers implements CustomerRepository {
+
+     @Override
+     public int register(String name) throws SQLException {
+         int id = customers.register(name);
+         if (loaded) {
+             customerCount.increment();
+         }
+         return id;
+     }
+
+     @Override
+     public boolean rename(int customerId, String newName) throws SQLException {
+         return customers.rename(customerId, newName);
+     }
+
+     @Override
+     public List<Customer> findPage(int afterId, int limit) throws SQLException {
+         return customers.findPage(afterId, limit);
+     }
+
+     @Override
+     public int count() throws SQLException {
+         load();
+         return customerCount.intValue();
+     }
+
+     @Override
+     public Map<Integer, String> findNames(Collection<Integer> customerIds) throws SQLException {
+         return customers.findNames(customerIds);
+     }
+ }
+
+ private final class Orders implements OrderRepository {
+
+     @Override
+     public PlacedOrder place(int customerId, List<OrderLine> lines) throws SQLException {
+         PlacedOrder placed = orders.place(customerId, lines);
+         if (loaded) {
+             orderCount.increment();
+             for (OrderLine line : lines) {
+                 quantityByItem.computeIfAbsent(line.menuItemId(), id -> new LongAdder()).add(line.quantity());
+             }
+         }
+         return placed;
+     }
+
+     @Override
+     public Optional<OrderDetails> findDetails(int orderId) throws SQLException {
+         return orders.findDetails(orderId);
+     }
+
+     @Override
+     public int count() throws SQLException {
+         load();
+         return orderCount.intValue();
+     }
+
+     @Override
+     public Optional<PopularItem> mostPopularItem() throws SQLException {
+         load();
+         // Grouped by item name, as the SQL version does
+         Map<String, Long> byName = new HashMap<>();
+         for (Map.Entry<Integer, LongAdder> entry : quantityByItem.entrySet()) {
+             Optional<MenuItem> item = menu.find(entry.getKey());
+             if (item.isPresent()) {
+                 byName.merge(item.get().name(), entry.getValue().sum(), Long::sum);
+             }
+         }
+         return byName.entrySet().stream()
+             .max(Map.Entry.comparingByValue())
+             .map(e -> new PopularItem(e.getKey(), e.getValue().intValue()));
+     }
+
+     @Override
+     public Map<Integer, Long> quantitiesByItem() throws SQLException {
+         load();
+         Map<Integer, Long> quantities = new HashMap<>();
+         quantityByItem.forEach((itemId, quantity) -> quantities.put(itemId, quantity.sum()));
+         return quantities;
+     }
+ }
+
+ private final class Feedbacks implements FeedbackRepository {
+
+     @Override
+     public void submit(int customerId, String comment, int rating) throws SQLException {
+         feedback.submit(customerId, comment, rating);
+         if (loaded) {
+             ratingSum.add(rating);
+             ratingCount.increment();
+         }
+     }
+
+     @Override
+     public double averageRating() throws SQLException {
+         RatingTotals totals = ratingTotals();
+         return totals.count() == 0 ? 0 : totals.sum() / (double) totals.count();
+     }
+
+     @Override
+     public RatingTotals ratingTotals() throws SQLException {
+         load();
+         return new RatingTotals(ratingCount.sum(), ratingSum.sum());
+     }
+ }
+}
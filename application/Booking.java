@@ -0,0 +1,6 @@
+package application;
+//Booking.java
+import java.time.LocalDateTime;
+
+public record Booking(int id, int tableNumber, int customerId, LocalDateTime bookingTime, int partySize) {
+}
@@ -0,0 +1,25 @@
+package application;
+//BookingRepository.java
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Whether a booking holds a table at a given time follows TableOccupancyIndex.TURNOVER
+public interface BookingRepository {
+
+ // customerName is null and partySize 0 when the table is free
+ record TableStatus(int tableNumber, int capacity, boolean booked, String customerName, int partySize) {}
+
+ // Every table, by table number
+ List<DiningTable> findTables() throws SQLException;
+
+ List<Booking> findBookings() throws SQLException;
+
+ // Tables seating at least partySize that are free at time, smallest first
+ List<DiningTable> findAvailableTables(int partySize, LocalDateTime time) throws SQLException;
+
+ int book(int tableNumber, int customerId, LocalDateTime bookingTime, int partySize) throws SQLException;
+
+ // One entry per table, by table number
+ List<TableStatus> findTableStatus(LocalDateTime time) throws SQLException;
+}
@@ -0,0 +1,308 @@
+package application;
+//ConnectionPool.java
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded JDBC connection pool. Callers get a proxy whose close() hands the
+// physical connection back instead of tearing down the Oracle session.
+public class ConnectionPool {
+
+ public record PoolStats(int active, int idle, int maxSize, int waiting,
+                         long borrows, long created, long timeouts, long leaks,
+                         double avgWaitMillis, double maxWaitMillis) {
+     @Override
+     public String toString() {
+         return String.format("active=%d idle=%d max=%d waiting=%d borrows=%d created=%d timeouts=%d leaks=%d avgWait=%.2fms maxWait=%.2fms",
+             active, idle, maxSize, waiting, borrows, created, timeouts, leaks, avgWaitMillis, maxWaitMillis);
+     }
+ }
+
+ private static final long VALIDATION_INTERVAL_MILLIS = 5_000;
+ private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+ private static final long HOUSEKEEPING_INTERVAL_MILLIS = 10_000;
+
+ private final String url;
+ private final String username;
+ private final String password;
+ private final int maxSize;
+ private final int minIdle;
+ private final long maxWaitMillis;
+ private final long idleTimeoutMillis;
+ private final long leakThresholdMillis;
+
+ private final Semaphore permits;
+ // Most recently returned connection is handed out first so idle ones age out
+ private final Deque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+ private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+ private final ScheduledExecutorService housekeeper;
+
+ private final LongAdder borrows = new LongAdder();
+ private final LongAdder created = new LongAdder();
+ private final LongAdder timeouts = new LongAdder();
+ private final LongAdder leaks = new LongAdder();
+ private final LongAdder totalWaitNanos = new LongAdder();
+ private final AtomicLong maxWaitNanos = new AtomicLong();
+ private volatile boolean shutdown;
+
+ public ConnectionPool(String url, String username, String password, int maxSize, int minIdle,
+                       long maxWaitMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+     if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+         throw new IllegalArgumentException("Invalid pool size: max=" + maxSize + ", minIdle=" + minIdle);
+     }
+     this.url = url;
+     this.username = username;
+     this.password = password;
+     this.maxSize = maxSize;
+     this.minIdle = minIdle;
+     this.maxWaitMillis = maxWaitMillis;
+     this.idleTimeoutMillis = idleTimeoutMillis;
+     this.leakThresholdMillis = leakThresholdMillis;
+     this.permits = new Semaphore(maxSize, true);
+
+     AtomicInteger threadCount = new AtomicInteger();
+     this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+         Thread t = new Thread(r, "db-pool-housekeeper-" + threadCount.incrementAndGet());
+         t.setDaemon(true);
+         return t;
+     });
+     housekeeper.scheduleWithFixedDelay(this::housekeep,
+         HOUSEKEEPING_INTERVAL_MILLIS, HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+ }
+
+ public Connection getConnection() throws SQLException {
+     if (shutdown) {
+         throw new SQLException("Connection pool has been shut down");
+     }
+
+     long start = System.nanoTime();
+     try {
+         if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+             timeouts.increment();
+             throw new SQLException("Timed out after " + maxWaitMillis + "ms waiting for a database connection (" + getStats() + ")");
+         }
+     } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new SQLException("Interrupted while waiting for a database connection", e);
+     }
+     recordWait(System.nanoTime() - start);
+
+     try {
+         PooledConnection pooled;
+         while ((pooled = idle.pollFirst()) != null) {
+             if (isUsable(pooled)) {
+                 break;
+             }
+             closeQuietly(pooled);
+         }
+         if (pooled == null) {
+             pooled = new PooledConnection(DriverManager.getConnection(url, username, password));
+             created.increment();
+         }
+
+         pooled.borrowedAt = System.currentTimeMillis();
+         pooled.borrowSite = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+         pooled.leakReported = false;
+         borrowed.add(pooled);
+         borrows.increment();
+         return pooled.newHandle();
+     } catch (SQLException | RuntimeException e) {
+         permits.release();
+         throw e;
+     }
+ }
+
+ // The database, or the network to it, is gone, as opposed to a statement it rejected:
+ // SQLState class 08, a JDBC connection exception type or an I/O error anywhere in the chain
+ public static boolean isConnectionFailure(SQLException e) {
+     for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+         if (cause instanceof SQLRecoverableException || cause instanceof SQLTransientConnectionException
+                 || cause instanceof SQLNonTransientConnectionException || cause instanceof IOException) {
+             return true;
+         }
+         if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+             return true;
+         }
+     }
+     return false;
+ }
+
+ public PoolStats getStats() {
+     long count = borrows.sum();
+     double avgWait = count == 0 ? 0 : totalWaitNanos.sum() / (double) count / 1_000_000.0;
+     return new PoolStats(borrowed.size(), idle.size(), maxSize, permits.getQueueLength(),
+         count, created.sum(), timeouts.sum(), leaks.sum(), avgWait, maxWaitNanos.get() / 1_000_000.0);
+ }
+
+ public void shutdown() {
+     shutdown = true;
+     housekeeper.shutdownNow();
+     PooledConnection pooled;
+     while ((pooled = idle.pollFirst()) != null) {
+         closeQuietly(pooled);
+     }
+ }
+
+ private void recordWait(long nanos) {
+     totalWaitNanos.add(nanos);
+     maxWaitNanos.accumulateAndGet(nanos, Math::max);
+     Metrics.record("db pool wait", nanos);
+ }
+
+ private boolean isUsable(PooledConnection pooled) {
+     try {
+         if (pooled.physical.isClosed()) {
+             return false;
+         }
+         // Only pay for a server round trip when the connection has been sitting idle
+         if (System.currentTimeMillis() - pooled.lastUsed > VALIDATION_INTERVAL_MILLIS) {
+             return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+         }
+         return true;
+     } catch (SQLException e) {
+         return false;
+     }
+ }
+
+ private void release(PooledConnection pooled) {
+     borrowed.remove(pooled);
+     try {
+         if (!pooled.broken) {
+             // Undo whatever the borrower left behind so the next caller gets a clean session
+             if (!pooled.physical.getAutoCommit()) {
+                 pooled.physical.rollback();
+                 pooled.physical.setAutoCommit(true);
+             }
+             pooled.physical.clearWarnings();
+         }
+     } catch (SQLException e) {
+         pooled.broken = true;
+     }
+
+     if (pooled.broken || shutdown) {
+         closeQuietly(pooled);
+     } else {
+         pooled.lastUsed = System.currentTimeMillis();
+         idle.offerFirst(pooled);
+     }
+     permits.release();
+ }
+
+ private void housekeep() {
+     long now = System.currentTimeMillis();
+
+     // Evict connections that have been idle too long, oldest first, keeping minIdle warm
+     Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+     while (oldestFirst.hasNext() && idle.size() > minIdle) {
+         PooledConnection pooled = oldestFirst.next();
+         if (now - pooled.lastUsed > idleTimeoutMillis && idle.remove(pooled)) {
+             closeQuietly(pooled);
+         }
+     }
+
+     // Report connections that were borrowed and never returned
+     if (leakThresholdMillis > 0) {
+         for (PooledConnection pooled : borrowed) {
+             if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                 pooled.leakReported = true;
+                 leaks.increment();
+                 System.err.println("Possible connection leak: held for " + (now - pooled.borrowedAt) + "ms");
+                 if (pooled.borrowSite != null) {
+                     pooled.borrowSite.printStackTrace();
+                 }
+             }
+         }
+     }
+ }
+
+ private static void closeQuietly(PooledConnection pooled) {
+     try {
+         pooled.physical.close();
+     } catch (SQLException e) {
+         // Connection is being discarded anyway
+     }
+ }
+
+ private final class PooledConnection {
+     private final Connection physical;
+     private volatile long lastUsed = System.currentTimeMillis();
+     private volatile long borrowedAt;
+     private volatile Throwable borrowSite;
+     private volatile boolean leakReported;
+     private volatile boolean broken;
+
+     private PooledConnection(Connection physical) {
+         this.physical = physical;
+     }
+
+     // A fresh handle per borrow, so a stale reference can't use the connection after close()
+     private Connection newHandle() {
+         InvocationHandler handler = new InvocationHandler() {
+             private boolean closed;
+
+             @Override
+             public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                 switch (method.getName()) {
+                     case "close":
+                         if (!closed) {
+                             closed = true;
+                             release(PooledConnection.this);
+                         }
+                         return null;
+                     case "isClosed":
+                         return closed || physical.isClosed();
+                     case "equals":
+                         return proxy == args[0];
+                     case "hashCode":
+                         return System.identityHashCode(proxy);
+                     case "toString":
+                         return "Pooled" + physical;
+                     default:
+                         break;
+                 }
+                 if (closed) {
+                     throw new SQLException("Connection is closed");
+                 }
+                 try {
+                     Object result = method.invoke(physical, args);
+                     if (result instanceof Statement statement && StatementTracing.isEnabled()) {
+                         String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                         return StatementTracing.wrap(statement, method.getReturnType(), sql);
+                     }
+                     return result;
+                 } catch (InvocationTargetException e) {
+                     Throwable cause = e.getCause();
+                     // The session itself is gone
+                     if (cause instanceof SQLException sqlException && isConnectionFailure(sqlException)) {
+                         broken = true;
+                     }
+                     throw cause;
+                 }
+             }
+         };
+         return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+             new Class<?>[]{Connection.class}, handler);
+     }
+ }
+}
@@ -0,0 +1,7 @@
+package application;
+//Customer.java
+import java.time.LocalDateTime;
+
+// tableNo and bookingTime are null when the customer has none
+public record Customer(int id, String name, Integer tableNo, LocalDateTime bookingTime) {
+}
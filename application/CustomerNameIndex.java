@@ -0,0 +1,343 @@
+package application;
+//CustomerNameIndex.java
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+// Customer names split into words, for search-as-you-type. Each distinct word maps to the
+// sorted ids of the customers whose name contains it, and the words sit in a sorted map, so a
+// prefix is one range of that map and the first few matches cost a handful of steps however
+// many customers there are. Words are also indexed by their trigrams, which finds near misses
+// ("jonh" for "john") by looking at the vocabulary rather than at every customer.
+//
+// Words are compared case- and accent-insensitively: "José" is found by "jose".
+public class CustomerNameIndex {
+
+ public record Match(int customerId, String name) {}
+
+ // Bounds the work for a multi-word query whose longest word is very common
+ private static final int MAX_SCANNED = 20_000;
+ // Near misses are only looked for once the user has typed this much
+ private static final int MIN_FUZZY_LENGTH = 4;
+ private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+ private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+ // folded is " " + the name's words, so "has a word starting with p" is contains(" " + p)
+ private record Entry(String name, String folded) {}
+
+ private record State(NavigableMap<String, Postings> words, Map<Integer, Entry> names,
+                      Map<String, Set<String>> wordsByTrigram) {}
+
+ private volatile State state = new State(new ConcurrentSkipListMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+ // Replaces the whole index; searches keep using the previous state until the swap
+ public void load(Collection<Customer> customers) {
+     Map<String, int[]> ids = new HashMap<>();
+     Map<String, Integer> counts = new HashMap<>();
+     Map<Integer, Entry> names = new ConcurrentHashMap<>(customers.size() * 4 / 3 + 1);
+     for (Customer customer : customers) {
+         List<String> nameWords = words(customer.name());
+         names.put(customer.id(), entry(customer.name(), nameWords));
+         for (String word : nameWords) {
+             int count = counts.merge(word, 1, Integer::sum);
+             int[] list = ids.get(word);
+             if (list == null || list.length < count) {
+                 list = list == null ? new int[4] : Arrays.copyOf(list, list.length * 2);
+                 ids.put(word, list);
+             }
+             list[count - 1] = customer.id();
+         }
+     }
+
+     NavigableMap<String, Postings> words = new ConcurrentSkipListMap<>();
+     Map<String, Set<String>> wordsByTrigram = new ConcurrentHashMap<>();
+     ids.forEach((word, list) -> {
+         int[] sorted = Arrays.copyOf(list, counts.get(word));
+         Arrays.sort(sorted);
+         // A name that repeats a word lists the customer twice; keep one
+         int distinct = 0;
+         for (int i = 0; i < sorted.length; i++) {
+             if (i == 0 || sorted[i] != sorted[i - 1]) {
+                 sorted[distinct++] = sorted[i];
+             }
+         }
+         words.put(word, new Postings(Arrays.copyOf(sorted, distinct)));
+         for (String trigram : trigrams(word)) {
+             wordsByTrigram.computeIfAbsent(trigram, t -> ConcurrentHashMap.newKeySet()).add(word);
+         }
+     });
+     state = new State(words, names, wordsByTrigram);
+ }
+
+ public void add(int customerId, String name) {
+     State current = state;
+     List<String> nameWords = words(name);
+     current.names().put(customerId, entry(name, nameWords));
+     for (String word : nameWords) {
+         Postings postings = current.words().get(word);
+         if (postings == null) {
+             Postings created = new Postings(new int[0]);
+             postings = current.words().putIfAbsent(word, created);
+             if (postings == null) {
+                 postings = created;
+                 // Only once the word has postings, so a search that finds it by trigram can read them
+                 for (String trigram : trigrams(word)) {
+                     current.wordsByTrigram().computeIfAbsent(trigram, t -> ConcurrentHashMap.newKeySet()).add(word);
+                 }
+             }
+         }
+         postings.add(customerId);
+     }
+ }
+
+ public void rename(int customerId, String newName) {
+     State current = state;
+     Entry old = current.names().get(customerId);
+     if (old != null) {
+         for (String word : words(old.name())) {
+             Postings postings = current.words().get(word);
+             if (postings != null) {
+                 // The word itself stays in the vocabulary even if nobody is left under it
+                 postings.remove(customerId);
+             }
+         }
+     }
+     add(customerId, newName);
+ }
+
+ public int size() {
+     return state.names().size();
+ }
+
+ // Up to limit customers, best first: the id itself when the query is a number, then names
+ // with a word starting with each query word, then names with a word close to the longest
+ // query word. Prefix matches come back in word order, then by id.
+ public List<Match> search(String query, int limit) {
+     State current = state;
+     Map<Integer, Match> matches = new LinkedHashMap<>();
+     List<String> terms = words(query);
+     if (terms.isEmpty() || limit <= 0) {
+         return List.of();
+     }
+
+     String trimmed = query.trim();
+     if (terms.size() == 1 && trimmed.chars().allMatch(Character::isDigit) && trimmed.length() < 10) {
+         int id = Integer.parseInt(trimmed);
+         Entry entry = current.names().get(id);
+         if (entry != null) {
+             matches.put(id, new Match(id, entry.name()));
+         }
+     }
+
+     // The longest word narrows the range the most; the others are checked against each name found
+     int driverAt = 0;
+     for (int i = 1; i < terms.size(); i++) {
+         if (terms.get(i).length() > terms.get(driverAt).length()) {
+             driverAt = i;
+         }
+     }
+     String driver = terms.get(driverAt);
+     List<String> others = new ArrayList<>();
+     for (int i = 0; i < terms.size(); i++) {
+         if (i != driverAt) {
+             others.add(" " + terms.get(i));
+         }
+     }
+
+     int[] scanned = {0};
+     for (Map.Entry<String, Postings> entry : current.words().tailMap(driver, true).entrySet()) {
+         if (!entry.getKey().startsWith(driver)) {
+             break;
+         }
+         if (collect(current, entry.getValue(), others, matches, limit, scanned)) {
+             return List.copyOf(matches.values());
+         }
+     }
+
+     if (driver.length() >= MIN_FUZZY_LENGTH) {
+         for (String word : similarWords(current, driver)) {
+             if (collect(current, current.words().get(word), others, matches, limit, scanned)) {
+                 break;
+             }
+         }
+     }
+     return List.copyOf(matches.values());
+ }
+
+ // True once there are limit matches or the scan budget is spent
+ private static boolean collect(State current, Postings postings, List<String> others,
+                                Map<Integer, Match> matches, int limit, int[] scanned) {
+     for (int id : postings.snapshot()) {
+         if (++scanned[0] > MAX_SCANNED) {
+             return true;
+         }
+         Entry entry = current.names().get(id);
+         if (entry == null || matches.containsKey(id)) {
+             continue;
+         }
+         if (!hasWordsStartingWith(entry, others)) {
+             continue;
+         }
+         matches.put(id, new Match(id, entry.name()));
+         if (matches.size() >= limit) {
+             return true;
+         }
+     }
+     return false;
+ }
+
+ // prefixes already carry their leading space
+ private static boolean hasWordsStartingWith(Entry entry, List<String> prefixes) {
+     for (String prefix : prefixes) {
+         if (!entry.folded().contains(prefix)) {
+             return false;
+         }
+     }
+     return true;
+ }
+
+ private static Entry entry(String name, List<String> words) {
+     return new Entry(name, " " + String.join(" ", words));
+ }
+
+ // Vocabulary words whose start is within one edit of term (two for longer terms), closest first.
+ // Words that start with term exactly were already covered by the prefix scan.
+ private static List<String> similarWords(State current, String term) {
+     int maxEdits = term.length() >= 8 ? 2 : 1;
+     Map<String, Integer> shared = new HashMap<>();
+     for (String trigram : trigrams(term)) {
+         Set<String> words = current.wordsByTrigram().get(trigram);
+         if (words != null) {
+             for (String word : words) {
+                 shared.merge(word, 1, Integer::sum);
+             }
+         }
+     }
+     // A swap of two letters can spoil four of the term's trigrams, any other edit three
+     int required = Math.max(1, trigrams(term).size() - 4 * maxEdits);
+     List<Map.Entry<String, Integer>> close = new ArrayList<>();
+     shared.forEach((word, count) -> {
+         if (count < required || word.startsWith(term)) {
+             return;
+         }
+         int distance = prefixDistance(term, word, maxEdits);
+         if (distance <= maxEdits) {
+             close.add(Map.entry(word, distance));
+         }
+     });
+     close.sort(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+     return close.stream().map(Map.Entry::getKey).toList();
+ }
+
+ // Smallest edit distance (with transpositions) between term and any start of word within
+ // one character of term's length, so "jonh" is one edit from "johnson"
+ private static int prefixDistance(String term, String word, int maxEdits) {
+     int best = Integer.MAX_VALUE;
+     for (int length = term.length() - maxEdits; length <= term.length() + maxEdits; length++) {
+         if (length > 0 && length <= word.length()) {
+             best = Math.min(best, editDistance(term, word.substring(0, length)));
+         }
+     }
+     return best;
+ }
+
+ // Optimal string alignment distance
+ private static int editDistance(String a, String b) {
+     int[][] d = new int[a.length() + 1][b.length() + 1];
+     for (int i = 0; i <= a.length(); i++) {
+         d[i][0] = i;
+     }
+     for (int j = 0; j <= b.length(); j++) {
+         d[0][j] = j;
+     }
+     for (int i = 1; i <= a.length(); i++) {
+         for (int j = 1; j <= b.length(); j++) {
+             int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+             d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+             if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                 d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+             }
+         }
+     }
+     return d[a.length()][b.length()];
+ }
+
+ // Trigrams of the word with a start marker, so the first letters count for more
+ private static List<String> trigrams(String word) {
+     String padded = "^" + word;
+     List<String> trigrams = new ArrayList<>();
+     for (int i = 0; i + 3 <= padded.length(); i++) {
+         trigrams.add(padded.substring(i, i + 3));
+     }
+     if (trigrams.isEmpty()) {
+         trigrams.add(padded);
+     }
+     return trigrams;
+ }
+
+ static List<String> words(String text) {
+     if (text == null) {
+         return List.of();
+     }
+     String folded = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+         .toLowerCase(Locale.ROOT);
+     List<String> words = new ArrayList<>();
+     for (String word : NON_WORD.split(folded)) {
+         if (!word.isEmpty()) {
+             words.add(word);
+         }
+     }
+     return words;
+ }
+
+ // Sorted customer ids under one word. Copy on write: searches read the array without
+ // locking, and a register or rename replaces it.
+ private static final class Postings {
+     private volatile int[] ids;
+
+     private Postings(int[] ids) {
+         this.ids = ids;
+     }
+
+     int[] snapshot() {
+         return ids;
+     }
+
+     synchronized void add(int id) {
+         int[] current = ids;
+         int at = Arrays.binarySearch(current, id);
+         if (at >= 0) {
+             return;
+         }
+         int insert = -at - 1;
+         int[] next = new int[current.length + 1];
+         System.arraycopy(current, 0, next, 0, insert);
+         next[insert] = id;
+         System.arraycopy(current, insert, next, insert + 1, current.length - insert);
+         ids = next;
+     }
+
+     synchronized void remove(int id) {
+         int[] current = ids;
+         int at = Arrays.binarySearch(current, id);
+         if (at < 0) {
+             return;
+         }
+         int[] next = new int[current.length - 1];
+         System.arraycopy(current, 0, next, 0, at);
+         System.arraycopy(current, at + 1, next, at, current.length - at - 1);
+         ids = next;
+     }
+ }
+}
@@ -0,0 +1,22 @@
+package application;
+//CustomerRepository.java
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface CustomerRepository {
+
+ // Returns the new customer id
+ int register(String name) throws SQLException;
+
+ boolean rename(int customerId, String newName) throws SQLException;
+
+ // Keyset page: up to limit customers with id greater than afterId, by id
+ List<Customer> findPage(int afterId, int limit) throws SQLException;
+
+ int count() throws SQLException;
+
+ // Names of the given customers by id; unknown ids are left out
+ Map<Integer, String> findNames(Collection<Integer> customerIds) throws SQLException;
+}
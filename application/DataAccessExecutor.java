@@ -0,0 +1,61 @@
+package application;
+//DataAccessExecutor.java
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javafx.concurrent.Task;
+
+// Runs blocking JDBC work off the JavaFX Application Thread. Each call gets its own
+// virtual thread; the connection pool is what actually bounds concurrent queries.
+public final class DataAccessExecutor {
+
+ private static final ExecutorService EXECUTOR =
+     Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-worker-", 0).factory());
+
+ private DataAccessExecutor() {
+ }
+
+ // onSuccess and onFailure are invoked on the FX thread. action names the work in the
+ // Diagnostics.UiActionEvent, which runs from submit until the callback has returned.
+ public static <T> Task<T> submit(String action, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+     Diagnostics.UiActionEvent event = new Diagnostics.UiActionEvent();
+     event.action = action;
+     event.begin();
+     long submitted = System.nanoTime();
+     Task<T> task = new Task<>() {
+         @Override
+         protected T call() throws Exception {
+             long start = System.nanoTime();
+             try {
+                 return work.call();
+             } finally {
+                 event.workTime = System.nanoTime() - start;
+             }
+         }
+     };
+     task.setOnSucceeded(e -> {
+         event.succeeded = true;
+         finish(event, submitted, () -> onSuccess.accept(task.getValue()));
+     });
+     task.setOnFailed(e -> finish(event, submitted, () -> onFailure.accept(task.getException())));
+     EXECUTOR.execute(task);
+     return task;
+ }
+
+ private static void finish(Diagnostics.UiActionEvent event, long submitted, Runnable callback) {
+     long start = System.nanoTime();
+     try {
+         callback.run();
+     } finally {
+         long end = System.nanoTime();
+         event.callbackTime = end - start;
+         event.commit();
+         Metrics.record("action " + event.action, end - submitted);
+     }
+ }
+
+ public static void shutdown() {
+     EXECUTOR.shutdown();
+ }
+}
@@ -0,0 +1,168 @@
+package application;
+//DataStore.java
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+// The set of repositories the application talks to. "oracle" (the default) goes through
+// DatabaseConnection; "memory" keeps everything in-process for profiling and load tests.
+// Select with -Drestaurant.store=memory
+public final class DataStore {
+
+ private static final DataStore CURRENT = create(System.getProperty("restaurant.store", "oracle"));
+
+ private final CustomerRepository customers;
+ // Below the analytics totals, so count() asks the database
+ private final CustomerRepository customerRecords;
+ private final MenuRepository menu;
+ private final OrderRepository orders;
+ private final BookingRepository bookings;
+ private final PaymentRepository payments;
+ private final FeedbackRepository feedback;
+ private final IndexedBookingRepository bookingIndex;
+ private final IndexedCustomerRepository customerIndex;
+ private final AnalyticsAggregator analytics;
+ // Write-behind queue in front of the feedback table; null for the in-memory store
+ private final FeedbackIngestion feedbackIngestion;
+ // Journals orders, payments and bookings while the database is down; null for the in-memory store
+ private final OfflineCapture offline;
+ private final EventBus events = new EventBus();
+ private final boolean inMemory;
+
+ // Takes the underlying repositories; bookings, customer search and the analytics figures are
+ // served from in-process indexes layered on top of them, and every write is announced on events()
+ public DataStore(CustomerRepository customers, MenuRepository menu, OrderRepository orders,
+                  BookingRepository bookings, PaymentRepository payments, FeedbackRepository feedback,
+                  boolean inMemory) {
+     this(customers, menu, orders, bookings, payments, feedback, null, null, inMemory);
+ }
+
+ private DataStore(CustomerRepository customers, MenuRepository menu, OrderRepository orders,
+                   BookingRepository bookings, PaymentRepository payments, FeedbackRepository feedback,
+                   FeedbackIngestion feedbackIngestion, OfflineCapture offline, boolean inMemory) {
+     this.feedbackIngestion = feedbackIngestion;
+     this.offline = offline;
+     this.customerRecords = customers;
+     this.customerIndex = new IndexedCustomerRepository(customers);
+     this.analytics = new AnalyticsAggregator(customerIndex, orders, feedback, menu);
+     this.bookingIndex = new IndexedBookingRepository(bookings, customers);
+     DomainEventPublisher publisher = new DomainEventPublisher(events, analytics.customers(), analytics.orders(),
+         bookingIndex, payments, analytics.feedback());
+     this.customers = publisher.customers();
+     this.menu = menu;
+     this.orders = publisher.orders();
+     this.bookings = publisher.bookings();
+     this.payments = publisher.payments();
+     this.feedback = publisher.feedback();
+     this.inMemory = inMemory;
+ }
+
+ public static DataStore current() {
+     return CURRENT;
+ }
+
+ public static DataStore jdbc() {
+     FeedbackIngestion feedback = new FeedbackIngestion(new JdbcFeedbackRepository());
+     MenuRepository menu = new JdbcMenuRepository();
+     OfflineCapture offline = new OfflineCapture(new JdbcOrderRepository(), new JdbcPaymentRepository(),
+         new JdbcBookingRepository(), menu);
+     return new DataStore(new JdbcCustomerRepository(), menu, offline.orders(), offline.bookings(),
+         offline.payments(), feedback, feedback, offline, false);
+ }
+
+ public static DataStore inMemory(InMemoryStore store) {
+     return new DataStore(store.customers(), store.menu(), store.orders(),
+         store.bookings(), store.payments(), store.feedback(), true);
+ }
+
+ private static DataStore create(String kind) {
+     return switch (kind) {
+         case "memory" -> inMemory(InMemoryStore.withInitialData());
+         case "oracle" -> jdbc();
+         default -> throw new IllegalArgumentException("Unknown restaurant.store: " + kind);
+     };
+ }
+
+ public CustomerRepository customers() {
+     return customers;
+ }
+
+ // From the database every time, so it includes customers registered by other tills;
+ // customers().count() is the running total behind the Analytics tab
+ public int countCustomers() throws SQLException {
+     return customerRecords.count();
+ }
+
+ public MenuRepository menu() {
+     return menu;
+ }
+
+ public OrderRepository orders() {
+     return orders;
+ }
+
+ public BookingRepository bookings() {
+     return bookings;
+ }
+
+ public PaymentRepository payments() {
+     return payments;
+ }
+
+ public FeedbackRepository feedback() {
+     return feedback;
+ }
+
+ public EventBus events() {
+     return events;
+ }
+
+ // Builds the in-process indexes up front so the first query doesn't pay for them. Feedback
+ // spilled and orders journaled by an earlier run are written first, so the totals include them.
+ public void preload() throws SQLException, IOException {
+     if (feedbackIngestion != null) {
+         feedbackIngestion.start();
+     }
+     if (offline != null) {
+         offline.start();
+     }
+     bookingIndex.load();
+     customerIndex.load();
+     analytics.load();
+ }
+
+ // Customers whose name matches what has been typed so far; see CustomerNameIndex.search
+ public List<CustomerNameIndex.Match> searchCustomers(String query, int limit) throws SQLException {
+     return customerIndex.search(query, limit);
+ }
+
+ // Null for the in-memory store
+ public FeedbackIngestion.Stats feedbackStats() {
+     return feedbackIngestion == null ? null : feedbackIngestion.getStats();
+ }
+
+ // Null for the in-memory store
+ public OfflineCapture.Stats offlineStats() {
+     return offline == null ? null : offline.getStats();
+ }
+
+ // True while orders, payments and bookings are being kept on this machine for the database
+ public boolean isOffline() {
+     return offline != null && offline.isOffline();
+ }
+
+ // Writes out queued feedback and journaled orders; call before the connection pool shuts down
+ public void close() {
+     if (feedbackIngestion != null) {
+         feedbackIngestion.close();
+     }
+     if (offline != null) {
+         offline.close();
+     }
+ }
+
+ // True when nothing is persisted to a database
+ public boolean isInMemory() {
+     return inMemory;
+ }
+}
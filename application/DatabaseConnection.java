@@ -1,214 +1,84 @@
 package application;
 import java.sql.*;
 public class DatabaseConnection {
- private static final String URL = "jdbc:oracle:thin:@localhost:1521:XE";
- private static final String USERNAME = "system";
- private static final String PASSWORD = "SYS";
+ // Defaults point at a local Oracle XE; override with -Drestaurant.db.url=... etc.
+ private static final String URL = System.getProperty("restaurant.db.url", "jdbc:oracle:thin:@localhost:1521:XE");
+ private static final String USERNAME = System.getProperty("restaurant.db.user", "system");
+ private static final String PASSWORD = System.getProperty("restaurant.db.password", "SYS");
+ private static final String DRIVER = System.getProperty("restaurant.db.driver", "oracle.jdbc.driver.OracleDriver");
+ 
+ // Pool sizing: a handful of terminals rarely need more than a few sessions each. A
+ // RestaurantServer shared by many terminals may want more: -Drestaurant.db.poolSize=...
+ private static final int POOL_MAX_SIZE = Integer.getInteger("restaurant.db.poolSize", 10);
+ private static final int POOL_MIN_IDLE = 2;
+ private static final long POOL_MAX_WAIT_MILLIS = 5_000;
+ private static final long POOL_IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+ private static final long POOL_LEAK_THRESHOLD_MILLIS = 60_000;
+ 
+ private static final ConnectionPool POOL = new ConnectionPool(URL, USERNAME, PASSWORD,
+     POOL_MAX_SIZE, POOL_MIN_IDLE, POOL_MAX_WAIT_MILLIS, POOL_IDLE_TIMEOUT_MILLIS, POOL_LEAK_THRESHOLD_MILLIS);
+ private static volatile boolean driverLoaded;
+ 
  public static Connection getConnection() throws SQLException {
+     if (!driverLoaded) {
+         try {
+             Class.forName(DRIVER);
+             driverLoaded = true;
+         } catch (ClassNotFoundException e) {
+             throw new SQLException("JDBC Driver not found: " + DRIVER, e);
+         }
+     }
+     Diagnostics.ConnectionEvent event = new Diagnostics.ConnectionEvent();
+     event.begin();
+     long start = System.nanoTime();
      try {
-         Class.forName("oracle.jdbc.driver.OracleDriver");
-         return DriverManager.getConnection(URL, USERNAME, PASSWORD);
-     } catch (ClassNotFoundException e) {
-         throw new SQLException("Oracle JDBC Driver not found", e);
+         return POOL.getConnection();
+     } catch (SQLException e) {
+         event.error = e.getMessage();
+         throw e;
+     } finally {
+         event.end();
+         Metrics.record("db connection acquire", System.nanoTime() - start);
+         if (event.shouldCommit()) {
+             ConnectionPool.PoolStats stats = POOL.getStats();
+             event.active = stats.active();
+             event.idle = stats.idle();
+             event.waiting = stats.waiting();
+             event.commit();
+         }
      }
  }
  
- public static void initializeDatabase() {
-	 
-     try (Connection conn = getConnection()) {
-         createTables(conn);
-         insertInitialData(conn);
-     } catch (SQLException e) {
-         e.printStackTrace();
-     }
+ public static ConnectionPool.PoolStats getPoolStats() {
+     return POOL.getStats();
  }
- private static void createTables(Connection conn) throws SQLException {
-     String[] createTableQueries = {
-         """
-         CREATE TABLE  customers (
-             id NUMBER PRIMARY KEY,
-             name VARCHAR2(100) NOT NULL,
-             table_no NUMBER,
-             booking_time TIMESTAMP
-         )
-         """,
-         """
-         CREATE TABLE  menu_items (
-             id NUMBER PRIMARY KEY,
-             name VARCHAR2(100) NOT NULL,
-             price NUMBER(10,2) NOT NULL
-         )
-         """,
-         """
-         CREATE TABLE  tables (
-             table_number NUMBER PRIMARY KEY,
-             capacity NUMBER NOT NULL
-         )
-         """,
-         """
-         CREATE TABLE  orders (
-             order_id NUMBER PRIMARY KEY,
-             customer_id NUMBER,
-             order_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-             is_paid NUMBER(1) DEFAULT 0,
-             total_amount NUMBER(10,2),
-             FOREIGN KEY (customer_id) REFERENCES customers(id)
-         )
-         """,
-         """
-         CREATE TABLE order_items (
-             id NUMBER PRIMARY KEY,
-             order_id NUMBER,
-             menu_item_id NUMBER,
-             quantity NUMBER DEFAULT 1,
-             FOREIGN KEY (order_id) REFERENCES orders(order_id),
-             FOREIGN KEY (menu_item_id) REFERENCES menu_items(id)
-         )
-         """,
-         """
-         CREATE TABLE  feedback (
-             id NUMBER PRIMARY KEY,
-             customer_id NUMBER,
-             comment VARCHAR2(500),
-             rating NUMBER(1),
-             feedback_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-             FOREIGN KEY (customer_id) REFERENCES customers(id)
-         )
-         """,
-         """
-         CREATE TABLE  table_bookings (
-             id NUMBER PRIMARY KEY,
-             table_number NUMBER,
-             customer_id NUMBER,
-             booking_time TIMESTAMP,
-             party_size NUMBER,
-             FOREIGN KEY (table_number) REFERENCES tables(table_number),
-             FOREIGN KEY (customer_id) REFERENCES customers(id)
-         )
-         """
-     };
-     
-     for (String query : createTableQueries) {
-         try (PreparedStatement stmt = conn.prepareStatement(query)) {
-             stmt.execute();
-         }
-     }
-     
-     // Create sequences
-     String[] sequences = {
-         "CREATE SEQUENCE customer_seq START WITH 1 INCREMENT BY 1",
-         "CREATE SEQUENCE order_seq START WITH 1 INCREMENT BY 1",
-         "CREATE SEQUENCE order_item_seq START WITH 1 INCREMENT BY 1",
-         "CREATE SEQUENCE feedback_seq START WITH 1 INCREMENT BY 1",
-         "CREATE SEQUENCE booking_seq START WITH 1 INCREMENT BY 1"
-     };
-     
-     for (String seq : sequences) {
-         try (PreparedStatement stmt = conn.prepareStatement(seq)) {
-             stmt.execute();
-         } catch (SQLException e) {
-             // Sequence might already exist
-         }
-     }
-     
-    
-
-  // Create admin_users table
-  String createAdminUsersTable = """
-      CREATE TABLE IF NOT EXISTS admin_users (
-          id NUMBER PRIMARY KEY,
-          username VARCHAR2(50) UNIQUE NOT NULL,
-          password_hash VARCHAR2(255) NOT NULL,
-          is_active NUMBER(1) DEFAULT 1,
-          created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-      )
-  """;
-
-  // Create sequence for admin_users
-  String createAdminSequence = """
-      CREATE SEQUENCE admin_seq 
-      START WITH 1 
-      INCREMENT BY 1 
-      NOCACHE
-  """;
-
-  // Insert default admin user (username: admin, password: admin123)
-  String insertDefaultAdmin = """
-      INSERT INTO admin_users (id, username, password_hash, is_active) 
-      SELECT admin_seq.NEXTVAL, 'admin', 'admin123', 1 
-      FROM dual 
-      WHERE NOT EXISTS (SELECT 1 FROM admin_users WHERE username = 'admin')
-  """;
-
-  // Execute these statements in your initializeDatabase method
-  try (Statement stmt = conn.createStatement()) {
-      stmt.execute(createAdminUsersTable);
-      
-      // Check if sequence exists before creating
-      try {
-          stmt.execute(createAdminSequence);
-      } catch (SQLException e) {
-          if (!e.getMessage().contains("name is already used")) {
-              throw e;
-          }
-      }
-      
-      stmt.execute(insertDefaultAdmin);
-      System.out.println("Admin users table initialized successfully");
-  }
+ 
+ public static void shutdown() {
+     POOL.shutdown();
  }
  
- private static void insertInitialData(Connection conn) throws SQLException {
-     // Insert menu items
-     String insertMenu = "INSERT INTO menu_items (id, name, price) VALUES (?, ?, ?)";
-     Object[][] menuData = {
-         {1, "Meals", 179.00},
-         {2, "Veg Biryani", 199.00},
-         {3, "Dum Biryani", 299.00},
-         {4, "Gobi Manchuria", 79.00},
-         {5, "Butterskotch Milkshake", 59.00},
-         {6, "Rotis", 10.00},
-         {7, "Bathua Raita", 169.00},
-         {8, "Prawns Curry", 349.00},
-         {9, "Water Bottle", 25.00},
-         {10, "Egg Burj", 99.00}
-     };
-     
-     try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM menu_items");
-          ResultSet rs = stmt.executeQuery()) {
-         rs.next();
-         if (rs.getInt(1) == 0) {
-             try (PreparedStatement insertStmt = conn.prepareStatement(insertMenu)) {
-                 for (Object[] item : menuData) {
-                     insertStmt.setInt(1, (Integer) item[0]);
-                     insertStmt.setString(2, (String) item[1]);
-                     insertStmt.setDouble(3, (Double) item[2]);
-                     insertStmt.executeUpdate();
-                 }
-             }
-         }
-     }
-     
-     // Insert tables
-     String insertTable = "INSERT INTO tables (table_number, capacity) VALUES (?, ?)";
-     Object[][] tableData = {
-         {1, 4}, {2, 4}, {3, 6}, {4, 2}, {5, 8}
-     };
-     
-     try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM tables");
-          ResultSet rs = stmt.executeQuery()) {
-         rs.next();
-         if (rs.getInt(1) == 0) {
-             try (PreparedStatement insertStmt = conn.prepareStatement(insertTable)) {
-                 for (Object[] table : tableData) {
-                     insertStmt.setInt(1, (Integer) table[0]);
-                     insertStmt.setInt(2, (Integer) table[1]);
-                     insertStmt.executeUpdate();
-                 }
-             }
-         }
+ // Applies any pending SchemaMigrations; on a warm start this is a single version query
+ public static void initializeDatabase() throws SQLException {
+     try (Connection conn = getConnection()) {
+         SchemaMigrations.migrate(conn);
      }
  }
  
+ // Seed data, shared with SchemaMigrations and InMemoryStore
+ static final Object[][] INITIAL_MENU = {
+     {1, "Meals", 179.00},
+     {2, "Veg Biryani", 199.00},
+     {3, "Dum Biryani", 299.00},
+     {4, "Gobi Manchuria", 79.00},
+     {5, "Butterskotch Milkshake", 59.00},
+     {6, "Rotis", 10.00},
+     {7, "Bathua Raita", 169.00},
+     {8, "Prawns Curry", 349.00},
+     {9, "Water Bottle", 25.00},
+     {10, "Egg Burj", 99.00}
+ };
  
+ static final Object[][] INITIAL_TABLES = {
+     {1, 4}, {2, 4}, {3, 6}, {4, 2}, {5, 8}
+ };
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package application;
+//Diagnostics.java
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Flight Recorder events for database and UI work. They cost nothing unless a recording is
+// running: either the JVM's own -XX:StartFlightRecording, or -Drestaurant.jfr=<file.jfr>,
+// which records from startup and writes the file when the app exits.
+public final class Diagnostics {
+
+ private static final String RECORDING_PROPERTY = "restaurant.jfr";
+ private static Recording recording;
+
+ private Diagnostics() {
+ }
+
+ @Name("restaurant.ConnectionAcquired")
+ @Label("Connection Acquired")
+ @Category({"Restaurant", "Database"})
+ @Description("Time spent in DatabaseConnection.getConnection, including waiting on the pool and opening sessions")
+ @StackTrace(false)
+ static final class ConnectionEvent extends Event {
+     @Label("Active After")
+     int active;
+     @Label("Idle After")
+     int idle;
+     @Label("Waiting")
+     int waiting;
+     @Label("Error")
+     String error;
+ }
+
+ @Name("restaurant.Statement")
+ @Label("SQL Statement")
+ @Category({"Restaurant", "Database"})
+ @Description("One statement from execute until its result set is closed")
+ static final class StatementEvent extends Event {
+     @Label("Query")
+     String label;
+     @Label("SQL")
+     String sql;
+     @Label("Rows")
+     long rows;
+     @Label("Error")
+     String error;
+ }
+
+ @Name("restaurant.UiAction")
+ @Label("UI Action")
+ @Category({"Restaurant", "UI"})
+ @Description("A button action from submit until its result has been applied on the FX thread")
+ @StackTrace(false)
+ static final class UiActionEvent extends Event {
+     @Label("Action")
+     String action;
+     @Label("Succeeded")
+     boolean succeeded;
+     @Label("Background Time")
+     @Timespan(Timespan.NANOSECONDS)
+     long workTime;
+     @Label("FX Thread Time")
+     @Timespan(Timespan.NANOSECONDS)
+     long callbackTime;
+ }
+
+ // Called once from main; a bad path or settings file is reported but doesn't stop the app
+ public static void startRecordingIfRequested() {
+     String destination = System.getProperty(RECORDING_PROPERTY);
+     if (destination == null || destination.isBlank()) {
+         return;
+     }
+     try {
+         Recording started = new Recording(Configuration.getConfiguration("profile"));
+         started.setName("restaurant");
+         started.enable(ConnectionEvent.class).withThreshold(Duration.ZERO);
+         started.enable(StatementEvent.class).withThreshold(Duration.ZERO);
+         started.enable(UiActionEvent.class).withThreshold(Duration.ZERO);
+         started.setDestination(Path.of(destination));
+         started.setDumpOnExit(true);
+         started.start();
+         recording = started;
+         System.out.println("Flight recording to " + Path.of(destination).toAbsolutePath());
+     } catch (IOException | ParseException | RuntimeException e) {
+         System.err.println("Could not start flight recording: " + e.getMessage());
+     }
+ }
+
+ public static void stopRecording() {
+     if (recording != null) {
+         // Stopping writes the destination file
+         recording.stop();
+         recording.close();
+         recording = null;
+     }
+ }
+}
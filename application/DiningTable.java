@@ -0,0 +1,5 @@
+package application;
+//DiningTable.java
+
+public record DiningTable(int tableNumber, int capacity) {
+}
@@ -0,0 +1,19 @@
+package application;
+//DomainEvent.java
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Things that happened in the store, published on EventBus after the write has committed
+public sealed interface DomainEvent {
+
+ record CustomerRegistered(int customerId, String name) implements DomainEvent {}
+
+ record OrderPlaced(int orderId, int customerId, double totalAmount, List<OrderLine> lines) implements DomainEvent {}
+
+ record OrderPaid(int orderId, String customerName, double amount, LocalDateTime orderTime) implements DomainEvent {}
+
+ record BookingCreated(int bookingId, int tableNumber, int customerId, LocalDateTime bookingTime, int partySize)
+     implements DomainEvent {}
+
+ record FeedbackSubmitted(int customerId, int rating) implements DomainEvent {}
+}
@@ -0,0 +1,204 @@
+package application;
+//DomainEventPublisher.java
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Repository wrappers that publish a DomainEvent on the bus after each successful write.
+// Reads pass straight through.
+public class DomainEventPublisher {
+
+ private final EventBus bus;
+ private final CustomerRepository customers;
+ private final OrderRepository orders;
+ private final BookingRepository bookings;
+ private final PaymentRepository payments;
+ private final FeedbackRepository feedback;
+
+ private final CustomerRepository customerRepository = new Customers();
+ private final OrderRepository orderRepository = new Orders();
+ private final BookingRepository bookingRepository = new Bookings();
+ private final PaymentRepository paymentRepository = new Payments();
+ private final FeedbackRepository feedbackRepository = new Feedbacks();
+
+ public DomainEventPublisher(EventBus bus, CustomerRepository customers, OrderRepository orders,
+                             BookingRepository bookings, PaymentRepository payments, FeedbackRepository feedback) {
+     this.bus = bus;
+     this.customers = customers;
+     this.orders = orders;
+     this.bookings = bookings;
+     this.payments = payments;
+     this.feedback = feedback;
+ }
+
+ public CustomerRepository customers() {
+     return customerRepository;
+ }
+
+ public OrderRepository orders() {
+     return orderRepository;
+ }
+
+ public BookingRepository bookings() {
+     return bookingRepository;
+ }
+
+ public PaymentRepository payments() {
+     return paymentRepository;
+ }
+
+ public FeedbackRepository feedback() {
+     return feedbackRepository;
+ }
+
+ private final class Customers implements CustomerRepository {
+
+     @Override
+     public int register(String name) throws SQLException {
+         int id = customers.register(name);
+         bus.publish(new DomainEvent.CustomerRegistered(id, name));
+         return id;
+     }
+
+     @Override
+     public boolean rename(int customerId, String newName) throws SQLException {
+         return customers.rename(customerId, newName);
+     }
+
+     @Override
+     public List<Customer> findPage(int afterId, int limit) throws SQLException {
+         return customers.findPage(afterId, limit);
+     }
+
+     @Override
+     public int count() throws SQLException {
+         return customers.count();
+     }
+
+     @Override
+     public Map<Integer, String> findNames(Collection<Integer> customerIds) throws SQLException {
+         return customers.findNames(customerIds);
+     }
+ }
+
+ private final class Orders implements OrderRepository {
+
+     @Override
+     public PlacedOrder place(int customerId, List<OrderLine> lines) throws SQLException {
+         PlacedOrder placed = orders.place(customerId, lines);
+         bus.publish(new DomainEvent.OrderPlaced(placed.orderId(), customerId, placed.totalAmount(), List.copyOf(lines)));
+         return placed;
+     }
+
+     @Override
+     public Optional<OrderDetails> findDetails(int orderId) throws SQLException {
+         return orders.findDetails(orderId);
+     }
+
+     @Override
+     public int count() throws SQLException {
+         return orders.count();
+     }
+
+     @Override
+     public Optional<PopularItem> mostPopularItem() throws SQLException {
+         return orders.mostPopularItem();
+     }
+
+     @Override
+     public Map<Integer, Long> quantitiesByItem() throws SQLException {
+         return orders.quantitiesByItem();
+     }
+ }
+
+ private final class Bookings implements BookingRepository {
+
+     @Override
+     public List<DiningTable> findTables() throws SQLException {
+         return bookings.findTables();
+     }
+
+     @Override
+     public List<Booking> findBookings() throws SQLException {
+         return bookings.findBookings();
+     }
+
+     @Override
+     public List<DiningTable> findAvailableTables(int partySize, LocalDateTime time) throws SQLException {
+         return bookings.findAvailableTables(partySize, time);
+     }
+
+     @Override
+     public int book(int tableNumber, int customerId, LocalDateTime bookingTime, int partySize) throws SQLException {
+         int id = bookings.book(tableNumber, customerId, bookingTime, partySize);
+         bus.publish(new DomainEvent.BookingCreated(id, tableNumber, customerId, bookingTime, partySize));
+         return id;
+     }
+
+     @Override
+     public List<TableStatus> findTableStatus(LocalDateTime time) throws SQLException {
+         return bookings.findTableStatus(time);
+     }
+ }
+
+ private final class Payments implements PaymentRepository {
+
+     @Override
+     public Optional<Balance> findBalance(int orderId) throws SQLException {
+         return payments.findBalance(orderId);
+     }
+
+     @Override
+     public boolean settle(int orderId, double tendered) throws SQLException {
+         boolean settled = payments.settle(orderId, tendered);
+         // The payment listing needs the customer and order time; only look them up if it's open
+         if (settled && bus.hasSubscribers(DomainEvent.OrderPaid.class)) {
+             Optional<OrderDetails> details;
+             try {
+                 details = orders.findDetails(orderId);
+             } catch (SQLException e) {
+                 // Settled all the same, e.g. into the offline journal; the listing shows it on its next load
+                 return true;
+             }
+             if (details.isPresent()) {
+                 OrderDetails order = details.get();
+                 bus.publish(new DomainEvent.OrderPaid(orderId, order.customerName(), order.totalAmount(), order.orderTime()));
+             }
+         }
+         return settled;
+     }
+
+     @Override
+     public Revenue findRevenue(LocalDateTime from, LocalDateTime to) throws SQLException {
+         return payments.findRevenue(from, to);
+     }
+
+     @Override
+     public List<PaymentRecord> findPaidOrders(LocalDateTime from, LocalDateTime to, Cursor after, int limit)
+             throws SQLException {
+         return payments.findPaidOrders(from, to, after, limit);
+     }
+ }
+
+ private final class Feedbacks implements FeedbackRepository {
+
+     @Override
+     public void submit(int customerId, String comment, int rating) throws SQLException {
+         feedback.submit(customerId, comment, rating);
+         bus.publish(new DomainEvent.FeedbackSubmitted(customerId, rating));
+     }
+
+     @Override
+     public double averageRating() throws SQLException {
+         return feedback.averageRating();
+     }
+
+     @Override
+     public RatingTotals ratingTotals() throws SQLException {
+         return feedback.ratingTotals();
+     }
+ }
+}
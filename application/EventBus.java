@@ -0,0 +1,90 @@
+package application;
+//EventBus.java
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// In-process publish/subscribe for DomainEvents. Each subscription has its own queue and is
+// woken through its deliverer (Platform::runLater for panes) at most once per pending batch,
+// so a burst of writes reaches a pane as one list, applied in a single pulse.
+public final class EventBus {
+
+ public interface Subscription {
+     void cancel();
+ }
+
+ private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+ public Subscription subscribe(Set<Class<? extends DomainEvent>> types, Executor deliverer,
+                               Consumer<List<DomainEvent>> handler) {
+     Subscriber subscriber = new Subscriber(Set.copyOf(types), deliverer, handler);
+     subscribers.add(subscriber);
+     return subscriber;
+ }
+
+ // Lets publishers skip building an event nobody is listening for
+ public boolean hasSubscribers(Class<? extends DomainEvent> type) {
+     for (Subscriber subscriber : subscribers) {
+         if (subscriber.types.contains(type)) {
+             return true;
+         }
+     }
+     return false;
+ }
+
+ public void publish(DomainEvent event) {
+     for (Subscriber subscriber : subscribers) {
+         if (subscriber.types.contains(event.getClass())) {
+             subscriber.enqueue(event);
+         }
+     }
+ }
+
+ private final class Subscriber implements Subscription {
+     private final Set<Class<? extends DomainEvent>> types;
+     private final Executor deliverer;
+     private final Consumer<List<DomainEvent>> handler;
+     private final ConcurrentLinkedQueue<DomainEvent> pending = new ConcurrentLinkedQueue<>();
+     private final AtomicBoolean drainScheduled = new AtomicBoolean();
+     private volatile boolean cancelled;
+
+     private Subscriber(Set<Class<? extends DomainEvent>> types, Executor deliverer,
+                        Consumer<List<DomainEvent>> handler) {
+         this.types = types;
+         this.deliverer = deliverer;
+         this.handler = handler;
+     }
+
+     private void enqueue(DomainEvent event) {
+         pending.offer(event);
+         if (drainScheduled.compareAndSet(false, true)) {
+             deliverer.execute(this::drain);
+         }
+     }
+
+     private void drain() {
+         // Cleared first, so an event published while the handler runs schedules another drain
+         drainScheduled.set(false);
+         List<DomainEvent> batch = new ArrayList<>();
+         DomainEvent event;
+         while ((event = pending.poll()) != null) {
+             batch.add(event);
+         }
+         if (!batch.isEmpty() && !cancelled) {
+             handler.accept(batch);
+         }
+     }
+
+     @Override
+     public void cancel() {
+         cancelled = true;
+         subscribers.remove(this);
+         pending.clear();
+     }
+ }
+}
@@ -0,0 +1,520 @@
+package application;
+//FeedbackIngestion.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Write-behind front for JdbcFeedbackRepository. submit() appends the feedback to a local spill
+// file and queues it, so a kiosk never waits on the database; one flusher thread inserts the
+// queue in a batch every flush interval, or as soon as batchSize submissions are waiting.
+//
+// The spill file is a series of segments. Each flush seals the open segment and deletes it once
+// everything in it is committed, and start() replays segments left behind by a crash. Lines go
+// to the OS on every submit, so they survive the app dying; only a power cut can lose the last
+// few. One app instance per spill directory: start() locks it and fails if another holds it.
+public final class FeedbackIngestion implements FeedbackRepository {
+
+ public static final Path DEFAULT_SPILL_DIR = Path.of(System.getProperty("restaurant.feedback.spillDir",
+     Path.of(System.getProperty("user.home"), ".restaurant", "feedback").toString()));
+ public static final int DEFAULT_BATCH_SIZE = Integer.getInteger("restaurant.feedback.batchSize", 100);
+ public static final Duration DEFAULT_FLUSH_INTERVAL =
+     Duration.ofMillis(Long.getLong("restaurant.feedback.flushMillis", 2_000));
+
+ // Matches feedback: comments VARCHAR2(500), rating NUMBER(1). VARCHAR2 counts bytes, in
+ // UTF-8 for an AL32UTF8 database, so a comment in another script holds fewer characters.
+ private static final int MAX_COMMENT_BYTES = 500;
+ private static final String SEGMENT_PREFIX = "feedback-";
+ private static final String SEGMENT_SUFFIX = ".spill";
+ private static final String REJECTED_FILE = "rejected.log";
+ private static final String LOCK_FILE = "lock";
+
+ public record Stats(long submitted, long written, long rejected, long flushes, long failedFlushes, long pending) {}
+
+ private final JdbcFeedbackRepository database;
+ private final Path spillDir;
+ private final int batchSize;
+ private final Duration flushInterval;
+ private static final AtomicInteger INSTANCES = new AtomicInteger();
+ // Segment names start with this, so start() can tell a crashed run's segments from ours
+ private final String runPrefix = SEGMENT_PREFIX + System.currentTimeMillis() + "-" + INSTANCES.incrementAndGet() + "-";
+
+ // Guards queue, the open segment and the pending totals
+ private final ReentrantLock appendLock = new ReentrantLock();
+ private List<Submission> queue = new ArrayList<>();
+ private FileChannel segment;
+ private Path segmentPath;
+ private int segmentCount;
+ private final List<Path> closedSegments = new ArrayList<>();
+ private long pendingCount;
+ private long pendingSum;
+ private boolean closed;
+
+ // Held for a whole flush, and by ratingTotals so a row is never counted both in the table
+ // and as pending. retry and sealed are only touched under it.
+ private final ReentrantLock flushLock = new ReentrantLock();
+ private final List<Submission> retry = new ArrayList<>();
+ private final List<Path> sealed = new ArrayList<>();
+
+ private ScheduledExecutorService flusher;
+ // Held from start() to close(); a second process would take our live segment for crash debris
+ private FileChannel lockChannel;
+ private final AtomicBoolean flushRequested = new AtomicBoolean();
+ private final AtomicLong submitted = new AtomicLong();
+ private final AtomicLong written = new AtomicLong();
+ private final AtomicLong rejected = new AtomicLong();
+ private final AtomicLong flushes = new AtomicLong();
+ private final AtomicLong failedFlushes = new AtomicLong();
+
+ public FeedbackIngestion(JdbcFeedbackRepository database) {
+     this(database, DEFAULT_SPILL_DIR, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL);
+ }
+
+ public FeedbackIngestion(JdbcFeedbackRepository database, Path spillDir, int batchSize, Duration flushInterval) {
+     if (batchSize < 1 || flushInterval.isNegative() || flushInterval.isZero()) {
+         throw new IllegalArgumentException("Invalid batch size or flush interval");
+     }
+     this.database = database;
+     this.spillDir = spillDir;
+     this.batchSize = batchSize;
+     this.flushInterval = flushInterval;
+ }
+
+ // Call once the schema is in place: replays what a previous run left in the spill directory,
+ // then starts the flusher. Submissions made before this are kept and written by the first flush.
+ public void start() throws IOException {
+     flushLock.lock();
+     try {
+         if (flusher != null) {
+             return;
+         }
+         Files.createDirectories(spillDir);
+         lockSpillDir();
+         List<Path> leftOver;
+         try (Stream<Path> files = Files.list(spillDir)) {
+             leftOver = files.filter(FeedbackIngestion::isSegment)
+                 .filter(path -> !path.getFileName().toString().startsWith(runPrefix))
+                 .sorted()
+                 .toList();
+         }
+         // All read before any is queued, so start() can be tried again after a failure
+         List<Submission> recovered = new ArrayList<>();
+         for (Path path : leftOver) {
+             recovered.addAll(readSegment(path));
+         }
+         retry.addAll(recovered);
+         sealed.addAll(leftOver);
+         appendLock.lock();
+         try {
+             for (Submission submission : recovered) {
+                 pendingCount++;
+                 pendingSum += submission.rating();
+             }
+         } finally {
+             appendLock.unlock();
+         }
+         if (!leftOver.isEmpty()) {
+             System.out.println("Replaying " + retry.size() + " spilled feedback from " + leftOver.size() + " segment(s)");
+         }
+         // Written now, so the analytics totals loaded after this already include them
+         flush();
+
+         flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+             .name("feedback-flusher").daemon().factory());
+         long millis = flushInterval.toMillis();
+         flusher.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+     } finally {
+         flushLock.unlock();
+     }
+ }
+
+ @Override
+ public void submit(int customerId, String comment, int rating) throws SQLException {
+     if (rating < 1 || rating > 5) {
+         throw new IllegalArgumentException("Rating must be between 1 and 5");
+     }
+     if (comment != null && comment.getBytes(StandardCharsets.UTF_8).length > MAX_COMMENT_BYTES) {
+         throw new IllegalArgumentException("Feedback is longer than " + MAX_COMMENT_BYTES
+             + " bytes (accented and non-Latin letters take 2 to 4 each)");
+     }
+     // The table keeps microseconds; anything finer would defeat the duplicate check on replay
+     Submission submission = new Submission(customerId, comment, rating,
+         LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+     ByteBuffer line = StandardCharsets.UTF_8.encode(encode(submission));
+     boolean full;
+     appendLock.lock();
+     try {
+         if (closed) {
+             throw new SQLException("Feedback ingestion has been shut down");
+         }
+         try {
+             if (segment == null) {
+                 segmentPath = spillDir.resolve(String.format("%s%06d%s", runPrefix, segmentCount++, SEGMENT_SUFFIX));
+                 Files.createDirectories(spillDir);
+                 segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+             }
+             while (line.hasRemaining()) {
+                 segment.write(line);
+             }
+         } catch (IOException e) {
+             // A half-written line would swallow the next one, so carry on in a fresh segment
+             closeSegment();
+             throw new SQLException("Could not save feedback to " + spillDir + ": " + e.getMessage(), e);
+         }
+         queue.add(submission);
+         pendingCount++;
+         pendingSum += rating;
+         full = queue.size() >= batchSize;
+     } finally {
+         appendLock.unlock();
+     }
+     submitted.incrementAndGet();
+     if (full) {
+         requestFlush();
+     }
+ }
+
+ @Override
+ public double averageRating() throws SQLException {
+     RatingTotals totals = ratingTotals();
+     return totals.count() == 0 ? 0 : totals.sum() / (double) totals.count();
+ }
+
+ // What is in the table plus what is still waiting to be written
+ @Override
+ public RatingTotals ratingTotals() throws SQLException {
+     flushLock.lock();
+     try {
+         RatingTotals stored = database.ratingTotals();
+         appendLock.lock();
+         try {
+             return new RatingTotals(stored.count() + pendingCount, stored.sum() + pendingSum);
+         } finally {
+             appendLock.unlock();
+         }
+     } finally {
+         flushLock.unlock();
+     }
+ }
+
+ public Stats getStats() {
+     appendLock.lock();
+     try {
+         return new Stats(submitted.get(), written.get(), rejected.get(), flushes.get(), failedFlushes.get(), pendingCount);
+     } finally {
+         appendLock.unlock();
+     }
+ }
+
+ // Stops the flusher and makes a last attempt to write everything; what can't be written
+ // stays in the spill directory for the next start()
+ public void close() {
+     appendLock.lock();
+     try {
+         closed = true;
+     } finally {
+         appendLock.unlock();
+     }
+     if (flusher != null) {
+         flusher.shutdown();
+         try {
+             flusher.awaitTermination(10, TimeUnit.SECONDS);
+         } catch (InterruptedException e) {
+             Thread.currentThread().interrupt();
+         }
+         flush();
+     }
+     appendLock.lock();
+     try {
+         closeSegment();
+     } finally {
+         appendLock.unlock();
+     }
+     flushLock.lock();
+     try {
+         if (lockChannel != null) {
+             // Closing the channel releases the lock
+             lockChannel.close();
+             lockChannel = null;
+         }
+     } catch (IOException e) {
+         System.err.println("Could not release feedback spill lock in " + spillDir + ": " + e.getMessage());
+     } finally {
+         flushLock.unlock();
+     }
+ }
+
+ // Caller holds flushLock
+ private void lockSpillDir() throws IOException {
+     if (lockChannel != null) {
+         return;
+     }
+     FileChannel channel = FileChannel.open(spillDir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+     FileLock acquired;
+     try {
+         acquired = channel.tryLock();
+     } catch (OverlappingFileLockException e) {
+         // Held by another FeedbackIngestion in this JVM
+         acquired = null;
+     } catch (IOException e) {
+         channel.close();
+         throw e;
+     }
+     if (acquired == null) {
+         channel.close();
+         throw new IOException("Feedback spill directory " + spillDir + " is in use by another process;"
+             + " give each instance its own -Drestaurant.feedback.spillDir");
+     }
+     lockChannel = channel;
+ }
+
+ private void requestFlush() {
+     if (flusher != null && flushRequested.compareAndSet(false, true)) {
+         try {
+             flusher.execute(() -> {
+                 flushRequested.set(false);
+                 flush();
+             });
+         } catch (RejectedExecutionException shuttingDown) {
+             // close() does the final flush
+         }
+     }
+ }
+
+ private void flush() {
+     flushLock.lock();
+     try {
+         List<Submission> batch;
+         appendLock.lock();
+         try {
+             batch = queue;
+             queue = new ArrayList<>();
+             closeSegment();
+             sealed.addAll(closedSegments);
+             closedSegments.clear();
+         } finally {
+             appendLock.unlock();
+         }
+
+         if (!batch.isEmpty() || !retry.isEmpty()) {
+             flushes.incrementAndGet();
+             // Anything tried before may already be in the table, so it goes in with the duplicate check
+             List<Submission> again = new ArrayList<>(retry);
+             retry.clear();
+             boolean ok = write(again, true);
+             if (ok) {
+                 ok = write(batch, false);
+             } else {
+                 retry.addAll(batch);
+             }
+             if (!ok) {
+                 failedFlushes.incrementAndGet();
+             }
+         }
+
+         if (retry.isEmpty()) {
+             for (Path path : sealed) {
+                 Files.deleteIfExists(path);
+             }
+             sealed.clear();
+         }
+     } catch (IOException | RuntimeException e) {
+         // The flusher must survive to try again; the rows are still on disk
+         System.err.println("Feedback flush failed: " + e.getMessage());
+     } finally {
+         flushLock.unlock();
+     }
+ }
+
+ // In transactions of batchSize rows, so a bad row only sends its own chunk down the slow
+ // path. False when the database could not be reached; the unwritten rows are then in retry.
+ private boolean write(List<Submission> rows, boolean retrying) {
+     for (int from = 0; from < rows.size(); from += batchSize) {
+         if (!writeChunk(rows.subList(from, Math.min(from + batchSize, rows.size())), retrying)) {
+             retry.addAll(rows.subList(Math.min(from + batchSize, rows.size()), rows.size()));
+             return false;
+         }
+     }
+     return true;
+ }
+
+ private boolean writeChunk(List<Submission> rows, boolean retrying) {
+     try {
+         database.insertAll(rows, retrying);
+         settled(rows);
+         written.addAndGet(rows.size());
+         return true;
+     } catch (SQLException | RuntimeException e) {
+         if (!(e instanceof SQLException sql && isBadRow(sql))) {
+             System.err.println("Feedback flush deferred: " + e.getMessage());
+             retry.addAll(rows);
+             return false;
+         }
+     }
+     // One bad row fails the whole batch; go row by row to set it aside and keep the rest
+     for (int i = 0; i < rows.size(); i++) {
+         Submission row = rows.get(i);
+         try {
+             database.insertAll(List.of(row), retrying);
+             settled(List.of(row));
+             written.incrementAndGet();
+         } catch (SQLException | RuntimeException e) {
+             if (!(e instanceof SQLException sql && isBadRow(sql))) {
+                 System.err.println("Feedback flush deferred: " + e.getMessage());
+                 retry.addAll(rows.subList(i, rows.size()));
+                 return false;
+             }
+             reject(row, e);
+         }
+     }
+     return true;
+ }
+
+ // Constraint violations (e.g. an unknown customer id) and bad data will never go in
+ private static boolean isBadRow(SQLException e) {
+     for (SQLException next = e; next != null; next = next.getNextException()) {
+         for (Throwable cause = next; cause != null; cause = cause.getCause()) {
+             if (cause instanceof SQLIntegrityConstraintViolationException) {
+                 return true;
+             }
+             if (cause instanceof SQLException sql && sql.getSQLState() != null
+                     && (sql.getSQLState().startsWith("22") || sql.getSQLState().startsWith("23"))) {
+                 return true;
+             }
+         }
+     }
+     return false;
+ }
+
+ private void reject(Submission row, Exception e) {
+     rejected.incrementAndGet();
+     settled(List.of(row));
+     String entry = encode(row).stripTrailing() + "\t# " + String.valueOf(e.getMessage()).replace('\n', ' ') + "\n";
+     System.err.println("Feedback rejected: " + entry.stripTrailing());
+     try {
+         Files.writeString(spillDir.resolve(REJECTED_FILE), entry, StandardCharsets.UTF_8,
+             StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+     } catch (IOException io) {
+         System.err.println("Could not record rejected feedback: " + io.getMessage());
+     }
+ }
+
+ private void settled(List<Submission> rows) {
+     appendLock.lock();
+     try {
+         for (Submission row : rows) {
+             pendingCount--;
+             pendingSum -= row.rating();
+         }
+     } finally {
+         appendLock.unlock();
+     }
+ }
+
+ // Caller holds appendLock
+ private void closeSegment() {
+     if (segment == null) {
+         return;
+     }
+     try {
+         segment.close();
+     } catch (IOException e) {
+         System.err.println("Could not close " + segmentPath + ": " + e.getMessage());
+     }
+     closedSegments.add(segmentPath);
+     segment = null;
+     segmentPath = null;
+ }
+
+ private static boolean isSegment(Path path) {
+     String name = path.getFileName().toString();
+     return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+ }
+
+ // customerId TAB rating TAB submittedAt TAB comment, with the comment's tabs and line breaks escaped
+ private static String encode(Submission submission) {
+     StringBuilder line = new StringBuilder(64);
+     line.append(submission.customerId()).append('\t')
+         .append(submission.rating()).append('\t')
+         .append(submission.submittedAt()).append('\t');
+     String comment = submission.comment() == null ? "" : submission.comment();
+     for (int i = 0; i < comment.length(); i++) {
+         char c = comment.charAt(i);
+         switch (c) {
+             case '\\' -> line.append("\\\\");
+             case '\t' -> line.append("\\t");
+             case '\n' -> line.append("\\n");
+             case '\r' -> line.append("\\r");
+             default -> line.append(c);
+         }
+     }
+     return line.append('\n').toString();
+ }
+
+ private static List<Submission> readSegment(Path path) throws IOException {
+     List<Submission> submissions = new ArrayList<>();
+     String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+     // A last line without its newline was cut short by the crash, and may be missing part of the comment
+     int complete = content.lastIndexOf('\n') + 1;
+     if (complete < content.length()) {
+         System.err.println("Skipping incomplete last line of " + path);
+     }
+     String[] lines = content.substring(0, complete).split("\n");
+     for (int i = 0; i < lines.length && complete > 0; i++) {
+         String[] fields = lines[i].split("\t", 4);
+         try {
+             if (fields.length != 4) {
+                 throw new IllegalArgumentException("expected 4 fields");
+             }
+             submissions.add(new Submission(Integer.parseInt(fields[0]), unescape(fields[3]),
+                 Integer.parseInt(fields[1]), LocalDateTime.parse(fields[2])));
+         } catch (RuntimeException e) {
+             System.err.println("Skipping unreadable line " + (i + 1) + " of " + path + ": " + e.getMessage());
+         }
+     }
+     return submissions;
+ }
+
+ private static String unescape(String text) {
+     if (text.indexOf('\\') < 0) {
+         return text;
+     }
+     StringBuilder out = new StringBuilder(text.length());
+     for (int i = 0; i < text.length(); i++) {
+         char c = text.charAt(i);
+         if (c != '\\' || i == text.length() - 1) {
+             out.append(c);
+             continue;
+         }
+         char escaped = text.charAt(++i);
+         out.append(switch (escaped) {
+             case 't' -> '\t';
+             case 'n' -> '\n';
+             case 'r' -> '\r';
+             default -> escaped;
+         });
+     }
+     return out.toString();
+ }
+}
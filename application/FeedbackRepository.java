@@ -0,0 +1,19 @@
+package application;
+//FeedbackRepository.java
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+public interface FeedbackRepository {
+
+ record RatingTotals(long count, long sum) {}
+
+ // One piece of feedback as queued by FeedbackIngestion, stamped when it was submitted
+ record Submission(int customerId, String comment, int rating, LocalDateTime submittedAt) {}
+
+ void submit(int customerId, String comment, int rating) throws SQLException;
+
+ // 0 when there is no feedback yet
+ double averageRating() throws SQLException;
+
+ RatingTotals ratingTotals() throws SQLException;
+}
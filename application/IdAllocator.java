@@ -0,0 +1,81 @@
+package application;
+//IdAllocator.java
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Block ("pooled") ID allocation on top of an Oracle sequence. The sequence is altered to
+// INCREMENT BY blockSize, so one NEXTVAL returning hi reserves hi - blockSize + 1 .. hi for
+// this process and the IDs are then handed out from memory. Keys are known before the
+// insert, so rows can be batched without reading generated keys back.
+//
+// Ranges from different NEXTVAL calls never overlap, so plain NEXTVAL users elsewhere stay safe.
+public final class IdAllocator {
+
+ // first..last inclusive
+ public record Block(int first, int last) {}
+
+ public static final IdAllocator CUSTOMERS = new IdAllocator("customer_seq", 50);
+ public static final IdAllocator ORDERS = new IdAllocator("order_seq", 50);
+ public static final IdAllocator ORDER_ITEMS = new IdAllocator("order_item_seq", 200);
+ public static final IdAllocator BOOKINGS = new IdAllocator("booking_seq", 20);
+ public static final IdAllocator FEEDBACK = new IdAllocator("feedback_seq", 50);
+ public static final IdAllocator ADMINS = new IdAllocator("admin_seq", 10);
+
+ // Each sequence's INCREMENT BY must match; SchemaMigrations sets it from this list
+ static final List<IdAllocator> ALL = List.of(CUSTOMERS, ORDERS, ORDER_ITEMS, BOOKINGS, FEEDBACK, ADMINS);
+
+ private final String sequenceName;
+ private final int blockSize;
+ // Virtual threads may wait here while a block is fetched, so no synchronized
+ private final ReentrantLock lock = new ReentrantLock();
+ private long next = 1;
+ private long last = 0;
+
+ public IdAllocator(String sequenceName, int blockSize) {
+     this.sequenceName = sequenceName;
+     this.blockSize = blockSize;
+ }
+
+ public String getSequenceName() {
+     return sequenceName;
+ }
+
+ public int getBlockSize() {
+     return blockSize;
+ }
+
+ // conn is only used when the current block is exhausted
+ public int next(Connection conn) throws SQLException {
+     lock.lock();
+     try {
+         if (next > last) {
+             reserveBlock(conn);
+         }
+         return Math.toIntExact(next++);
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ // Reserves a whole block for the caller to hand out itself, e.g. keys for OfflineCapture to
+ // use while the database is unreachable. Doesn't touch this allocator's own block.
+ public Block takeBlock(Connection conn) throws SQLException {
+     try (Statement stmt = conn.createStatement();
+          ResultSet rs = stmt.executeQuery("SELECT " + sequenceName + ".NEXTVAL FROM dual")) {
+         rs.next();
+         long hi = rs.getLong(1);
+         // The first value of a fresh sequence is its START WITH, not a full block above it
+         return new Block(Math.toIntExact(Math.max(1, hi - blockSize + 1)), Math.toIntExact(hi));
+     }
+ }
+
+ private void reserveBlock(Connection conn) throws SQLException {
+     Block block = takeBlock(conn);
+     next = block.first();
+     last = block.last();
+ }
+}
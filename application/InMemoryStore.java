@@ -0,0 +1,393 @@
+package application;
+//InMemoryStore.java
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Embedded stand-in for the Oracle schema: the same six repositories backed by concurrent
+// maps and atomic sequences, so the flows can be profiled and load-tested without a database.
+// Foreign keys are checked the way Oracle would reject them.
+public class InMemoryStore {
+
+ private record StoredOrder(int orderId, int customerId, LocalDateTime orderTime,
+                            double totalAmount, boolean paid, List<OrderLine> lines) {}
+
+ private record StoredFeedback(int id, int customerId, String comment, int rating, LocalDateTime feedbackTime) {}
+
+ private final NavigableMap<Integer, Customer> customers = new ConcurrentSkipListMap<>();
+ private final Map<Integer, MenuItem> menuItems = new ConcurrentHashMap<>();
+ private final Map<Integer, DiningTable> tables = new ConcurrentSkipListMap<>();
+ private final Map<Integer, StoredOrder> orders = new ConcurrentHashMap<>();
+ private final Map<Integer, Booking> bookings = new ConcurrentHashMap<>();
+ private final Map<Integer, StoredFeedback> feedback = new ConcurrentHashMap<>();
+
+ private final AtomicInteger customerSeq = new AtomicInteger();
+ private final AtomicInteger orderSeq = new AtomicInteger();
+ private final AtomicInteger bookingSeq = new AtomicInteger();
+ private final AtomicInteger feedbackSeq = new AtomicInteger();
+
+ // Running quantity per menu item, so the most popular item never needs a scan of all orders
+ private final Map<Integer, LongAdder> quantityByItem = new ConcurrentHashMap<>();
+ private final LongAdder ratingSum = new LongAdder();
+ private final LongAdder ratingCount = new LongAdder();
+
+ private final CustomerRepository customerRepository = new Customers();
+ private final MenuRepository menuRepository = new Menu();
+ private final OrderRepository orderRepository = new Orders();
+ private final BookingRepository bookingRepository = new Bookings();
+ private final PaymentRepository paymentRepository = new Payments();
+ private final FeedbackRepository feedbackRepository = new Feedbacks();
+
+ // DatabaseConnection.INITIAL_MENU and INITIAL_TABLES, the rows SchemaMigrations seeds the database with
+ public static InMemoryStore withInitialData() {
+     InMemoryStore store = new InMemoryStore();
+     for (Object[] item : DatabaseConnection.INITIAL_MENU) {
+         store.putMenuItem(new MenuItem((Integer) item[0], (String) item[1], (Double) item[2]));
+     }
+     for (Object[] table : DatabaseConnection.INITIAL_TABLES) {
+         store.putTable(new DiningTable((Integer) table[0], (Integer) table[1]));
+     }
+     return store;
+ }
+
+ public void putMenuItem(MenuItem item) {
+     menuItems.put(item.id(), item);
+ }
+
+ public void putTable(DiningTable table) {
+     tables.put(table.tableNumber(), table);
+ }
+
+ public CustomerRepository customers() {
+     return customerRepository;
+ }
+
+ public MenuRepository menu() {
+     return menuRepository;
+ }
+
+ public OrderRepository orders() {
+     return orderRepository;
+ }
+
+ public BookingRepository bookings() {
+     return bookingRepository;
+ }
+
+ public PaymentRepository payments() {
+     return paymentRepository;
+ }
+
+ public FeedbackRepository feedback() {
+     return feedbackRepository;
+ }
+
+ private void requireCustomer(int customerId) throws SQLException {
+     if (!customers.containsKey(customerId)) {
+         throw new SQLIntegrityConstraintViolationException("integrity constraint violated - parent key not found (customer " + customerId + ")");
+     }
+ }
+
+ private static boolean within(LocalDateTime time, LocalDateTime from, LocalDateTime to) {
+     return !time.isBefore(from) && !time.isAfter(to);
+ }
+
+ private final class Customers implements CustomerRepository {
+
+     @Override
+     public int register(String name) {
+         int id = customerSeq.incrementAndGet();
+         customers.put(id, new Customer(id, name, null, null));
+         return id;
+     }
+
+     @Override
+     public boolean rename(int customerId, String newName) {
+         return customers.computeIfPresent(customerId,
+             (id, c) -> new Customer(id, newName, c.tableNo(), c.bookingTime())) != null;
+     }
+
+     @Override
+     public List<Customer> findPage(int afterId, int limit) {
+         return customers.tailMap(afterId, false).values().stream().limit(limit).toList();
+     }
+
+     @Override
+     public int count() {
+         return customers.size();
+     }
+
+     @Override
+     public Map<Integer, String> findNames(Collection<Integer> customerIds) {
+         Map<Integer, String> names = new HashMap<>();
+         for (int id : customerIds) {
+             Customer customer = customers.get(id);
+             if (customer != null) {
+                 names.put(id, customer.name());
+             }
+         }
+         return names;
+     }
+ }
+
+ private final class Menu implements MenuRepository {
+
+     @Override
+     public List<MenuItem> findAll() {
+         List<MenuItem> all = new ArrayList<>(menuItems.values());
+         all.sort(Comparator.comparingDouble(MenuItem::price));
+         return all;
+     }
+
+     @Override
+     public void upsert(List<MenuItem> items) {
+         for (MenuItem item : items) {
+             menuItems.put(item.id(), item);
+         }
+     }
+ }
+
+ private final class Orders implements OrderRepository {
+
+     @Override
+     public PlacedOrder place(int customerId, List<OrderLine> lines) throws SQLException {
+         if (lines.isEmpty()) {
+             throw new IllegalArgumentException("Order has no items");
+         }
+         requireCustomer(customerId);
+
+         double totalAmount = 0;
+         for (OrderLine line : lines) {
+             MenuItem item = menuItems.get(line.menuItemId());
+             if (item == null) {
+                 throw new SQLException("Menu item " + line.menuItemId() + " is no longer on the menu");
+             }
+             totalAmount += item.price() * line.quantity();
+         }
+
+         int orderId = orderSeq.incrementAndGet();
+         orders.put(orderId, new StoredOrder(orderId, customerId, LocalDateTime.now(), totalAmount, false, List.copyOf(lines)));
+         for (OrderLine line : lines) {
+             quantityByItem.computeIfAbsent(line.menuItemId(), id -> new LongAdder()).add(line.quantity());
+         }
+         return new PlacedOrder(orderId, totalAmount);
+     }
+
+     @Override
+     public Optional<OrderDetails> findDetails(int orderId) {
+         StoredOrder order = orders.get(orderId);
+         if (order == null) {
+             return Optional.empty();
+         }
+         List<OrderDetails.Item> items = new ArrayList<>();
+         for (OrderLine line : order.lines()) {
+             MenuItem item = menuItems.get(line.menuItemId());
+             if (item != null) {
+                 items.add(new OrderDetails.Item(item.name(), line.quantity(), item.price()));
+             }
+         }
+         Customer customer = customers.get(order.customerId());
+         return Optional.of(new OrderDetails(order.orderId(), order.customerId(),
+             customer != null ? customer.name() : null, order.orderTime(),
+             order.totalAmount(), order.paid(), items));
+     }
+
+     @Override
+     public int count() {
+         return orders.size();
+     }
+
+     @Override
+     public Optional<PopularItem> mostPopularItem() {
+         // Same grouping as the SQL version: by item name
+         Map<String, Long> byName = new HashMap<>();
+         quantityByItem.forEach((itemId, quantity) -> {
+             MenuItem item = menuItems.get(itemId);
+             if (item != null) {
+                 byName.merge(item.name(), quantity.sum(), Long::sum);
+             }
+         });
+         return byName.entrySet().stream()
+             .max(Map.Entry.comparingByValue())
+             .map(e -> new PopularItem(e.getKey(), e.getValue().intValue()));
+     }
+
+     @Override
+     public Map<Integer, Long> quantitiesByItem() {
+         Map<Integer, Long> quantities = new HashMap<>();
+         quantityByItem.forEach((itemId, quantity) -> quantities.put(itemId, quantity.sum()));
+         return quantities;
+     }
+ }
+
+ // Plain scans; DataStore.inMemory puts an IndexedBookingRepository in front of this
+ private final class Bookings implements BookingRepository {
+
+     // Check and insert as one step, like the table row lock the JDBC repository takes
+     private final ReentrantLock bookingLock = new ReentrantLock();
+
+     @Override
+     public List<DiningTable> findTables() {
+         return new ArrayList<>(tables.values());
+     }
+
+     @Override
+     public List<Booking> findBookings() {
+         return new ArrayList<>(bookings.values());
+     }
+
+     @Override
+     public List<DiningTable> findAvailableTables(int partySize, LocalDateTime time) {
+         List<DiningTable> available = new ArrayList<>();
+         for (DiningTable table : tables.values()) {
+             if (table.capacity() >= partySize && findConflict(table.tableNumber(), time) == null) {
+                 available.add(table);
+             }
+         }
+         available.sort(Comparator.comparingInt(DiningTable::capacity));
+         return available;
+     }
+
+     @Override
+     public int book(int tableNumber, int customerId, LocalDateTime bookingTime, int partySize) throws SQLException {
+         requireCustomer(customerId);
+         if (!tables.containsKey(tableNumber)) {
+             throw new SQLIntegrityConstraintViolationException("integrity constraint violated - parent key not found (table " + tableNumber + ")");
+         }
+         bookingLock.lock();
+         try {
+             if (findConflict(tableNumber, bookingTime) != null) {
+                 throw JdbcBookingRepository.alreadyBooked(tableNumber, bookingTime);
+             }
+             int id = bookingSeq.incrementAndGet();
+             bookings.put(id, new Booking(id, tableNumber, customerId, bookingTime, partySize));
+             return id;
+         } finally {
+             bookingLock.unlock();
+         }
+     }
+
+     @Override
+     public List<TableStatus> findTableStatus(LocalDateTime time) {
+         List<TableStatus> statuses = new ArrayList<>();
+         for (DiningTable table : tables.values()) {
+             Booking booking = findConflict(table.tableNumber(), time);
+             if (booking == null) {
+                 statuses.add(new TableStatus(table.tableNumber(), table.capacity(), false, null, 0));
+             } else {
+                 Customer customer = customers.get(booking.customerId());
+                 statuses.add(new TableStatus(table.tableNumber(), table.capacity(), true,
+                     customer != null ? customer.name() : null, booking.partySize()));
+             }
+         }
+         return statuses;
+     }
+
+     private Booking findConflict(int tableNumber, LocalDateTime time) {
+         LocalDateTime from = time.minus(TableOccupancyIndex.TURNOVER);
+         LocalDateTime to = time.plus(TableOccupancyIndex.TURNOVER);
+         Booking earliest = null;
+         for (Booking booking : bookings.values()) {
+             if (booking.tableNumber() == tableNumber && within(booking.bookingTime(), from, to)
+                     && (earliest == null || booking.bookingTime().isBefore(earliest.bookingTime()))) {
+                 earliest = booking;
+             }
+         }
+         return earliest;
+     }
+ }
+
+ private final class Payments implements PaymentRepository {
+
+     @Override
+     public Optional<Balance> findBalance(int orderId) {
+         StoredOrder order = orders.get(orderId);
+         return order == null ? Optional.empty() : Optional.of(new Balance(order.totalAmount(), order.paid()));
+     }
+
+     @Override
+     public boolean settle(int orderId, double tendered) {
+         boolean[] settled = new boolean[1];
+         // computeIfPresent runs atomically per key, which is what the conditional UPDATE relies on
+         orders.computeIfPresent(orderId, (id, o) -> {
+             if (o.paid() || o.totalAmount() > tendered) {
+                 return o;
+             }
+             settled[0] = true;
+             return new StoredOrder(o.orderId(), o.customerId(), o.orderTime(), o.totalAmount(), true, o.lines());
+         });
+         return settled[0];
+     }
+
+     @Override
+     public Revenue findRevenue(LocalDateTime from, LocalDateTime to) {
+         int payments = 0;
+         double total = 0;
+         for (StoredOrder order : orders.values()) {
+             if (order.paid() && inRange(order.orderTime(), from, to)) {
+                 payments++;
+                 total += order.totalAmount();
+             }
+         }
+         return new Revenue(payments, total);
+     }
+
+     @Override
+     public List<PaymentRecord> findPaidOrders(LocalDateTime from, LocalDateTime to, Cursor after, int limit) {
+         Comparator<StoredOrder> newestFirst = Comparator.comparing(StoredOrder::orderTime)
+             .thenComparingInt(StoredOrder::orderId).reversed();
+         return orders.values().stream()
+             .filter(o -> o.paid() && inRange(o.orderTime(), from, to))
+             .filter(o -> after == null || o.orderTime().isBefore(after.orderTime())
+                 || (o.orderTime().equals(after.orderTime()) && o.orderId() < after.orderId()))
+             .sorted(newestFirst)
+             .limit(limit)
+             .map(o -> {
+                 Customer customer = customers.get(o.customerId());
+                 return new PaymentRecord(o.orderId(), customer != null ? customer.name() : null,
+                     o.totalAmount(), o.orderTime());
+             })
+             .toList();
+     }
+
+     private boolean inRange(LocalDateTime time, LocalDateTime from, LocalDateTime to) {
+         return !time.isBefore(from) && time.isBefore(to);
+     }
+ }
+
+ private final class Feedbacks implements FeedbackRepository {
+
+     @Override
+     public void submit(int customerId, String comment, int rating) throws SQLException {
+         requireCustomer(customerId);
+         int id = feedbackSeq.incrementAndGet();
+         feedback.put(id, new StoredFeedback(id, customerId, comment, rating, LocalDateTime.now()));
+         ratingSum.add(rating);
+         ratingCount.increment();
+     }
+
+     @Override
+     public double averageRating() {
+         long count = ratingCount.sum();
+         return count == 0 ? 0 : ratingSum.sum() / (double) count;
+     }
+
+     @Override
+     public RatingTotals ratingTotals() {
+         return new RatingTotals(ratingCount.sum(), ratingSum.sum());
+     }
+ }
+}
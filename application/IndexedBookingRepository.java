@@ -0,0 +1,120 @@
+package application;
+//IndexedBookingRepository.java
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Answers availability and table status from a TableOccupancyIndex. The index is loaded from
+// the wrapped repository, updated on every booking made through this one, and reloaded every
+// REFRESH_INTERVAL and whenever the database turns a booking down, so bookings made by other
+// tills or the server show up. The database has the last word: see JdbcBookingRepository.book.
+public class IndexedBookingRepository implements BookingRepository {
+
+ // How long bookings made elsewhere can go unseen here
+ public static final Duration REFRESH_INTERVAL =
+     Duration.ofSeconds(Long.getLong("restaurant.bookings.refreshSeconds", 30));
+
+ private final BookingRepository delegate;
+ private final CustomerRepository customers;
+ private final TableOccupancyIndex index = new TableOccupancyIndex();
+ private final Object loadLock = new Object();
+ private volatile boolean loaded;
+ private volatile long loadedAt;
+
+ public IndexedBookingRepository(BookingRepository delegate, CustomerRepository customers) {
+     this.delegate = delegate;
+     this.customers = customers;
+ }
+
+ // Called at startup so the first availability check doesn't pay for the load
+ public void load() throws SQLException {
+     if (loaded && System.nanoTime() - loadedAt < REFRESH_INTERVAL.toNanos()) {
+         return;
+     }
+     synchronized (loadLock) {
+         if (!loaded || System.nanoTime() - loadedAt >= REFRESH_INTERVAL.toNanos()) {
+             reload();
+         }
+     }
+ }
+
+ // Caller holds loadLock
+ private void reload() throws SQLException {
+     index.load(delegate.findTables(), delegate.findBookings());
+     loadedAt = System.nanoTime();
+     loaded = true;
+ }
+
+ public TableOccupancyIndex getIndex() {
+     return index;
+ }
+
+ @Override
+ public List<DiningTable> findTables() throws SQLException {
+     load();
+     return index.tables();
+ }
+
+ @Override
+ public List<Booking> findBookings() throws SQLException {
+     return delegate.findBookings();
+ }
+
+ @Override
+ public List<DiningTable> findAvailableTables(int partySize, LocalDateTime time) throws SQLException {
+     load();
+     return index.findAvailable(partySize, time);
+ }
+
+ @Override
+ public int book(int tableNumber, int customerId, LocalDateTime bookingTime, int partySize) throws SQLException {
+     load();
+     int id;
+     try {
+         id = delegate.book(tableNumber, customerId, bookingTime, partySize);
+     } catch (SQLIntegrityConstraintViolationException e) {
+         // Most likely booked from elsewhere since the last load; catch up so it shows as taken
+         try {
+             synchronized (loadLock) {
+                 reload();
+             }
+         } catch (SQLException reloadFailure) {
+             e.addSuppressed(reloadFailure);
+         }
+         throw e;
+     }
+     index.add(new Booking(id, tableNumber, customerId, bookingTime, partySize));
+     return id;
+ }
+
+ @Override
+ public List<TableStatus> findTableStatus(LocalDateTime time) throws SQLException {
+     load();
+     List<DiningTable> tables = index.tables();
+     List<Optional<Booking>> conflicts = new ArrayList<>();
+     Set<Integer> customerIds = new HashSet<>();
+     for (DiningTable table : tables) {
+         Optional<Booking> conflict = index.findConflict(table.tableNumber(), time);
+         conflict.ifPresent(b -> customerIds.add(b.customerId()));
+         conflicts.add(conflict);
+     }
+
+     // Names are only needed for booked tables, and come back in one lookup
+     Map<Integer, String> names = customerIds.isEmpty() ? Map.of() : customers.findNames(customerIds);
+     List<TableStatus> statuses = new ArrayList<>();
+     for (int i = 0; i < tables.size(); i++) {
+         DiningTable table = tables.get(i);
+         statuses.add(conflicts.get(i)
+             .map(b -> new TableStatus(table.tableNumber(), table.capacity(), true, names.get(b.customerId()), b.partySize()))
+             .orElseGet(() -> new TableStatus(table.tableNumber(), table.capacity(), false, null, 0)));
+     }
+     return statuses;
+ }
+}
@@ -0,0 +1,81 @@
+package application;
+//IndexedCustomerRepository.java
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Keeps a CustomerNameIndex for search(). The index is loaded once from the wrapped repository,
+// a page at a time, and updated on every register and rename made through this one.
+public class IndexedCustomerRepository implements CustomerRepository {
+
+ private static final int LOAD_PAGE_SIZE = 10_000;
+
+ private final CustomerRepository delegate;
+ private final CustomerNameIndex index = new CustomerNameIndex();
+ private final Object loadLock = new Object();
+ private volatile boolean loaded;
+
+ public IndexedCustomerRepository(CustomerRepository delegate) {
+     this.delegate = delegate;
+ }
+
+ // Called at startup so the first search doesn't pay for the load
+ public void load() throws SQLException {
+     if (loaded) {
+         return;
+     }
+     synchronized (loadLock) {
+         if (!loaded) {
+             List<Customer> all = new ArrayList<>();
+             List<Customer> page = delegate.findPage(0, LOAD_PAGE_SIZE);
+             while (!page.isEmpty()) {
+                 all.addAll(page);
+                 page = page.size() < LOAD_PAGE_SIZE ? List.of()
+                     : delegate.findPage(page.get(page.size() - 1).id(), LOAD_PAGE_SIZE);
+             }
+             index.load(all);
+             loaded = true;
+         }
+     }
+ }
+
+ public List<CustomerNameIndex.Match> search(String query, int limit) throws SQLException {
+     load();
+     return index.search(query, limit);
+ }
+
+ @Override
+ public int register(String name) throws SQLException {
+     load();
+     int id = delegate.register(name);
+     index.add(id, name);
+     return id;
+ }
+
+ @Override
+ public boolean rename(int customerId, String newName) throws SQLException {
+     load();
+     boolean renamed = delegate.rename(customerId, newName);
+     if (renamed) {
+         index.rename(customerId, newName);
+     }
+     return renamed;
+ }
+
+ @Override
+ public List<Customer> findPage(int afterId, int limit) throws SQLException {
+     return delegate.findPage(afterId, limit);
+ }
+
+ @Override
+ public int count() throws SQLException {
+     return delegate.count();
+ }
+
+ @Override
+ public Map<Integer, String> findNames(Collection<Integer> customerIds) throws SQLException {
+     return delegate.findNames(customerIds);
+ }
+}
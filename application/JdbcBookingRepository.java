@@ -0,0 +1,224 @@
+package application;
+//JdbcBookingRepository.java
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class JdbcBookingRepository implements BookingRepository {
+
+ @Override
+ public List<DiningTable> findAvailableTables(int partySize, LocalDateTime time) throws SQLException {
+     List<DiningTable> tables = new ArrayList<>();
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         String sql = """
+             SELECT t.table_number, t.capacity
+             FROM tables t
+             WHERE t.capacity >= ?
+             AND t.table_number NOT IN (
+                 SELECT tb.table_number
+                 FROM table_bookings tb
+                 WHERE tb.booking_time BETWEEN ? AND ?
+             )
+             ORDER BY t.capacity
+             """;
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             stmt.setInt(1, partySize);
+             stmt.setTimestamp(2, Timestamp.valueOf(time.minus(TableOccupancyIndex.TURNOVER)));
+             stmt.setTimestamp(3, Timestamp.valueOf(time.plus(TableOccupancyIndex.TURNOVER)));
+
+             try (ResultSet rs = stmt.executeQuery()) {
+                 while (rs.next()) {
+                     tables.add(new DiningTable(rs.getInt("table_number"), rs.getInt("capacity")));
+                 }
+             }
+         }
+     }
+     return tables;
+ }
+
+ @Override
+ public int book(int tableNumber, int customerId, LocalDateTime bookingTime, int partySize) throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         return book(conn, IdAllocator.BOOKINGS.next(conn), tableNumber, customerId, bookingTime, partySize);
+     }
+ }
+
+ // With a key the caller already took from IdAllocator.BOOKINGS; see JdbcOrderRepository.place.
+ // The row only goes in if no booking holds the table within TURNOVER of bookingTime. Other
+ // tills and the server book too, and an IndexedBookingRepository only sees its own process,
+ // so this is what stops a double booking; the table row is locked so two can't both pass.
+ int book(Connection conn, int id, int tableNumber, int customerId, LocalDateTime bookingTime, int partySize)
+         throws SQLException {
+     conn.setAutoCommit(false);
+     try {
+         lockTables(conn, List.of(tableNumber));
+         String sql = """
+             INSERT INTO table_bookings (id, table_number, customer_id, booking_time, party_size)
+             SELECT ?, ?, ?, ?, ? FROM dual
+             WHERE NOT EXISTS (
+                 SELECT 1 FROM table_bookings tb
+                 WHERE tb.table_number = ? AND tb.booking_time BETWEEN ? AND ?
+             )
+             """;
+         int inserted;
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             stmt.setInt(1, id);
+             stmt.setInt(2, tableNumber);
+             stmt.setInt(3, customerId);
+             stmt.setTimestamp(4, Timestamp.valueOf(bookingTime));
+             stmt.setInt(5, partySize);
+             stmt.setInt(6, tableNumber);
+             stmt.setTimestamp(7, Timestamp.valueOf(bookingTime.minus(TableOccupancyIndex.TURNOVER)));
+             stmt.setTimestamp(8, Timestamp.valueOf(bookingTime.plus(TableOccupancyIndex.TURNOVER)));
+             inserted = stmt.executeUpdate();
+         }
+         if (inserted == 0) {
+             throw alreadyBooked(tableNumber, bookingTime);
+         }
+         conn.commit();
+         return id;
+     } catch (SQLException | RuntimeException e) {
+         conn.rollback();
+         throw e;
+     } finally {
+         conn.setAutoCommit(true);
+     }
+ }
+
+ // SQLState 23 like any other constraint, so callers and the server treat it as a conflict
+ static SQLIntegrityConstraintViolationException alreadyBooked(int tableNumber, LocalDateTime bookingTime) {
+     return new SQLIntegrityConstraintViolationException("Table " + tableNumber + " is already booked within "
+         + TableOccupancyIndex.TURNOVER.toMinutes() + " minutes of " + bookingTime, "23000");
+ }
+
+ // Locked in table order, so two transactions locking several can't deadlock
+ private static void lockTables(Connection conn, Collection<Integer> tableNumbers) throws SQLException {
+     try (PreparedStatement lock = conn.prepareStatement("SELECT table_number FROM tables WHERE table_number = ? FOR UPDATE")) {
+         for (int tableNumber : tableNumbers.stream().distinct().sorted().toList()) {
+             lock.setInt(1, tableNumber);
+             lock.executeQuery().close();
+         }
+     }
+ }
+
+ // Replays bookings taken by OfflineCapture, keys included, in the caller's transaction. One
+ // whose key is already there is skipped. One that overlaps a booking made elsewhere during the
+ // outage fails the same check as book() and is returned instead, for the caller to set aside.
+ List<Booking> insertMissing(Connection conn, List<Booking> captured) throws SQLException {
+     lockTables(conn, captured.stream().map(Booking::tableNumber).toList());
+     String sql = """
+         INSERT INTO table_bookings (id, table_number, customer_id, booking_time, party_size)
+         SELECT ?, ?, ?, ?, ? FROM dual
+         WHERE NOT EXISTS (
+             SELECT 1 FROM table_bookings tb
+             WHERE tb.id = ? OR (tb.table_number = ? AND tb.booking_time BETWEEN ? AND ?)
+         )
+         """;
+     int[] counts;
+     try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+         for (Booking booking : captured) {
+             stmt.setInt(1, booking.id());
+             stmt.setInt(2, booking.tableNumber());
+             stmt.setInt(3, booking.customerId());
+             stmt.setTimestamp(4, Timestamp.valueOf(booking.bookingTime()));
+             stmt.setInt(5, booking.partySize());
+             stmt.setInt(6, booking.id());
+             stmt.setInt(7, booking.tableNumber());
+             stmt.setTimestamp(8, Timestamp.valueOf(booking.bookingTime().minus(TableOccupancyIndex.TURNOVER)));
+             stmt.setTimestamp(9, Timestamp.valueOf(booking.bookingTime().plus(TableOccupancyIndex.TURNOVER)));
+             stmt.addBatch();
+         }
+         counts = stmt.executeBatch();
+     }
+     // Nothing inserted: already replayed if the key is there, otherwise the table was taken
+     List<Booking> refused = new ArrayList<>();
+     try (PreparedStatement exists = conn.prepareStatement("SELECT 1 FROM table_bookings WHERE id = ?")) {
+         for (int i = 0; i < counts.length; i++) {
+             if (counts[i] != 0) {
+                 continue;
+             }
+             exists.setInt(1, captured.get(i).id());
+             try (ResultSet rs = exists.executeQuery()) {
+                 if (!rs.next()) {
+                     refused.add(captured.get(i));
+                 }
+             }
+         }
+     }
+     return refused;
+ }
+
+ @Override
+ public List<TableStatus> findTableStatus(LocalDateTime time) throws SQLException {
+     List<TableStatus> statuses = new ArrayList<>();
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         // Earliest booking per table inside the window, so each table appears once
+         String sql = """
+             SELECT t.table_number, t.capacity, c.name as customer_name, tb.party_size, tb.id as booking_id
+             FROM tables t
+             LEFT JOIN table_bookings tb ON t.table_number = tb.table_number
+                 AND tb.booking_time BETWEEN ? AND ?
+             LEFT JOIN customers c ON tb.customer_id = c.id
+             ORDER BY t.table_number, tb.booking_time, tb.id
+             """;
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             stmt.setTimestamp(1, Timestamp.valueOf(time.minus(TableOccupancyIndex.TURNOVER)));
+             stmt.setTimestamp(2, Timestamp.valueOf(time.plus(TableOccupancyIndex.TURNOVER)));
+
+             try (ResultSet rs = stmt.executeQuery()) {
+                 int lastTable = -1;
+                 while (rs.next()) {
+                     int tableNumber = rs.getInt("table_number");
+                     if (tableNumber == lastTable) {
+                         continue;
+                     }
+                     lastTable = tableNumber;
+                     rs.getInt("booking_id");
+                     boolean booked = !rs.wasNull();
+                     statuses.add(new TableStatus(tableNumber, rs.getInt("capacity"), booked,
+                         booked ? rs.getString("customer_name") : null,
+                         booked ? rs.getInt("party_size") : 0));
+                 }
+             }
+         }
+     }
+     return statuses;
+ }
+
+ @Override
+ public List<DiningTable> findTables() throws SQLException {
+     List<DiningTable> tables = new ArrayList<>();
+     try (Connection conn = DatabaseConnection.getConnection();
+          PreparedStatement stmt = conn.prepareStatement("SELECT table_number, capacity FROM tables ORDER BY table_number");
+          ResultSet rs = stmt.executeQuery()) {
+         while (rs.next()) {
+             tables.add(new DiningTable(rs.getInt("table_number"), rs.getInt("capacity")));
+         }
+     }
+     return tables;
+ }
+
+ @Override
+ public List<Booking> findBookings() throws SQLException {
+     List<Booking> bookings = new ArrayList<>();
+     String sql = "SELECT id, table_number, customer_id, booking_time, party_size FROM table_bookings";
+     try (Connection conn = DatabaseConnection.getConnection();
+          PreparedStatement stmt = conn.prepareStatement(sql)) {
+         stmt.setFetchSize(500);
+         try (ResultSet rs = stmt.executeQuery()) {
+             while (rs.next()) {
+                 bookings.add(new Booking(rs.getInt("id"), rs.getInt("table_number"), rs.getInt("customer_id"),
+                     rs.getTimestamp("booking_time").toLocalDateTime(), rs.getInt("party_size")));
+             }
+         }
+     }
+     return bookings;
+ }
+}
@@ -0,0 +1,104 @@
+package application;
+//JdbcCustomerRepository.java
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JdbcCustomerRepository implements CustomerRepository {
+
+ // Oracle rejects IN-lists longer than 1000 expressions
+ private static final int MAX_IN_LIST = 1000;
+
+ @Override
+ public int register(String name) throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         int id = IdAllocator.CUSTOMERS.next(conn);
+         String sql = "INSERT INTO customers (id, name) VALUES (?, ?)";
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             stmt.setInt(1, id);
+             stmt.setString(2, name);
+             stmt.executeUpdate();
+             return id;
+         }
+     }
+ }
+
+ @Override
+ public boolean rename(int customerId, String newName) throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         String sql = "UPDATE customers SET name = ? WHERE id = ?";
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             stmt.setString(1, newName);
+             stmt.setInt(2, customerId);
+             return stmt.executeUpdate() > 0;
+         }
+     }
+ }
+
+ @Override
+ public List<Customer> findPage(int afterId, int limit) throws SQLException {
+     List<Customer> customers = new ArrayList<>();
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         String sql = "SELECT id, name, table_no, booking_time FROM customers WHERE id > ? ORDER BY id FETCH FIRST ? ROWS ONLY";
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             stmt.setInt(1, afterId);
+             stmt.setInt(2, limit);
+             stmt.setFetchSize(limit);
+             try (ResultSet rs = stmt.executeQuery()) {
+                 while (rs.next()) {
+                     customers.add(toCustomer(rs));
+                 }
+             }
+         }
+     }
+     return customers;
+ }
+
+ @Override
+ public int count() throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection();
+          PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM customers");
+          ResultSet rs = stmt.executeQuery()) {
+         rs.next();
+         return rs.getInt(1);
+     }
+ }
+
+ @Override
+ public Map<Integer, String> findNames(Collection<Integer> customerIds) throws SQLException {
+     List<Integer> ids = new ArrayList<>(customerIds);
+     Map<Integer, String> names = new HashMap<>();
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+             List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+             String sql = "SELECT id, name FROM customers WHERE id IN (" + "?,".repeat(chunk.size() - 1) + "?)";
+             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                 for (int i = 0; i < chunk.size(); i++) {
+                     stmt.setInt(i + 1, chunk.get(i));
+                 }
+                 try (ResultSet rs = stmt.executeQuery()) {
+                     while (rs.next()) {
+                         names.put(rs.getInt("id"), rs.getString("name"));
+                     }
+                 }
+             }
+         }
+     }
+     return names;
+ }
+
+ static Customer toCustomer(ResultSet rs) throws SQLException {
+     int tableNo = rs.getInt("table_no");
+     Integer table = rs.wasNull() ? null : tableNo;
+     Timestamp bookingTime = rs.getTimestamp("booking_time");
+     return new Customer(rs.getInt("id"), rs.getString("name"), table,
+         bookingTime != null ? bookingTime.toLocalDateTime() : null);
+ }
+}
@@ -0,0 +1,83 @@
+package application;
+//JdbcFeedbackRepository.java
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+public class JdbcFeedbackRepository implements FeedbackRepository {
+
+ @Override
+ public void submit(int customerId, String comment, int rating) throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         String sql = "INSERT INTO feedback (id, customer_id, comments, rating) VALUES (?, ?, ?, ?)";
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             stmt.setInt(1, IdAllocator.FEEDBACK.next(conn));
+             stmt.setInt(2, customerId);
+             stmt.setString(3, comment);
+             stmt.setInt(4, rating);
+             stmt.executeUpdate();
+         }
+     }
+ }
+
+ // The whole batch in one transaction. With skipExisting, a row whose customer, rating and
+ // time are already in the table is left out, so replaying a batch that may have been
+ // committed before a crash doesn't store it twice.
+ public void insertAll(List<Submission> batch, boolean skipExisting) throws SQLException {
+     if (batch.isEmpty()) {
+         return;
+     }
+     String sql = skipExisting
+         ? "INSERT INTO feedback (id, customer_id, comments, rating, feedback_time) SELECT ?, ?, ?, ?, ? FROM dual "
+           + "WHERE NOT EXISTS (SELECT 1 FROM feedback WHERE customer_id = ? AND rating = ? AND feedback_time = ?)"
+         : "INSERT INTO feedback (id, customer_id, comments, rating, feedback_time) VALUES (?, ?, ?, ?, ?)";
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         conn.setAutoCommit(false);
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             for (Submission submission : batch) {
+                 Timestamp submittedAt = Timestamp.valueOf(submission.submittedAt());
+                 stmt.setInt(1, IdAllocator.FEEDBACK.next(conn));
+                 stmt.setInt(2, submission.customerId());
+                 stmt.setString(3, submission.comment());
+                 stmt.setInt(4, submission.rating());
+                 stmt.setTimestamp(5, submittedAt);
+                 if (skipExisting) {
+                     stmt.setInt(6, submission.customerId());
+                     stmt.setInt(7, submission.rating());
+                     stmt.setTimestamp(8, submittedAt);
+                 }
+                 stmt.addBatch();
+             }
+             stmt.executeBatch();
+             conn.commit();
+         } catch (SQLException | RuntimeException e) {
+             conn.rollback();
+             throw e;
+         } finally {
+             conn.setAutoCommit(true);
+         }
+     }
+ }
+
+ @Override
+ public double averageRating() throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection();
+          PreparedStatement stmt = conn.prepareStatement("SELECT AVG(rating) FROM feedback");
+          ResultSet rs = stmt.executeQuery()) {
+         return rs.next() ? rs.getDouble(1) : 0;
+     }
+ }
+
+ @Override
+ public RatingTotals ratingTotals() throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection();
+          PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(rating), SUM(rating) FROM feedback");
+          ResultSet rs = stmt.executeQuery()) {
+         rs.next();
+         return new RatingTotals(rs.getLong(1), rs.getLong(2));
+     }
+ }
+}
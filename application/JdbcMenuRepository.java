@@ -0,0 +1,59 @@
+package application;
+//JdbcMenuRepository.java
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JdbcMenuRepository implements MenuRepository {
+
+ @Override
+ public List<MenuItem> findAll() throws SQLException {
+     List<MenuItem> items = new ArrayList<>();
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         String sql = "SELECT id, name, price FROM menu_items ORDER BY price";
+         try (PreparedStatement stmt = conn.prepareStatement(sql);
+              ResultSet rs = stmt.executeQuery()) {
+             while (rs.next()) {
+                 items.add(new MenuItem(rs.getInt("id"), rs.getString("name"), rs.getDouble("price")));
+             }
+         }
+     }
+     return items;
+ }
+
+ // One MERGE batch in one transaction, so a chunk costs a single round trip and commit
+ @Override
+ public void upsert(List<MenuItem> items) throws SQLException {
+     if (items.isEmpty()) {
+         return;
+     }
+     // Casts give the binds a type, which the USING subquery needs before it can be planned
+     String sql = "MERGE INTO menu_items t "
+                + "USING (SELECT CAST(? AS NUMBER) id, CAST(? AS VARCHAR2(100)) name, CAST(? AS NUMBER(10,2)) price FROM dual) s "
+                + "ON (t.id = s.id) "
+                + "WHEN MATCHED THEN UPDATE SET t.name = s.name, t.price = s.price "
+                + "WHEN NOT MATCHED THEN INSERT (id, name, price) VALUES (s.id, s.name, s.price)";
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         conn.setAutoCommit(false);
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             for (MenuItem item : items) {
+                 stmt.setInt(1, item.id());
+                 stmt.setString(2, item.name());
+                 stmt.setBigDecimal(3, BigDecimal.valueOf(item.price()));
+                 stmt.addBatch();
+             }
+             stmt.executeBatch();
+             conn.commit();
+         } catch (SQLException | RuntimeException e) {
+             conn.rollback();
+             throw e;
+         } finally {
+             conn.setAutoCommit(true);
+         }
+     }
+ }
+}
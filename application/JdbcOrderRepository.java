@@ -0,0 +1,241 @@
+package application;
+//JdbcOrderRepository.java
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Order submission is a fixed number of round trips: one IN-list price lookup, one order
+// insert, one batched insert for all lines and the commit, regardless of cart size. Keys
+// come from IdAllocator, which adds a sequence round trip only once per block.
+public class JdbcOrderRepository implements OrderRepository {
+
+ // Oracle rejects IN-lists longer than 1000 expressions
+ private static final int MAX_IN_LIST = 1000;
+
+ @Override
+ public PlacedOrder place(int customerId, List<OrderLine> lines) throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         return place(conn, customerId, lines);
+     }
+ }
+
+ // On the caller's connection, e.g. one wrapped to count round trips (OrderPlacementProbe)
+ public PlacedOrder place(Connection conn, int customerId, List<OrderLine> lines) throws SQLException {
+     if (lines.isEmpty()) {
+         throw new IllegalArgumentException("Order has no items");
+     }
+     return place(conn, IdAllocator.ORDERS.next(conn), customerId, lines);
+ }
+
+ // With a key the caller already took from IdAllocator.ORDERS, so it still knows the key when
+ // the connection is lost before it hears whether the commit landed
+ PlacedOrder place(Connection conn, int orderId, int customerId, List<OrderLine> lines) throws SQLException {
+     if (lines.isEmpty()) {
+         throw new IllegalArgumentException("Order has no items");
+     }
+
+     conn.setAutoCommit(false);
+     try {
+         // Price every line from the database in one query and total in the same pass
+         Map<Integer, Double> prices = fetchPrices(conn, lines);
+         double totalAmount = 0;
+         for (OrderLine line : lines) {
+             Double price = prices.get(line.menuItemId());
+             if (price == null) {
+                 throw new SQLException("Menu item " + line.menuItemId() + " is no longer on the menu");
+             }
+             totalAmount += price * line.quantity();
+         }
+
+         // Keys come from in-memory blocks, so nothing has to be read back after the inserts
+         String orderSql = "INSERT INTO orders (order_id, customer_id, total_amount) VALUES (?, ?, ?)";
+         try (PreparedStatement orderStmt = conn.prepareStatement(orderSql)) {
+             orderStmt.setInt(1, orderId);
+             orderStmt.setInt(2, customerId);
+             orderStmt.setDouble(3, totalAmount);
+             orderStmt.executeUpdate();
+         }
+
+         String itemSql = "INSERT INTO order_items (id, order_id, menu_item_id, quantity) VALUES (?, ?, ?, ?)";
+         try (PreparedStatement itemStmt = conn.prepareStatement(itemSql)) {
+             for (OrderLine line : lines) {
+                 itemStmt.setInt(1, IdAllocator.ORDER_ITEMS.next(conn));
+                 itemStmt.setInt(2, orderId);
+                 itemStmt.setInt(3, line.menuItemId());
+                 itemStmt.setInt(4, line.quantity());
+                 itemStmt.addBatch();
+             }
+             itemStmt.executeBatch();
+         }
+
+         conn.commit();
+         return new PlacedOrder(orderId, totalAmount);
+     } catch (SQLException | RuntimeException e) {
+         conn.rollback();
+         throw e;
+     } finally {
+         conn.setAutoCommit(true);
+     }
+ }
+
+ // Replays orders taken by OfflineCapture, with the keys, times and totals they were given
+ // then, in the caller's transaction. An order whose key is already there is skipped along
+ // with its lines, so replaying one twice changes nothing.
+ void insertMissing(Connection conn, List<OfflineCapture.CapturedOrder> captured) throws SQLException {
+     String orderSql = "INSERT INTO orders (order_id, customer_id, order_time, total_amount) SELECT ?, ?, ?, ? FROM dual "
+         + "WHERE NOT EXISTS (SELECT 1 FROM orders WHERE order_id = ?)";
+     int[] inserted;
+     try (PreparedStatement orderStmt = conn.prepareStatement(orderSql)) {
+         for (OfflineCapture.CapturedOrder order : captured) {
+             orderStmt.setInt(1, order.orderId());
+             orderStmt.setInt(2, order.customerId());
+             orderStmt.setTimestamp(3, Timestamp.valueOf(order.orderTime()));
+             orderStmt.setDouble(4, order.totalAmount());
+             orderStmt.setInt(5, order.orderId());
+             orderStmt.addBatch();
+         }
+         inserted = orderStmt.executeBatch();
+     }
+
+     String itemSql = "INSERT INTO order_items (id, order_id, menu_item_id, quantity) VALUES (?, ?, ?, ?)";
+     try (PreparedStatement itemStmt = conn.prepareStatement(itemSql)) {
+         boolean any = false;
+         for (int i = 0; i < captured.size(); i++) {
+             // SUCCESS_NO_INFO counts as inserted; only a definite 0 means it was there already
+             if (inserted[i] == 0) {
+                 continue;
+             }
+             for (OrderLine line : captured.get(i).lines()) {
+                 itemStmt.setInt(1, IdAllocator.ORDER_ITEMS.next(conn));
+                 itemStmt.setInt(2, captured.get(i).orderId());
+                 itemStmt.setInt(3, line.menuItemId());
+                 itemStmt.setInt(4, line.quantity());
+                 itemStmt.addBatch();
+                 any = true;
+             }
+         }
+         if (any) {
+             itemStmt.executeBatch();
+         }
+     }
+ }
+
+ @Override
+ public Optional<OrderDetails> findDetails(int orderId) throws SQLException {
+     // Header and lines in one round trip; the header columns repeat on every line row
+     String sql = """
+         SELECT o.order_id, o.customer_id, c.name AS customer_name, o.total_amount, o.is_paid, o.order_time,
+                mi.name AS item_name, oi.quantity, mi.price
+         FROM orders o
+         JOIN customers c ON o.customer_id = c.id
+         LEFT JOIN order_items oi ON oi.order_id = o.order_id
+         LEFT JOIN menu_items mi ON oi.menu_item_id = mi.id
+         WHERE o.order_id = ?
+         ORDER BY oi.id
+         """;
+     try (Connection conn = DatabaseConnection.getConnection();
+          PreparedStatement stmt = conn.prepareStatement(sql)) {
+         stmt.setInt(1, orderId);
+         try (ResultSet rs = stmt.executeQuery()) {
+             if (!rs.next()) {
+                 return Optional.empty();
+             }
+
+             int customerId = rs.getInt("customer_id");
+             String customerName = rs.getString("customer_name");
+             double totalAmount = rs.getDouble("total_amount");
+             boolean paid = rs.getInt("is_paid") == 1;
+             LocalDateTime orderTime = rs.getTimestamp("order_time").toLocalDateTime();
+
+             List<OrderDetails.Item> items = new ArrayList<>();
+             do {
+                 String itemName = rs.getString("item_name");
+                 if (itemName != null) {
+                     items.add(new OrderDetails.Item(itemName, rs.getInt("quantity"), rs.getDouble("price")));
+                 }
+             } while (rs.next());
+
+             return Optional.of(new OrderDetails(orderId, customerId, customerName, orderTime, totalAmount, paid, items));
+         }
+     }
+ }
+
+ @Override
+ public int count() throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection();
+          PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM orders");
+          ResultSet rs = stmt.executeQuery()) {
+         rs.next();
+         return rs.getInt(1);
+     }
+ }
+
+ @Override
+ public Optional<PopularItem> mostPopularItem() throws SQLException {
+     String sql = """
+         SELECT mi.name, SUM(oi.quantity) as total_qty
+         FROM menu_items mi
+         JOIN order_items oi ON mi.id = oi.menu_item_id
+         GROUP BY mi.name
+         ORDER BY total_qty DESC
+         FETCH FIRST 1 ROWS ONLY
+         """;
+     try (Connection conn = DatabaseConnection.getConnection();
+          PreparedStatement stmt = conn.prepareStatement(sql);
+          ResultSet rs = stmt.executeQuery()) {
+         if (rs.next()) {
+             return Optional.of(new PopularItem(rs.getString("name"), rs.getInt("total_qty")));
+         }
+         return Optional.empty();
+     }
+ }
+
+ @Override
+ public Map<Integer, Long> quantitiesByItem() throws SQLException {
+     Map<Integer, Long> quantities = new HashMap<>();
+     String sql = "SELECT menu_item_id, SUM(quantity) FROM order_items GROUP BY menu_item_id";
+     try (Connection conn = DatabaseConnection.getConnection();
+          PreparedStatement stmt = conn.prepareStatement(sql);
+          ResultSet rs = stmt.executeQuery()) {
+         while (rs.next()) {
+             quantities.put(rs.getInt(1), rs.getLong(2));
+         }
+     }
+     return quantities;
+ }
+
+ private Map<Integer, Double> fetchPrices(Connection conn, List<OrderLine> lines) throws SQLException {
+     Set<Integer> distinctIds = new LinkedHashSet<>();
+     for (OrderLine line : lines) {
+         distinctIds.add(line.menuItemId());
+     }
+     List<Integer> ids = new ArrayList<>(distinctIds);
+
+     Map<Integer, Double> prices = new HashMap<>();
+     for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+         List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST, ids.size()));
+         String sql = "SELECT id, price FROM menu_items WHERE id IN (" + "?,".repeat(chunk.size() - 1) + "?)";
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             for (int i = 0; i < chunk.size(); i++) {
+                 stmt.setInt(i + 1, chunk.get(i));
+             }
+             try (ResultSet rs = stmt.executeQuery()) {
+                 while (rs.next()) {
+                     prices.put(rs.getInt("id"), rs.getDouble("price"));
+                 }
+             }
+         }
+     }
+     return prices;
+ }
+}
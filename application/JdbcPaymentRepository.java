@@ -0,0 +1,118 @@
+package application;
+//JdbcPaymentRepository.java
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class JdbcPaymentRepository implements PaymentRepository {
+
+ @Override
+ public Optional<Balance> findBalance(int orderId) throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         String sql = "SELECT total_amount, is_paid FROM orders WHERE order_id = ?";
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             stmt.setInt(1, orderId);
+             try (ResultSet rs = stmt.executeQuery()) {
+                 if (rs.next()) {
+                     return Optional.of(new Balance(rs.getDouble("total_amount"), rs.getInt("is_paid") == 1));
+                 }
+                 return Optional.empty();
+             }
+         }
+     }
+ }
+
+ @Override
+ public boolean settle(int orderId, double tendered) throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         // The row lock taken by the update makes a second till's identical update match nothing
+         String sql = "UPDATE orders SET is_paid = 1 WHERE order_id = ? AND is_paid = 0 AND total_amount <= ?";
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             stmt.setInt(1, orderId);
+             stmt.setDouble(2, tendered);
+             return stmt.executeUpdate() == 1;
+         }
+     }
+ }
+
+ // Replays payments taken by OfflineCapture in the caller's transaction, with the same
+ // conditional update as settle. Returns the payments that matched nothing: the order is
+ // missing (e.g. rejected earlier in the replay), already paid, or costs more than was tendered.
+ List<OfflineCapture.CapturedPayment> settleAll(Connection conn, List<OfflineCapture.CapturedPayment> captured)
+         throws SQLException {
+     String sql = "UPDATE orders SET is_paid = 1 WHERE order_id = ? AND is_paid = 0 AND total_amount <= ?";
+     int[] counts;
+     try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+         for (OfflineCapture.CapturedPayment payment : captured) {
+             stmt.setInt(1, payment.orderId());
+             stmt.setDouble(2, payment.tendered());
+             stmt.addBatch();
+         }
+         counts = stmt.executeBatch();
+     }
+     List<OfflineCapture.CapturedPayment> unmatched = new ArrayList<>();
+     for (int i = 0; i < counts.length; i++) {
+         if (counts[i] == 0) {
+             unmatched.add(captured.get(i));
+         }
+     }
+     return unmatched;
+ }
+
+ @Override
+ public Revenue findRevenue(LocalDateTime from, LocalDateTime to) throws SQLException {
+     String sql = "SELECT COUNT(*), SUM(total_amount) FROM orders WHERE is_paid = 1 AND order_time >= ? AND order_time < ?";
+     try (Connection conn = DatabaseConnection.getConnection();
+          PreparedStatement stmt = conn.prepareStatement(sql)) {
+         stmt.setTimestamp(1, Timestamp.valueOf(from));
+         stmt.setTimestamp(2, Timestamp.valueOf(to));
+         try (ResultSet rs = stmt.executeQuery()) {
+             rs.next();
+             return new Revenue(rs.getInt(1), rs.getDouble(2));
+         }
+     }
+ }
+
+ @Override
+ public List<PaymentRecord> findPaidOrders(LocalDateTime from, LocalDateTime to, Cursor after, int limit) throws SQLException {
+     // The first page starts just past the newest possible row
+     Cursor cursor = after != null ? after : new Cursor(to, Integer.MAX_VALUE);
+     List<PaymentRecord> payments = new ArrayList<>();
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         String sql = """
+             SELECT o.order_id, c.name, o.total_amount, o.order_time
+             FROM orders o
+             JOIN customers c ON o.customer_id = c.id
+             WHERE o.is_paid = 1
+             AND o.order_time >= ? AND o.order_time < ?
+             AND (o.order_time < ? OR (o.order_time = ? AND o.order_id < ?))
+             ORDER BY o.order_time DESC, o.order_id DESC
+             FETCH FIRST ? ROWS ONLY
+             """;
+         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+             stmt.setTimestamp(1, Timestamp.valueOf(from));
+             stmt.setTimestamp(2, Timestamp.valueOf(to));
+             stmt.setTimestamp(3, Timestamp.valueOf(cursor.orderTime()));
+             stmt.setTimestamp(4, Timestamp.valueOf(cursor.orderTime()));
+             stmt.setInt(5, cursor.orderId());
+             stmt.setInt(6, limit);
+             // The whole page in one fetch instead of the driver's default of 10 rows
+             stmt.setFetchSize(limit);
+
+             try (ResultSet rs = stmt.executeQuery()) {
+                 while (rs.next()) {
+                     payments.add(new PaymentRecord(rs.getInt("order_id"), rs.getString("name"),
+                         rs.getDouble("total_amount"), rs.getTimestamp("order_time").toLocalDateTime()));
+                 }
+             }
+         }
+     }
+     return payments;
+ }
+}
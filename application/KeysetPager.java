@@ -0,0 +1,118 @@
+package application;
+//KeysetPager.java
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+
+// Feeds a ListView one keyset page at a time. The next page is requested when a cell near
+// the end of what is loaded gets rendered, so rows are only fetched as the user scrolls to
+// them. Rows stay typed; the cell factory formats only the cells on screen.
+// All state is touched on the FX thread only.
+public class KeysetPager<T, K> {
+
+ @FunctionalInterface
+ public interface PageLoader<T, K> {
+     // Up to limit rows strictly after the given key, in list order
+     List<T> load(K after, int limit) throws SQLException;
+ }
+
+ private final PageLoader<T, K> loader;
+ private final Function<T, K> keyOf;
+ private final K firstKey;
+ private final int pageSize;
+ private final QueryStatusBar status;
+ private final ObservableList<T> items = FXCollections.observableArrayList();
+
+ private K lastKey;
+ private boolean loading;
+ private boolean exhausted;
+ // Bumped by reset() so a page requested before the reset is dropped when it arrives
+ private long generation;
+
+ public KeysetPager(PageLoader<T, K> loader, Function<T, K> keyOf, K firstKey, int pageSize, QueryStatusBar status) {
+     this.loader = loader;
+     this.keyOf = keyOf;
+     this.firstKey = firstKey;
+     this.pageSize = pageSize;
+     this.status = status;
+     this.lastKey = firstKey;
+ }
+
+ public void attach(ListView<T> listView, Function<T, String> formatter) {
+     listView.setItems(items);
+     listView.setCellFactory(list -> new ListCell<>() {
+         @Override
+         protected void updateItem(T item, boolean empty) {
+             super.updateItem(item, empty);
+             setText(empty || item == null ? null : formatter.apply(item));
+             if (!empty && getIndex() >= items.size() - pageSize / 2) {
+                 loadMore();
+             }
+         }
+     });
+ }
+
+ public ObservableList<T> getItems() {
+     return items;
+ }
+
+ // Drops everything loaded so far and starts again from the first page
+ public void reset() {
+     generation++;
+     items.clear();
+     lastKey = firstKey;
+     loading = false;
+     exhausted = false;
+     loadMore();
+ }
+
+ // Adds a row created after the listing was loaded, at its place in list order. Rows past
+ // the last loaded one are left for a later page unless every page is already in; a row
+ // the list already holds is ignored.
+ public void insert(T item, Comparator<? super T> order) {
+     int position = Collections.binarySearch(items, item, order);
+     if (position >= 0) {
+         return;
+     }
+     position = -position - 1;
+     if (position == items.size()) {
+         if (loading || !exhausted) {
+             return;
+         }
+         lastKey = keyOf.apply(item);
+     }
+     items.add(position, item);
+ }
+
+ public void loadMore() {
+     if (loading || exhausted) {
+         return;
+     }
+     loading = true;
+     long requested = generation;
+     K after = lastKey;
+     Task<List<T>> task = DataAccessExecutor.submit("Loading page", () -> loader.load(after, pageSize), page -> {
+         if (requested != generation) {
+             return;
+         }
+         loading = false;
+         exhausted = page.size() < pageSize;
+         if (!page.isEmpty()) {
+             lastKey = keyOf.apply(page.get(page.size() - 1));
+             items.addAll(page);
+         }
+     }, ex -> {
+         if (requested == generation) {
+             loading = false;
+         }
+     });
+     status.track(task, "Loading...");
+ }
+}
@@ -0,0 +1,176 @@
+package application;
+//KitchenDisplay.java
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+// Kitchen screen fed by KitchenTickets. Tickets arrive in batches on the FX thread, oldest
+// first; cooks click an item to move it from queued to preparing to ready, and bump the
+// ticket once everything on it is ready. All state here is touched only on the FX thread.
+public class KitchenDisplay {
+
+ private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+ enum PrepStatus {
+     QUEUED("#9E9E9E"), PREPARING("#FF9800"), READY("#4CAF50");
+
+     private final String color;
+
+     PrepStatus(String color) {
+         this.color = color;
+     }
+
+     PrepStatus next() {
+         return this == READY ? READY : values()[ordinal() + 1];
+     }
+ }
+
+ private static final class Card {
+     private final KitchenTicket ticket;
+     private final PrepStatus[] statuses;
+
+     private Card(KitchenTicket ticket) {
+         this.ticket = ticket;
+         this.statuses = new PrepStatus[ticket.items().size()];
+         Arrays.fill(statuses, PrepStatus.QUEUED);
+     }
+
+     private boolean isReady() {
+         for (PrepStatus status : statuses) {
+             if (status != PrepStatus.READY) {
+                 return false;
+             }
+         }
+         return true;
+     }
+ }
+
+ private final KitchenTickets tickets;
+ private final ObservableList<Card> cards = FXCollections.observableArrayList();
+ private final Label summary = new Label();
+ private Stage stage;
+
+ public KitchenDisplay(KitchenTickets tickets) {
+     this.tickets = tickets;
+ }
+
+ public void show() {
+     if (stage != null) {
+         stage.show();
+         stage.toFront();
+         return;
+     }
+
+     Label titleLabel = new Label("Kitchen Display");
+     titleLabel.setStyle("-fx-font-size: 20px; -fx-font-weight: bold;");
+     summary.setStyle("-fx-font-size: 14px;");
+
+     ListView<Card> ticketList = new ListView<>(cards);
+     ticketList.setCellFactory(list -> new CardCell());
+     VBox.setVgrow(ticketList, Priority.ALWAYS);
+
+     Button bumpReadyBtn = new Button("Bump All Ready");
+     bumpReadyBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
+     bumpReadyBtn.setOnAction(e -> {
+         cards.removeIf(Card::isReady);
+         updateSummary();
+     });
+
+     VBox layout = new VBox(10, titleLabel, summary, ticketList, bumpReadyBtn);
+     layout.setPadding(new Insets(15));
+
+     stage = new Stage();
+     stage.setTitle("Kitchen Display");
+     stage.setScene(new Scene(layout, 600, 700));
+     // Tickets placed while the screen was closed are held in the queue and delivered on reopen
+     stage.setOnShown(e -> tickets.attach(this::addBatch));
+     stage.setOnHidden(e -> tickets.detach());
+     updateSummary();
+     stage.show();
+ }
+
+ private void addBatch(List<KitchenTicket> batch) {
+     List<Card> added = new ArrayList<>(batch.size());
+     for (KitchenTicket ticket : batch) {
+         added.add(new Card(ticket));
+     }
+     // One list change per batch, however many tickets it holds
+     cards.addAll(added);
+     updateSummary();
+ }
+
+ private void updateSummary() {
+     int queued = 0;
+     int preparing = 0;
+     for (Card card : cards) {
+         for (PrepStatus status : card.statuses) {
+             if (status == PrepStatus.QUEUED) {
+                 queued++;
+             } else if (status == PrepStatus.PREPARING) {
+                 preparing++;
+             }
+         }
+     }
+     summary.setText(String.format("Open tickets: %d   Items queued: %d   Preparing: %d",
+         cards.size(), queued, preparing));
+ }
+
+ private final class CardCell extends ListCell<Card> {
+     @Override
+     protected void updateItem(Card card, boolean empty) {
+         super.updateItem(card, empty);
+         if (empty || card == null) {
+             setGraphic(null);
+             return;
+         }
+
+         KitchenTicket ticket = card.ticket;
+         Label header = new Label("Order #" + ticket.orderId() + "   " + ticket.placedAt().format(TIME_FORMAT)
+             + "   Customer " + ticket.customerId());
+         header.setStyle("-fx-font-weight: bold;");
+         VBox content = new VBox(4, header);
+
+         for (int i = 0; i < ticket.items().size(); i++) {
+             KitchenTicket.Item item = ticket.items().get(i);
+             int line = i;
+             Button itemBtn = new Button(item.quantity() + " x " + item.name() + "  -  " + card.statuses[i]);
+             itemBtn.setStyle("-fx-background-color: " + card.statuses[i].color + "; -fx-text-fill: white;");
+             itemBtn.setMaxWidth(Double.MAX_VALUE);
+             itemBtn.setAlignment(Pos.CENTER_LEFT);
+             itemBtn.setOnAction(e -> {
+                 card.statuses[line] = card.statuses[line].next();
+                 // Replacing the element redraws just this cell
+                 cards.set(getIndex(), card);
+                 updateSummary();
+             });
+             content.getChildren().add(itemBtn);
+         }
+
+         if (card.isReady()) {
+             Button bumpBtn = new Button("Bump");
+             bumpBtn.setOnAction(e -> {
+                 cards.remove(card);
+                 updateSummary();
+             });
+             HBox footer = new HBox(bumpBtn);
+             footer.setAlignment(Pos.CENTER_RIGHT);
+             content.getChildren().add(footer);
+         }
+         setGraphic(content);
+     }
+ }
+}
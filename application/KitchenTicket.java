@@ -0,0 +1,11 @@
+package application;
+//KitchenTicket.java
+import java.time.LocalDateTime;
+import java.util.List;
+
+// What the kitchen needs to cook an order, built from the cart at placement so the display
+// never has to read orders or order_items back
+public record KitchenTicket(int orderId, int customerId, LocalDateTime placedAt, List<Item> items) {
+
+ public record Item(int menuItemId, String name, int quantity) {}
+}
@@ -0,0 +1,100 @@
+package application;
+//KitchenTickets.java
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Hands committed orders to the kitchen display. Any number of threads publish into a
+// lock-free queue; a single consumer is woken through the deliverer (Platform::runLater in
+// the app; it must run tasks one at a time) and takes everything queued since the last
+// wake-up as one batch, so a burst of orders costs one UI pulse rather than one per order.
+// Nothing polls.
+public final class KitchenTickets {
+
+ public record Stats(long published, long delivered, long dropped, long batches, int pending) {
+     @Override
+     public String toString() {
+         return String.format("published=%d delivered=%d dropped=%d batches=%d pending=%d",
+             published, delivered, dropped, batches, pending);
+     }
+ }
+
+ // Caps one batch so a long backlog is applied over several pulses instead of freezing one
+ private static final int MAX_BATCH = 500;
+ // With no display attached the oldest tickets are dropped beyond this
+ private static final int MAX_BACKLOG = 10_000;
+
+ private final ConcurrentLinkedQueue<KitchenTicket> pending = new ConcurrentLinkedQueue<>();
+ private final AtomicInteger pendingCount = new AtomicInteger();
+ private final AtomicBoolean drainScheduled = new AtomicBoolean();
+ private final Executor deliverer;
+ private volatile Consumer<List<KitchenTicket>> consumer;
+
+ private final LongAdder published = new LongAdder();
+ private final LongAdder delivered = new LongAdder();
+ private final LongAdder dropped = new LongAdder();
+ private final LongAdder batches = new LongAdder();
+
+ public KitchenTickets(Executor deliverer) {
+     this.deliverer = deliverer;
+ }
+
+ public void publish(KitchenTicket ticket) {
+     pending.offer(ticket);
+     published.increment();
+     if (pendingCount.incrementAndGet() > MAX_BACKLOG && consumer == null && pending.poll() != null) {
+         pendingCount.decrementAndGet();
+         dropped.increment();
+     }
+     scheduleDrain();
+ }
+
+ // Replaces any previous consumer; tickets queued while nobody was attached are delivered now
+ public void attach(Consumer<List<KitchenTicket>> consumer) {
+     this.consumer = consumer;
+     scheduleDrain();
+ }
+
+ public void detach() {
+     consumer = null;
+ }
+
+ public Stats getStats() {
+     return new Stats(published.sum(), delivered.sum(), dropped.sum(), batches.sum(), pendingCount.get());
+ }
+
+ private void scheduleDrain() {
+     if (consumer != null && drainScheduled.compareAndSet(false, true)) {
+         deliverer.execute(this::drain);
+     }
+ }
+
+ private void drain() {
+     // Cleared before polling, so a ticket published mid-drain schedules the next one
+     drainScheduled.set(false);
+     Consumer<List<KitchenTicket>> target = consumer;
+     if (target == null) {
+         return;
+     }
+     List<KitchenTicket> batch = new ArrayList<>();
+     KitchenTicket ticket;
+     while (batch.size() < MAX_BATCH && (ticket = pending.poll()) != null) {
+         batch.add(ticket);
+     }
+     if (batch.isEmpty()) {
+         return;
+     }
+     pendingCount.addAndGet(-batch.size());
+     delivered.add(batch.size());
+     batches.increment();
+     if (!pending.isEmpty()) {
+         scheduleDrain();
+     }
+     target.accept(batch);
+ }
+}
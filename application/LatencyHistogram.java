@@ -0,0 +1,88 @@
+package application;
+//LatencyHistogram.java
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Log-linear histogram of durations in microseconds, in the style of HdrHistogram: each
+// power of two is split into SUB_BUCKETS equal buckets, so any recorded value is reported
+// within about 3% while the whole range from 1us to ~9h fits in about a thousand counters.
+// Recording is a couple of atomic increments and never blocks.
+public final class LatencyHistogram {
+
+ private static final int SUB_BITS = 5;
+ private static final int SUB_BUCKETS = 1 << SUB_BITS;
+ private static final int MAX_EXPONENT = 35;
+ private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+ private static final long MAX_MICROS = (1L << (MAX_EXPONENT + 1)) - 1;
+
+ private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+ private final AtomicLong count = new AtomicLong();
+ private final AtomicLong maxMicros = new AtomicLong();
+
+ public void recordNanos(long nanos) {
+     long micros = Math.min(Math.max(nanos / 1_000, 0), MAX_MICROS);
+     counts.incrementAndGet(indexOf(micros));
+     count.incrementAndGet();
+     maxMicros.accumulateAndGet(micros, Math::max);
+ }
+
+ public long getCount() {
+     return count.get();
+ }
+
+ public long getMaxMicros() {
+     return maxMicros.get();
+ }
+
+ // Adds other's counts into this one; used to combine the slots of a sliding window
+ public void add(LatencyHistogram other) {
+     for (int i = 0; i < BUCKETS; i++) {
+         long c = other.counts.get(i);
+         if (c != 0) {
+             counts.addAndGet(i, c);
+         }
+     }
+     count.addAndGet(other.count.get());
+     maxMicros.accumulateAndGet(other.maxMicros.get(), Math::max);
+ }
+
+ // Upper bound of the bucket holding the given percentile (0-100), capped at the true max
+ public long valueAtPercentile(double percentile) {
+     // Summed from the buckets rather than count, which may be ahead of them mid-record
+     long total = 0;
+     for (int i = 0; i < BUCKETS; i++) {
+         total += counts.get(i);
+     }
+     if (total == 0) {
+         return 0;
+     }
+     long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+     long seen = 0;
+     for (int i = 0; i < BUCKETS; i++) {
+         seen += counts.get(i);
+         if (seen >= rank) {
+             return Math.min(upperBound(i), maxMicros.get());
+         }
+     }
+     return maxMicros.get();
+ }
+
+ private static int indexOf(long micros) {
+     if (micros < SUB_BUCKETS) {
+         return (int) micros;
+     }
+     int exponent = 63 - Long.numberOfLeadingZeros(micros);
+     int shift = exponent - SUB_BITS;
+     long mantissa = micros >>> shift;
+     return SUB_BUCKETS + shift * SUB_BUCKETS + (int) (mantissa - SUB_BUCKETS);
+ }
+
+ private static long upperBound(int index) {
+     if (index < SUB_BUCKETS) {
+         return index;
+     }
+     int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+     long mantissa = SUB_BUCKETS + (index - SUB_BUCKETS) % SUB_BUCKETS;
+     return ((mantissa + 1) << shift) - 1;
+ }
+}
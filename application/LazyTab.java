@@ -0,0 +1,66 @@
+package application;
+//LazyTab.java
+import java.util.function.Supplier;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+
+// A tab whose content (and whatever queries it starts) is only built the first time it is
+// selected. Selecting a tab also prefetches the tab to its right once the FX thread is idle,
+// since that is usually where the user goes next.
+public class LazyTab extends Tab {
+
+ private Supplier<Node> contentFactory;
+
+ private LazyTab(String title, Supplier<Node> contentFactory) {
+     super(title);
+     this.contentFactory = contentFactory;
+ }
+
+ // The selection handler is installed here rather than in the constructor, so it never sees
+ // a half-built tab
+ public static LazyTab create(String title, Supplier<Node> contentFactory) {
+     LazyTab tab = new LazyTab(title, contentFactory);
+     tab.setClosable(false);
+     tab.setOnSelectionChanged(e -> {
+         if (tab.isSelected()) {
+             tab.ensureBuilt();
+             tab.prefetchNext();
+         }
+     });
+     return tab;
+ }
+
+ public boolean isBuilt() {
+     return contentFactory == null;
+ }
+
+ public void ensureBuilt() {
+     if (contentFactory != null) {
+         Supplier<Node> factory = contentFactory;
+         contentFactory = null;
+         setContent(factory.get());
+     }
+ }
+
+ // The initially selected tab never fires a selection change, so the stage building the
+ // TabPane calls this once after adding the tabs
+ public static void buildSelected(TabPane tabPane) {
+     if (tabPane.getSelectionModel().getSelectedItem() instanceof LazyTab selected) {
+         selected.ensureBuilt();
+         selected.prefetchNext();
+     }
+ }
+
+ private void prefetchNext() {
+     TabPane tabPane = getTabPane();
+     if (tabPane == null) {
+         return;
+     }
+     int next = tabPane.getTabs().indexOf(this) + 1;
+     if (next < tabPane.getTabs().size() && tabPane.getTabs().get(next) instanceof LazyTab nextTab && !nextTab.isBuilt()) {
+         Platform.runLater(nextTab::ensureBuilt);
+     }
+ }
+}
@@ -0,0 +1,133 @@
+package application;
+//MenuCatalog.java
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Read-mostly cache of menu_items. Readers work off an immutable snapshot; a snapshot is
+// only served while no menu change has been announced since it was loaded and its TTL has
+// not run out.
+// Besides the shared instance, AnalyticsAggregator and OfflineCapture keep catalogs over
+// their own store's menu; invalidateAll() reaches every one of them after a menu change.
+public class MenuCatalog {
+
+ @FunctionalInterface
+ public interface Loader {
+     List<MenuItem> load() throws SQLException;
+ }
+
+ public record CacheStats(long hits, long misses, long reloads, long version, int size) {
+     public double hitRate() {
+         long total = hits + misses;
+         return total == 0 ? 0 : (double) hits / total;
+     }
+
+     @Override
+     public String toString() {
+         return String.format("items=%d version=%d hits=%d misses=%d reloads=%d hitRate=%.1f%%",
+             size, version, hits, misses, reloads, hitRate() * 100);
+     }
+ }
+
+ private record Snapshot(long menuChanges, long loadedAt, Map<Integer, MenuItem> byId, List<MenuItem> byPrice) {}
+
+ private static final long DEFAULT_TTL_MILLIS = 10 * 60_000;
+
+ // Bumped by invalidateAll(); every catalog compares its snapshot against it
+ private static final AtomicLong MENU_CHANGES = new AtomicLong();
+
+ private static final MenuCatalog INSTANCE = new MenuCatalog(() -> DataStore.current().menu().findAll(), DEFAULT_TTL_MILLIS);
+
+ private final Loader loader;
+ private final long ttlMillis;
+ private final Object reloadLock = new Object();
+ private volatile Snapshot snapshot;
+
+ private final LongAdder hits = new LongAdder();
+ private final LongAdder misses = new LongAdder();
+ private final LongAdder reloads = new LongAdder();
+
+ public MenuCatalog(Loader loader, long ttlMillis) {
+     this.loader = loader;
+     this.ttlMillis = ttlMillis;
+ }
+
+ public static MenuCatalog getInstance() {
+     return INSTANCE;
+ }
+
+ public Optional<MenuItem> find(int itemId) throws SQLException {
+     return Optional.ofNullable(current().byId().get(itemId));
+ }
+
+ // Whole menu, cheapest first, as loadMenu shows it
+ public List<MenuItem> itemsByPrice() throws SQLException {
+     return current().byPrice();
+ }
+
+ // For writes to menu_items: drops the snapshot of every catalog in the process; the next
+ // read reloads. Loads already in flight are discarded.
+ public static void invalidateAll() {
+     MENU_CHANGES.incrementAndGet();
+ }
+
+ public CacheStats getStats() {
+     Snapshot current = snapshot;
+     return new CacheStats(hits.sum(), misses.sum(), reloads.sum(), MENU_CHANGES.get(),
+         current == null ? 0 : current.byId().size());
+ }
+
+ private Snapshot current() throws SQLException {
+     Snapshot current = snapshot;
+     if (isFresh(current)) {
+         hits.increment();
+         return current;
+     }
+
+     misses.increment();
+     synchronized (reloadLock) {
+         // Another thread may have reloaded while we waited
+         current = snapshot;
+         if (isFresh(current)) {
+             return current;
+         }
+
+         long loadMenuChanges = MENU_CHANGES.get();
+         List<MenuItem> items;
+         try {
+             items = loader.load();
+         } catch (SQLException e) {
+             // With the database unreachable the last menu is better than none: orders can
+             // still be taken and journaled by OfflineCapture. The next read tries again.
+             if (current != null && ConnectionPool.isConnectionFailure(e)) {
+                 return current;
+             }
+             throw e;
+         }
+
+         Map<Integer, MenuItem> byId = new HashMap<>();
+         for (MenuItem item : items) {
+             byId.put(item.id(), item);
+         }
+         List<MenuItem> byPrice = new ArrayList<>(items);
+         byPrice.sort(Comparator.comparingDouble(MenuItem::price));
+
+         current = new Snapshot(loadMenuChanges, System.currentTimeMillis(), Map.copyOf(byId), List.copyOf(byPrice));
+         snapshot = current;
+         reloads.increment();
+         return current;
+     }
+ }
+
+ private boolean isFresh(Snapshot current) {
+     return current != null
+         && current.menuChanges() == MENU_CHANGES.get()
+         && System.currentTimeMillis() - current.loadedAt() < ttlMillis;
+ }
+}
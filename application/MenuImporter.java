@@ -0,0 +1,421 @@
+package application;
+//MenuImporter.java
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Bulk menu load from a CSV file (header row with id, name and price columns, in any order)
+// or a JSON array of {"id", "name", "price"} objects. The file is parsed as a stream and each
+// row is validated as it is read; valid rows are upserted batchSize at a time, so memory
+// stays flat however large the file is. Bad rows are counted and skipped, not fatal.
+public class MenuImporter {
+
+ public static final int DEFAULT_BATCH_SIZE = 1_000;
+
+ // Matches menu_items: name VARCHAR2(100), price NUMBER(10,2)
+ private static final int MAX_NAME_LENGTH = 100;
+ private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+ private static final int MAX_REPORTED_ERRORS = 50;
+
+ public record Result(long rows, long imported, long rejected, List<String> errors, long elapsedMillis) {
+     public double rowsPerSecond() {
+         return elapsedMillis == 0 ? rows * 1000.0 : rows * 1000.0 / elapsedMillis;
+     }
+
+     @Override
+     public String toString() {
+         return String.format("%d rows read, %d imported, %d rejected in %.2fs (%.0f rows/s)",
+             rows, imported, rejected, elapsedMillis / 1000.0, rowsPerSecond());
+     }
+ }
+
+ private final MenuRepository menu;
+ private final int batchSize;
+
+ public MenuImporter(MenuRepository menu, int batchSize) {
+     if (batchSize < 1) {
+         throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+     }
+     this.menu = menu;
+     this.batchSize = batchSize;
+ }
+
+ // Format is taken from the extension: .json, anything else is read as CSV
+ public Result importFile(Path file) throws IOException, SQLException {
+     try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+         boolean json = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json");
+         return importRows(json ? new JsonRows(reader) : new CsvRows(reader));
+     }
+ }
+
+ private Result importRows(RowReader rows) throws IOException, SQLException {
+     long started = System.nanoTime();
+     long read = 0;
+     long imported = 0;
+     long rejected = 0;
+     List<String> errors = new ArrayList<>();
+     List<MenuItem> batch = new ArrayList<>(batchSize);
+
+     try {
+         Map<String, String> row;
+         while ((row = rows.next()) != null) {
+             read++;
+             try {
+                 batch.add(validate(row));
+             } catch (IllegalArgumentException e) {
+                 rejected++;
+                 if (errors.size() < MAX_REPORTED_ERRORS) {
+                     errors.add("Line " + rows.line() + ": " + e.getMessage());
+                 }
+                 continue;
+             }
+             if (batch.size() == batchSize) {
+                 menu.upsert(batch);
+                 imported += batch.size();
+                 batch.clear();
+             }
+         }
+         if (!batch.isEmpty()) {
+             menu.upsert(batch);
+             imported += batch.size();
+         }
+     } finally {
+         // Chunks committed before a malformed record or a failed chunk are on the menu too
+         MenuCatalog.invalidateAll();
+     }
+     return new Result(read, imported, rejected, List.copyOf(errors), (System.nanoTime() - started) / 1_000_000);
+ }
+
+ private static MenuItem validate(Map<String, String> row) {
+     String idText = row.get("id");
+     String name = row.get("name");
+     String priceText = row.get("price");
+     if (idText == null || idText.isBlank()) {
+         throw new IllegalArgumentException("missing id");
+     }
+     int id;
+     try {
+         id = Integer.parseInt(idText.trim());
+     } catch (NumberFormatException e) {
+         throw new IllegalArgumentException("id is not a whole number: " + idText);
+     }
+     if (id <= 0) {
+         throw new IllegalArgumentException("id must be positive: " + id);
+     }
+     if (name == null || name.isBlank()) {
+         throw new IllegalArgumentException("missing name");
+     }
+     name = name.trim();
+     if (name.length() > MAX_NAME_LENGTH) {
+         throw new IllegalArgumentException("name longer than " + MAX_NAME_LENGTH + " characters");
+     }
+     if (priceText == null || priceText.isBlank()) {
+         throw new IllegalArgumentException("missing price");
+     }
+     BigDecimal price;
+     try {
+         price = new BigDecimal(priceText.trim());
+     } catch (NumberFormatException e) {
+         throw new IllegalArgumentException("price is not a number: " + priceText);
+     }
+     if (price.signum() < 0 || price.compareTo(MAX_PRICE) > 0 || price.stripTrailingZeros().scale() > 2) {
+         throw new IllegalArgumentException("price out of range or more than two decimal places: " + priceText);
+     }
+     return new MenuItem(id, name, price.doubleValue());
+ }
+
+ // One row at a time, keyed by column name; null at the end of the input
+ private interface RowReader {
+     Map<String, String> next() throws IOException;
+
+     // Line the last row started on, for error messages
+     long line();
+ }
+
+ // RFC 4180: quoted fields may hold commas, doubled quotes and line breaks
+ private static final class CsvRows implements RowReader {
+     private final Reader reader;
+     private final List<String> header;
+     private long line = 1;
+     private long rowLine;
+     private int peeked = -2;
+
+     private CsvRows(Reader reader) throws IOException {
+         this.reader = reader;
+         List<String> columns = readRecord();
+         if (columns == null) {
+             throw new IOException("CSV file is empty");
+         }
+         header = new ArrayList<>();
+         for (String column : columns) {
+             header.add(column.trim().toLowerCase(Locale.ROOT));
+         }
+         for (String required : List.of("id", "name", "price")) {
+             if (!header.contains(required)) {
+                 throw new IOException("CSV header has no " + required + " column: " + columns);
+             }
+         }
+     }
+
+     @Override
+     public Map<String, String> next() throws IOException {
+         List<String> fields;
+         do {
+             fields = readRecord();
+             if (fields == null) {
+                 return null;
+             }
+         } while (fields.size() == 1 && fields.get(0).isBlank());
+
+         // A short or long row still comes back, and fails validation with its line number
+         Map<String, String> row = new HashMap<>();
+         if (fields.size() != header.size()) {
+             row.put("id", "column count " + fields.size() + ", expected " + header.size());
+             return row;
+         }
+         for (int i = 0; i < fields.size(); i++) {
+             row.put(header.get(i), fields.get(i));
+         }
+         return row;
+     }
+
+     @Override
+     public long line() {
+         return rowLine;
+     }
+
+     private List<String> readRecord() throws IOException {
+         int c = read();
+         if (c == -1) {
+             return null;
+         }
+         rowLine = line;
+         List<String> fields = new ArrayList<>();
+         StringBuilder field = new StringBuilder();
+         boolean quoted = false;
+         while (true) {
+             if (quoted) {
+                 if (c == -1) {
+                     throw new IOException("Unterminated quoted field starting on line " + rowLine);
+                 }
+                 if (c == '"') {
+                     if (peek() == '"') {
+                         read();
+                         field.append('"');
+                     } else {
+                         quoted = false;
+                     }
+                 } else {
+                     field.append((char) c);
+                 }
+             } else if (c == '"' && field.isEmpty()) {
+                 quoted = true;
+             } else if (c == ',') {
+                 fields.add(field.toString());
+                 field.setLength(0);
+             } else if (c == '\n' || c == '\r' || c == -1) {
+                 if (c == '\r' && peek() == '\n') {
+                     read();
+                 }
+                 fields.add(field.toString());
+                 return fields;
+             } else {
+                 field.append((char) c);
+             }
+             c = read();
+         }
+     }
+
+     private int read() throws IOException {
+         int c = peeked != -2 ? peeked : reader.read();
+         peeked = -2;
+         if (c == '\n') {
+             line++;
+         }
+         return c;
+     }
+
+     private int peek() throws IOException {
+         if (peeked == -2) {
+             peeked = reader.read();
+         }
+         return peeked;
+     }
+ }
+
+ // A pull parser for a top-level array of flat objects. Values are kept as their text;
+ // nested objects or arrays are rejected, since a menu row has none.
+ private static final class JsonRows implements RowReader {
+     private final Reader reader;
+     private long line = 1;
+     private long rowLine;
+     private int peeked = -2;
+     private boolean started;
+     private boolean finished;
+
+     private JsonRows(Reader reader) {
+         this.reader = reader;
+     }
+
+     @Override
+     public Map<String, String> next() throws IOException {
+         if (finished) {
+             return null;
+         }
+         if (!started) {
+             started = true;
+             expect('[');
+             if (skipWhitespace() == ']') {
+                 read();
+                 finished = true;
+                 return null;
+             }
+         } else {
+             int c = skipWhitespaceAndRead();
+             if (c == ']') {
+                 finished = true;
+                 return null;
+             }
+             if (c != ',') {
+                 throw error("expected ',' or ']'");
+             }
+         }
+
+         expect('{');
+         rowLine = line;
+         Map<String, String> row = new HashMap<>();
+         if (skipWhitespace() == '}') {
+             read();
+             return row;
+         }
+         while (true) {
+             expect('"');
+             String key = readString().toLowerCase(Locale.ROOT);
+             expect(':');
+             row.put(key, readValue());
+             int c = skipWhitespaceAndRead();
+             if (c == '}') {
+                 return row;
+             }
+             if (c != ',') {
+                 throw error("expected ',' or '}'");
+             }
+         }
+     }
+
+     @Override
+     public long line() {
+         return rowLine;
+     }
+
+     private String readValue() throws IOException {
+         int c = skipWhitespace();
+         if (c == '"') {
+             read();
+             return readString();
+         }
+         if (c == '{' || c == '[') {
+             throw error("nested values are not supported");
+         }
+         StringBuilder literal = new StringBuilder();
+         while ((c = peek()) != -1 && c != ',' && c != '}' && !Character.isWhitespace(c)) {
+             literal.append((char) read());
+         }
+         String text = literal.toString();
+         if (text.isEmpty()) {
+             throw error("expected a value");
+         }
+         return text.equals("null") ? null : text;
+     }
+
+     private String readString() throws IOException {
+         StringBuilder value = new StringBuilder();
+         while (true) {
+             int c = read();
+             if (c == -1) {
+                 throw error("unterminated string");
+             }
+             if (c == '"') {
+                 return value.toString();
+             }
+             if (c != '\\') {
+                 value.append((char) c);
+                 continue;
+             }
+             int escaped = read();
+             switch (escaped) {
+                 case '"', '\\', '/' -> value.append((char) escaped);
+                 case 'b' -> value.append('\b');
+                 case 'f' -> value.append('\f');
+                 case 'n' -> value.append('\n');
+                 case 'r' -> value.append('\r');
+                 case 't' -> value.append('\t');
+                 case 'u' -> {
+                     char[] hex = new char[4];
+                     for (int i = 0; i < 4; i++) {
+                         int h = read();
+                         if (h == -1) {
+                             throw error("unterminated escape");
+                         }
+                         hex[i] = (char) h;
+                     }
+                     try {
+                         value.append((char) Integer.parseInt(new String(hex), 16));
+                     } catch (NumberFormatException e) {
+                         throw error("bad unicode escape");
+                     }
+                 }
+                 default -> throw error("bad escape");
+             }
+         }
+     }
+
+     private void expect(char expected) throws IOException {
+         if (skipWhitespaceAndRead() != expected) {
+             throw error("expected '" + expected + "'");
+         }
+     }
+
+     private int skipWhitespace() throws IOException {
+         int c;
+         while ((c = peek()) != -1 && Character.isWhitespace(c)) {
+             read();
+         }
+         return c;
+     }
+
+     private int skipWhitespaceAndRead() throws IOException {
+         skipWhitespace();
+         return read();
+     }
+
+     private IOException error(String message) {
+         return new IOException("Malformed JSON on line " + line + ": " + message);
+     }
+
+     private int read() throws IOException {
+         int c = peeked != -2 ? peeked : reader.read();
+         peeked = -2;
+         if (c == '\n') {
+             line++;
+         }
+         return c;
+     }
+
+     private int peek() throws IOException {
+         if (peeked == -2) {
+             peeked = reader.read();
+         }
+         return peeked;
+     }
+ }
+}
@@ -0,0 +1,5 @@
+package application;
+//MenuItem.java
+
+public record MenuItem(int id, String name, double price) {
+}
@@ -0,0 +1,12 @@
+package application;
+//MenuRepository.java
+import java.sql.SQLException;
+import java.util.List;
+
+public interface MenuRepository {
+
+ List<MenuItem> findAll() throws SQLException;
+
+ // Inserts new ids and overwrites the name and price of existing ones, all or nothing
+ void upsert(List<MenuItem> items) throws SQLException;
+}
@@ -0,0 +1,151 @@
+package application;
+//Metrics.java
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.DoubleSupplier;
+
+// Process-wide latency timers and gauges for the Performance tab. Timers keep a ring of
+// LatencyHistograms, one per SLOT of wall time, so percentiles and throughput can be read
+// over the last few minutes as well as since startup. Turn off with -Drestaurant.metrics=false.
+public final class Metrics {
+
+ public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("restaurant.metrics", "true"));
+
+ private static final Duration SLOT = Duration.ofSeconds(30);
+ private static final int SLOTS = 30;
+ public static final Duration MAX_WINDOW = SLOT.multipliedBy(SLOTS - 1);
+
+ private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+ private static final Map<String, DoubleSupplier> GAUGES = new ConcurrentHashMap<>();
+ private static final long STARTED_NANOS = System.nanoTime();
+
+ public record TimerSnapshot(String name, long count, double perSecond,
+                             double p50Millis, double p95Millis, double p99Millis, double maxMillis) {}
+
+ private Metrics() {
+ }
+
+ public static Timer timer(String name) {
+     return TIMERS.computeIfAbsent(name, Timer::new);
+ }
+
+ public static void record(String name, long nanos) {
+     if (ENABLED) {
+         timer(name).record(nanos);
+     }
+ }
+
+ // Re-registering a name replaces the supplier, e.g. when the admin portal is rebuilt
+ public static void gauge(String name, DoubleSupplier value) {
+     GAUGES.put(name, value);
+ }
+
+ // Busiest timers first; a null window means since startup
+ public static List<TimerSnapshot> snapshot(Duration window) {
+     long now = System.nanoTime();
+     List<TimerSnapshot> snapshots = new ArrayList<>();
+     for (Timer timer : TIMERS.values()) {
+         TimerSnapshot snapshot = timer.snapshot(window, now);
+         if (snapshot.count() > 0) {
+             snapshots.add(snapshot);
+         }
+     }
+     snapshots.sort(Comparator.comparingLong(TimerSnapshot::count).reversed()
+         .thenComparing(TimerSnapshot::name));
+     return snapshots;
+ }
+
+ public static Map<String, Double> gauges() {
+     Map<String, Double> values = new TreeMap<>();
+     GAUGES.forEach((name, supplier) -> values.put(name, supplier.getAsDouble()));
+     return values;
+ }
+
+ // Plain-text table for pasting into a ticket or diffing against an earlier export
+ public static String format(Duration window) {
+     StringBuilder out = new StringBuilder();
+     out.append("Performance snapshot ").append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+        .append(", window ").append(window == null ? "since startup" : window.toMinutes() + " min").append('\n');
+     out.append(String.format("%-40s %9s %9s %9s %9s %9s %9s%n", "metric", "count", "per sec", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+     for (TimerSnapshot s : snapshot(window)) {
+         out.append(String.format("%-40s %9d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+             s.name(), s.count(), s.perSecond(), s.p50Millis(), s.p95Millis(), s.p99Millis(), s.maxMillis()));
+     }
+     out.append('\n');
+     gauges().forEach((name, value) -> out.append(String.format("%-40s %9.3f%n", name, value)));
+     return out.toString();
+ }
+
+ public static final class Timer {
+     private final String name;
+     private final LatencyHistogram total = new LatencyHistogram();
+     private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<>(SLOTS);
+
+     private Timer(String name) {
+         this.name = name;
+     }
+
+     public void record(long nanos) {
+         total.recordNanos(nanos);
+         currentSlot(System.nanoTime()).histogram.recordNanos(nanos);
+     }
+
+     private Slot currentSlot(long now) {
+         long epoch = (now - STARTED_NANOS) / SLOT.toNanos();
+         int index = (int) (epoch % SLOTS);
+         Slot slot = slots.get(index);
+         if (slot != null && slot.epoch == epoch) {
+             return slot;
+         }
+         // Rotating in a fresh slot; whoever loses the race records into the winner's.
+         // A sample taken just as its slot is replaced can be lost, which is fine for this.
+         Slot fresh = new Slot(epoch);
+         if (slots.compareAndSet(index, slot, fresh)) {
+             return fresh;
+         }
+         return slots.get(index);
+     }
+
+     private TimerSnapshot snapshot(Duration window, long now) {
+         LatencyHistogram merged;
+         double seconds;
+         if (window == null) {
+             merged = total;
+             seconds = (now - STARTED_NANOS) / 1e9;
+         } else {
+             // Whole slots only, so the window covers a little more than asked for
+             long currentEpoch = (now - STARTED_NANOS) / SLOT.toNanos();
+             long oldestEpoch = Math.max(0, currentEpoch - Math.min(SLOTS - 1, window.toNanos() / SLOT.toNanos()));
+             merged = new LatencyHistogram();
+             for (int i = 0; i < SLOTS; i++) {
+                 Slot slot = slots.get(i);
+                 if (slot != null && slot.epoch >= oldestEpoch && slot.epoch <= currentEpoch) {
+                     merged.add(slot.histogram);
+                 }
+             }
+             seconds = (now - STARTED_NANOS - oldestEpoch * SLOT.toNanos()) / 1e9;
+         }
+         long count = merged.getCount();
+         return new TimerSnapshot(name, count, seconds > 0 ? count / seconds : 0,
+             merged.valueAtPercentile(50) / 1000.0, merged.valueAtPercentile(95) / 1000.0,
+             merged.valueAtPercentile(99) / 1000.0, merged.getMaxMicros() / 1000.0);
+     }
+ }
+
+ private static final class Slot {
+     private final long epoch;
+     private final LatencyHistogram histogram = new LatencyHistogram();
+
+     private Slot(long epoch) {
+         this.epoch = epoch;
+     }
+ }
+}
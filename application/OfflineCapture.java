@@ -0,0 +1,792 @@
+package application;
+//OfflineCapture.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps orders, payments and bookings going while the database is unreachable. The wrappers
+// below pass writes to the JDBC repositories; when one fails because the connection is gone
+// (ConnectionPool.isConnectionFailure), the write is appended to an OrderJournal instead and
+// the caller gets the answer the database would have given: an order number and total, a
+// settled payment, a booking id. From then on every write queues behind the journal, so the
+// database sees them in the order they happened, and a replayer thread tries every retry
+// interval to write the journal back, batchSize entries per transaction. Once it is empty,
+// writes go straight through again.
+//
+// Order and booking numbers handed out offline come from blocks reserved while the database
+// was reachable, so they are the real keys and the receipt stays right. Replay inserts a row
+// only if its key isn't there yet and settles with the usual conditional update, so an entry
+// replayed twice (a crash between commit and checkpoint) changes nothing the second time,
+// though its payments then show up in rejected.log as already paid. A booking is only
+// replayed if its table is still free, as JdbcBookingRepository.book checks.
+// Offline orders are priced from the last menu loaded, and customer ids can't be checked
+// until replay; entries the database refuses go to rejected.log in the journal directory.
+// One app instance per journal directory.
+public final class OfflineCapture {
+
+ public static final Path DEFAULT_DIR = Path.of(System.getProperty("restaurant.journal.dir",
+     Path.of(System.getProperty("user.home"), ".restaurant", "journal").toString()));
+ public static final int DEFAULT_BATCH_SIZE = Integer.getInteger("restaurant.journal.batchSize", 200);
+ public static final Duration DEFAULT_RETRY_INTERVAL =
+     Duration.ofMillis(Long.getLong("restaurant.journal.retryMillis", 2_000));
+ // How many orders can be taken in one outage
+ public static final int DEFAULT_ORDER_RESERVE = Integer.getInteger("restaurant.journal.reservedOrders", 200);
+ // Forces every record to disk as well; see OrderJournal
+ public static final boolean DEFAULT_SYNC = Boolean.getBoolean("restaurant.journal.sync");
+
+ private static final int BOOKING_RESERVE = 40;
+ // Unpaid totals remembered from orders placed or looked up on this till, so they can be paid offline
+ private static final int KNOWN_TOTALS = 1024;
+ private static final long MENU_TTL_MILLIS = 10 * 60_000;
+ private static final String REJECTED_FILE = "rejected.log";
+ // Keys start at 1; tells captureOrder and captureBooking to take one from the reserve
+ private static final int NO_KEY = 0;
+
+ private static final byte ORDER = 1;
+ private static final byte PAYMENT = 2;
+ private static final byte BOOKING = 3;
+
+ public record CapturedOrder(int orderId, int customerId, LocalDateTime orderTime, double totalAmount,
+                             List<OrderLine> lines) {}
+
+ public record CapturedPayment(int orderId, double tendered) {}
+
+ public record Stats(long journaled, long replayed, long rejected, long pending, boolean offline,
+                     long reservedOrderIds) {}
+
+ // entry is a CapturedOrder, a CapturedPayment or a Booking
+ private record Pending(long sequence, Object entry) {}
+
+ private final JdbcOrderRepository orders;
+ private final JdbcPaymentRepository payments;
+ private final JdbcBookingRepository bookings;
+ private final MenuCatalog menu;
+ private final OrderJournal journal;
+ private final Path dir;
+ private final int batchSize;
+ private final Duration retryInterval;
+ private final int orderReserve;
+
+ // Guards everything down to closed. Virtual threads may wait here, so no synchronized.
+ private final ReentrantLock lock = new ReentrantLock();
+ private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+ private final Map<Integer, CapturedOrder> pendingOrders = new HashMap<>();
+ // Orders paid while offline, until the payment has been replayed
+ private final Set<Integer> paidOffline = new HashSet<>();
+ private final Map<Integer, Double> knownTotals = new LinkedHashMap<>(64, 0.75f, true) {
+     @Override
+     protected boolean removeEldestEntry(Map.Entry<Integer, Double> eldest) {
+         return size() > KNOWN_TOTALS;
+     }
+ };
+ private final ArrayDeque<IdAllocator.Block> orderIds = new ArrayDeque<>();
+ private final ArrayDeque<IdAllocator.Block> bookingIds = new ArrayDeque<>();
+ private boolean closed;
+
+ // Held for a whole replay; only the replayer removes from the head of pending
+ private final ReentrantLock replayLock = new ReentrantLock();
+ private ScheduledExecutorService replayer;
+ private final AtomicLong journaled = new AtomicLong();
+ private final AtomicLong replayed = new AtomicLong();
+ private final AtomicLong rejected = new AtomicLong();
+
+ private final OrderRepository orderRepository = new Orders();
+ private final PaymentRepository paymentRepository = new Payments();
+ private final BookingRepository bookingRepository = new Bookings();
+
+ public OfflineCapture(JdbcOrderRepository orders, JdbcPaymentRepository payments,
+                       JdbcBookingRepository bookings, MenuRepository menu) {
+     this(orders, payments, bookings, menu, DEFAULT_DIR, DEFAULT_BATCH_SIZE, DEFAULT_RETRY_INTERVAL,
+         DEFAULT_ORDER_RESERVE, DEFAULT_SYNC);
+ }
+
+ public OfflineCapture(JdbcOrderRepository orders, JdbcPaymentRepository payments, JdbcBookingRepository bookings,
+                       MenuRepository menu, Path dir, int batchSize, Duration retryInterval, int orderReserve,
+                       boolean sync) {
+     if (batchSize < 1 || retryInterval.isNegative() || retryInterval.isZero() || orderReserve < 0) {
+         throw new IllegalArgumentException("Invalid batch size, retry interval or order reserve");
+     }
+     this.orders = orders;
+     this.payments = payments;
+     this.bookings = bookings;
+     this.menu = new MenuCatalog(menu::findAll, MENU_TTL_MILLIS);
+     this.journal = new OrderJournal(dir, OrderJournal.DEFAULT_SEGMENT_BYTES, sync);
+     this.dir = dir;
+     this.batchSize = batchSize;
+     this.retryInterval = retryInterval;
+     this.orderReserve = orderReserve;
+ }
+
+ public OrderRepository orders() {
+     return orderRepository;
+ }
+
+ public PaymentRepository payments() {
+     return paymentRepository;
+ }
+
+ public BookingRepository bookings() {
+     return bookingRepository;
+ }
+
+ // Call once the schema is in place: picks up what a previous run left in the journal and
+ // writes it, reserves keys for an outage, loads the menu and starts the replayer
+ public void start() throws IOException {
+     replayLock.lock();
+     try {
+         if (replayer != null) {
+             return;
+         }
+         List<Pending> recovered = new ArrayList<>();
+         journal.open((sequence, payload) -> recovered.add(new Pending(sequence, decode(payload))));
+         lock.lock();
+         try {
+             recovered.forEach(this::track);
+         } finally {
+             lock.unlock();
+         }
+         if (!recovered.isEmpty()) {
+             System.out.println("Replaying " + recovered.size() + " journaled order(s), payment(s) and booking(s)");
+         }
+         replay();
+         try {
+             // Warm, so there is a menu to price from if the database goes away
+             menu.itemsByPrice();
+         } catch (SQLException e) {
+             System.err.println("Menu not loaded for offline orders: " + e.getMessage());
+         }
+
+         replayer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+             .name("journal-replayer").daemon().factory());
+         long millis = retryInterval.toMillis();
+         replayer.scheduleWithFixedDelay(this::replay, millis, millis, TimeUnit.MILLISECONDS);
+     } finally {
+         replayLock.unlock();
+     }
+ }
+
+ // True while writes are going to the journal rather than the database
+ public boolean isOffline() {
+     lock.lock();
+     try {
+         return !pending.isEmpty();
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ public Stats getStats() {
+     lock.lock();
+     try {
+         return new Stats(journaled.get(), replayed.get(), rejected.get(), pending.size(), !pending.isEmpty(),
+             reserved(orderIds));
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ // Stops the replayer and makes a last attempt to write the journal; what can't be written
+ // stays in it for the next start()
+ public void close() {
+     lock.lock();
+     try {
+         closed = true;
+     } finally {
+         lock.unlock();
+     }
+     if (replayer != null) {
+         replayer.shutdown();
+         try {
+             replayer.awaitTermination(10, TimeUnit.SECONDS);
+         } catch (InterruptedException e) {
+             Thread.currentThread().interrupt();
+         }
+         replay();
+     }
+     journal.close();
+ }
+
+ // orderId is the key an attempt on the database already took, or NO_KEY to use the reserve
+ private PlacedOrder captureOrder(int orderId, int customerId, List<OrderLine> lines) throws SQLException {
+     if (lines.isEmpty()) {
+         throw new IllegalArgumentException("Order has no items");
+     }
+     double totalAmount = 0;
+     for (OrderLine line : lines) {
+         MenuItem item = menu.find(line.menuItemId()).orElseThrow(
+             () -> new SQLException("Menu item " + line.menuItemId() + " is no longer on the menu"));
+         totalAmount += item.price() * line.quantity();
+     }
+     lock.lock();
+     try {
+         if (orderId == NO_KEY) {
+             orderId = takeId(orderIds);
+         }
+         if (orderId < 0) {
+             throw new SQLException("The database is unreachable and this till has no offline order numbers left");
+         }
+         // The table keeps microseconds
+         CapturedOrder order = new CapturedOrder(orderId, customerId, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS),
+             totalAmount, List.copyOf(lines));
+         capture(order);
+         return new PlacedOrder(orderId, totalAmount);
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ private boolean capturePayment(int orderId, double tendered) throws SQLException {
+     Double total;
+     lock.lock();
+     try {
+         CapturedOrder captured = pendingOrders.get(orderId);
+         total = captured != null ? Double.valueOf(captured.totalAmount()) : knownTotals.get(orderId);
+     } finally {
+         lock.unlock();
+     }
+     if (total == null) {
+         // The database may be back with the journal still draining; it can say
+         try {
+             Optional<PaymentRepository.Balance> balance = payments.findBalance(orderId);
+             if (balance.isEmpty() || balance.get().paid()) {
+                 return false;
+             }
+             total = balance.get().totalAmount();
+         } catch (SQLException e) {
+             if (!ConnectionPool.isConnectionFailure(e)) {
+                 throw e;
+             }
+             throw new SQLException("The database is unreachable and order " + orderId
+                 + " hasn't been looked up on this till, so it can't be paid offline", e);
+         }
+     }
+     lock.lock();
+     try {
+         // Same test as the conditional update: total_amount is kept to the paisa
+         if (paidOffline.contains(orderId) || Math.round(total * 100) / 100.0 > tendered) {
+             return false;
+         }
+         capture(new CapturedPayment(orderId, tendered));
+         return true;
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ // bookingId as for captureOrder
+ private int captureBooking(int bookingId, int tableNumber, int customerId, LocalDateTime bookingTime, int partySize)
+         throws SQLException {
+     lock.lock();
+     try {
+         if (bookingId == NO_KEY) {
+             bookingId = takeId(bookingIds);
+         }
+         if (bookingId < 0) {
+             throw new SQLException("The database is unreachable and this till has no offline booking numbers left");
+         }
+         capture(new Booking(bookingId, tableNumber, customerId, bookingTime, partySize));
+         return bookingId;
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ // Caller holds lock
+ private void capture(Object entry) throws SQLException {
+     if (closed) {
+         throw new SQLException("Offline capture has been shut down");
+     }
+     long sequence;
+     try {
+         sequence = journal.append(encode(entry));
+     } catch (IOException e) {
+         throw new SQLException("The database is unreachable and the journal in " + dir
+             + " could not be written: " + e.getMessage(), e);
+     }
+     track(new Pending(sequence, entry));
+     journaled.incrementAndGet();
+ }
+
+ // Caller holds lock
+ private void track(Pending entry) {
+     pending.addLast(entry);
+     switch (entry.entry()) {
+         case CapturedOrder order -> pendingOrders.put(order.orderId(), order);
+         case CapturedPayment payment -> paidOffline.add(payment.orderId());
+         default -> {
+         }
+     }
+ }
+
+ private void remember(int orderId, double totalAmount) {
+     lock.lock();
+     try {
+         knownTotals.put(orderId, totalAmount);
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ private void replay() {
+     replayLock.lock();
+     try {
+         while (true) {
+             List<Pending> batch = new ArrayList<>(batchSize);
+             lock.lock();
+             try {
+                 for (Pending entry : pending) {
+                     if (batch.size() == batchSize) {
+                         break;
+                     }
+                     batch.add(entry);
+                 }
+             } finally {
+                 lock.unlock();
+             }
+             if (batch.isEmpty()) {
+                 break;
+             }
+             if (!write(batch)) {
+                 return;
+             }
+         }
+         topUpReserve();
+     } catch (RuntimeException e) {
+         // The replayer must survive to try again; the entries are still in the journal
+         System.err.println("Journal replay failed: " + e.getMessage());
+     } finally {
+         replayLock.unlock();
+     }
+ }
+
+ // One transaction for the batch. False when the database is still unreachable.
+ private boolean write(List<Pending> batch) {
+     try {
+         setAside(batch, apply(batch));
+         applied(batch);
+         return true;
+     } catch (SQLException | RuntimeException e) {
+         if (e instanceof SQLException sql && ConnectionPool.isConnectionFailure(sql)) {
+             return false;
+         }
+         System.err.println("Journal batch refused, replaying it entry by entry: " + e.getMessage());
+     }
+     // Something in the batch was refused; one at a time, to set it aside and keep the rest
+     for (Pending entry : batch) {
+         try {
+             setAside(List.of(entry), apply(List.of(entry)));
+         } catch (SQLException | RuntimeException e) {
+             if (e instanceof SQLException sql && ConnectionPool.isConnectionFailure(sql)) {
+                 return false;
+             }
+             reject(entry, e);
+         }
+         applied(List.of(entry));
+     }
+     return true;
+ }
+
+ // Orders go in before bookings and payments, so a payment always finds the order it pays
+ // for, whether that is earlier in the batch or was committed by an earlier one. Each kind
+ // keeps its journal order and is sent as one JDBC batch. Returns the entries that were
+ // committed without a row, by identity, with the reason.
+ private Map<Object, SQLException> apply(List<Pending> batch) throws SQLException {
+     Map<Object, SQLException> refused = new IdentityHashMap<>();
+     List<CapturedOrder> capturedOrders = new ArrayList<>();
+     List<Booking> capturedBookings = new ArrayList<>();
+     List<CapturedPayment> capturedPayments = new ArrayList<>();
+     for (Pending entry : batch) {
+         switch (entry.entry()) {
+             case CapturedOrder order -> capturedOrders.add(order);
+             case Booking booking -> capturedBookings.add(booking);
+             case CapturedPayment payment -> capturedPayments.add(payment);
+             default -> throw new IllegalStateException("Unknown journal entry " + entry.entry());
+         }
+     }
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         conn.setAutoCommit(false);
+         try {
+             if (!capturedOrders.isEmpty()) {
+                 orders.insertMissing(conn, capturedOrders);
+             }
+             if (!capturedBookings.isEmpty()) {
+                 for (Booking booking : bookings.insertMissing(conn, capturedBookings)) {
+                     refused.put(booking, JdbcBookingRepository.alreadyBooked(booking.tableNumber(), booking.bookingTime()));
+                 }
+             }
+             if (!capturedPayments.isEmpty()) {
+                 for (CapturedPayment payment : payments.settleAll(conn, capturedPayments)) {
+                     refused.put(payment, new SQLException("Order " + payment.orderId()
+                         + " is missing, already paid or costs more than " + payment.tendered()));
+                 }
+             }
+             conn.commit();
+         } catch (SQLException | RuntimeException e) {
+             conn.rollback();
+             throw e;
+         } finally {
+             conn.setAutoCommit(true);
+         }
+     }
+     return refused;
+ }
+
+ private void setAside(List<Pending> batch, Map<Object, SQLException> refused) {
+     for (Pending entry : batch) {
+         SQLException reason = refused.get(entry.entry());
+         if (reason != null) {
+             reject(entry, reason);
+         }
+     }
+ }
+
+ // Drops entries from the head of pending once they are in the database (or set aside)
+ private void applied(List<Pending> done) {
+     lock.lock();
+     try {
+         for (Pending entry : done) {
+             pending.removeFirst();
+             switch (entry.entry()) {
+                 case CapturedOrder order -> pendingOrders.remove(order.orderId());
+                 case CapturedPayment payment -> paidOffline.remove(payment.orderId());
+                 default -> {
+                 }
+             }
+         }
+     } finally {
+         lock.unlock();
+     }
+     replayed.addAndGet(done.size());
+     try {
+         journal.checkpoint(done.get(done.size() - 1).sequence());
+     } catch (IOException e) {
+         // Harmless: the next start replays them again and replay skips what is already there
+         System.err.println("Could not checkpoint the journal: " + e.getMessage());
+     }
+ }
+
+ // Constraint violations, e.g. an order for a customer id that was mistyped while offline,
+ // bookings for a table taken while this till was offline and payments that settled nothing
+ private void reject(Pending entry, Exception e) {
+     rejected.incrementAndGet();
+     String line = entry.sequence() + "\t" + entry.entry() + "\t# " + String.valueOf(e.getMessage()).replace('\n', ' ') + "\n";
+     System.err.println("Journal entry rejected: " + line.stripTrailing());
+     try {
+         Files.writeString(dir.resolve(REJECTED_FILE), line, StandardCharsets.UTF_8,
+             StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+     } catch (IOException io) {
+         System.err.println("Could not record rejected journal entry: " + io.getMessage());
+     }
+ }
+
+ // Keeps keys in hand for the next outage. Called by the replayer once the journal is empty.
+ private void topUpReserve() {
+     try {
+         while (reservedUnderLock(orderIds) < orderReserve) {
+             IdAllocator.Block block = takeBlock(IdAllocator.ORDERS);
+             addUnderLock(orderIds, block);
+         }
+         while (reservedUnderLock(bookingIds) < BOOKING_RESERVE) {
+             IdAllocator.Block block = takeBlock(IdAllocator.BOOKINGS);
+             addUnderLock(bookingIds, block);
+         }
+     } catch (SQLException e) {
+         if (!ConnectionPool.isConnectionFailure(e)) {
+             System.err.println("Could not reserve offline keys: " + e.getMessage());
+         }
+     }
+ }
+
+ private static IdAllocator.Block takeBlock(IdAllocator allocator) throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         return allocator.takeBlock(conn);
+     }
+ }
+
+ private long reservedUnderLock(ArrayDeque<IdAllocator.Block> blocks) {
+     lock.lock();
+     try {
+         return reserved(blocks);
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ private void addUnderLock(ArrayDeque<IdAllocator.Block> blocks, IdAllocator.Block block) {
+     lock.lock();
+     try {
+         blocks.addLast(block);
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ // Caller holds lock
+ private static long reserved(ArrayDeque<IdAllocator.Block> blocks) {
+     long count = 0;
+     for (IdAllocator.Block block : blocks) {
+         count += block.last() - block.first() + 1;
+     }
+     return count;
+ }
+
+ // Caller holds lock. -1 when none are left.
+ private static int takeId(ArrayDeque<IdAllocator.Block> blocks) {
+     IdAllocator.Block block = blocks.pollFirst();
+     if (block == null) {
+         return -1;
+     }
+     if (block.first() < block.last()) {
+         blocks.addFirst(new IdAllocator.Block(block.first() + 1, block.last()));
+     }
+     return block.first();
+ }
+
+ private OrderDetails details(CapturedOrder order, boolean paid) {
+     List<OrderDetails.Item> items = new ArrayList<>();
+     for (OrderLine line : order.lines()) {
+         Optional<MenuItem> item;
+         try {
+             item = menu.find(line.menuItemId());
+         } catch (SQLException e) {
+             item = Optional.empty();
+         }
+         items.add(new OrderDetails.Item(item.map(MenuItem::name).orElse("Item #" + line.menuItemId()),
+             line.quantity(), item.map(MenuItem::price).orElse(0.0)));
+     }
+     return new OrderDetails(order.orderId(), order.customerId(), "Customer #" + order.customerId() + " (offline)",
+         order.orderTime(), order.totalAmount(), paid, items);
+ }
+
+ // Type byte, then the fields in order; times as microseconds since the epoch (local time, no zone)
+ private static ByteBuffer encode(Object entry) {
+     return switch (entry) {
+         case CapturedOrder order -> {
+             ByteBuffer out = ByteBuffer.allocate(1 + 4 + 4 + 8 + 8 + 4 + order.lines().size() * 8);
+             out.put(ORDER).putInt(order.orderId()).putInt(order.customerId()).putLong(micros(order.orderTime()))
+                .putDouble(order.totalAmount()).putInt(order.lines().size());
+             for (OrderLine line : order.lines()) {
+                 out.putInt(line.menuItemId()).putInt(line.quantity());
+             }
+             yield out.flip();
+         }
+         case CapturedPayment payment ->
+             ByteBuffer.allocate(1 + 4 + 8).put(PAYMENT).putInt(payment.orderId()).putDouble(payment.tendered()).flip();
+         case Booking booking -> ByteBuffer.allocate(1 + 4 + 4 + 4 + 8 + 4).put(BOOKING)
+             .putInt(booking.id()).putInt(booking.tableNumber()).putInt(booking.customerId())
+             .putLong(micros(booking.bookingTime())).putInt(booking.partySize()).flip();
+         default -> throw new IllegalArgumentException("Unknown journal entry " + entry);
+     };
+ }
+
+ private static Object decode(ByteBuffer in) {
+     byte type = in.get();
+     return switch (type) {
+         case ORDER -> {
+             int orderId = in.getInt();
+             int customerId = in.getInt();
+             LocalDateTime orderTime = time(in.getLong());
+             double totalAmount = in.getDouble();
+             int count = in.getInt();
+             List<OrderLine> lines = new ArrayList<>(count);
+             for (int i = 0; i < count; i++) {
+                 lines.add(new OrderLine(in.getInt(), in.getInt(), ""));
+             }
+             yield new CapturedOrder(orderId, customerId, orderTime, totalAmount, List.copyOf(lines));
+         }
+         case PAYMENT -> new CapturedPayment(in.getInt(), in.getDouble());
+         case BOOKING -> new Booking(in.getInt(), in.getInt(), in.getInt(), time(in.getLong()), in.getInt());
+         default -> throw new IllegalStateException("Unknown journal record type " + type);
+     };
+ }
+
+ private static long micros(LocalDateTime time) {
+     return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+ }
+
+ private static LocalDateTime time(long micros) {
+     return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000,
+         ZoneOffset.UTC);
+ }
+
+ private final class Orders implements OrderRepository {
+
+     @Override
+     public PlacedOrder place(int customerId, List<OrderLine> lines) throws SQLException {
+         int orderId = NO_KEY;
+         if (!isOffline()) {
+             try (Connection conn = DatabaseConnection.getConnection()) {
+                 orderId = IdAllocator.ORDERS.next(conn);
+                 PlacedOrder placed = orders.place(conn, orderId, customerId, lines);
+                 remember(placed.orderId(), placed.totalAmount());
+                 return placed;
+             } catch (SQLException e) {
+                 if (!ConnectionPool.isConnectionFailure(e)) {
+                     throw e;
+                 }
+                 // Lost during the commit, the order may be in already. Journaled under the
+                 // same key, replay then skips it rather than taking it twice.
+             }
+         }
+         return captureOrder(orderId, customerId, lines);
+     }
+
+     @Override
+     public Optional<OrderDetails> findDetails(int orderId) throws SQLException {
+         CapturedOrder captured;
+         boolean paid;
+         lock.lock();
+         try {
+             captured = pendingOrders.get(orderId);
+             paid = paidOffline.contains(orderId);
+         } finally {
+             lock.unlock();
+         }
+         if (captured != null) {
+             return Optional.of(details(captured, paid));
+         }
+         Optional<OrderDetails> found = orders.findDetails(orderId);
+         found.filter(details -> !details.paid()).ifPresent(details -> remember(orderId, details.totalAmount()));
+         if (paid) {
+             return found.map(d -> new OrderDetails(d.orderId(), d.customerId(), d.customerName(), d.orderTime(),
+                 d.totalAmount(), true, d.items()));
+         }
+         return found;
+     }
+
+     @Override
+     public int count() throws SQLException {
+         return orders.count();
+     }
+
+     @Override
+     public Optional<PopularItem> mostPopularItem() throws SQLException {
+         return orders.mostPopularItem();
+     }
+
+     @Override
+     public Map<Integer, Long> quantitiesByItem() throws SQLException {
+         return orders.quantitiesByItem();
+     }
+ }
+
+ private final class Payments implements PaymentRepository {
+
+     @Override
+     public Optional<Balance> findBalance(int orderId) throws SQLException {
+         CapturedOrder captured;
+         boolean paid;
+         Double known;
+         lock.lock();
+         try {
+             captured = pendingOrders.get(orderId);
+             paid = paidOffline.contains(orderId);
+             known = knownTotals.get(orderId);
+         } finally {
+             lock.unlock();
+         }
+         if (captured != null) {
+             return Optional.of(new Balance(captured.totalAmount(), paid));
+         }
+         try {
+             Optional<Balance> balance = payments.findBalance(orderId);
+             balance.filter(b -> !b.paid()).ifPresent(b -> remember(orderId, b.totalAmount()));
+             return paid ? balance.map(b -> new Balance(b.totalAmount(), true)) : balance;
+         } catch (SQLException e) {
+             if (known == null || !ConnectionPool.isConnectionFailure(e)) {
+                 throw e;
+             }
+             return Optional.of(new Balance(known, paid));
+         }
+     }
+
+     @Override
+     public boolean settle(int orderId, double tendered) throws SQLException {
+         if (!isOffline()) {
+             try {
+                 return payments.settle(orderId, tendered);
+             } catch (SQLException e) {
+                 if (!ConnectionPool.isConnectionFailure(e)) {
+                     throw e;
+                 }
+             }
+         }
+         return capturePayment(orderId, tendered);
+     }
+
+     @Override
+     public Revenue findRevenue(LocalDateTime from, LocalDateTime to) throws SQLException {
+         return payments.findRevenue(from, to);
+     }
+
+     @Override
+     public List<PaymentRecord> findPaidOrders(LocalDateTime from, LocalDateTime to, Cursor after, int limit)
+             throws SQLException {
+         return payments.findPaidOrders(from, to, after, limit);
+     }
+ }
+
+ private final class Bookings implements BookingRepository {
+
+     @Override
+     public List<DiningTable> findTables() throws SQLException {
+         return bookings.findTables();
+     }
+
+     @Override
+     public List<Booking> findBookings() throws SQLException {
+         return bookings.findBookings();
+     }
+
+     @Override
+     public List<DiningTable> findAvailableTables(int partySize, LocalDateTime time) throws SQLException {
+         return bookings.findAvailableTables(partySize, time);
+     }
+
+     @Override
+     public int book(int tableNumber, int customerId, LocalDateTime bookingTime, int partySize) throws SQLException {
+         int bookingId = NO_KEY;
+         if (!isOffline()) {
+             try (Connection conn = DatabaseConnection.getConnection()) {
+                 bookingId = IdAllocator.BOOKINGS.next(conn);
+                 return bookings.book(conn, bookingId, tableNumber, customerId, bookingTime, partySize);
+             } catch (SQLException e) {
+                 if (!ConnectionPool.isConnectionFailure(e)) {
+                     throw e;
+                 }
+                 // Journaled under the key already taken, as for orders
+             }
+         }
+         return captureBooking(bookingId, tableNumber, customerId, bookingTime, partySize);
+     }
+
+     @Override
+     public List<TableStatus> findTableStatus(LocalDateTime time) throws SQLException {
+         return bookings.findTableStatus(time);
+     }
+ }
+}
@@ -0,0 +1,10 @@
+package application;
+//OrderDetails.java
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record OrderDetails(int orderId, int customerId, String customerName, LocalDateTime orderTime,
+                           double totalAmount, boolean paid, List<Item> items) {
+
+ public record Item(String name, int quantity, double price) {}
+}
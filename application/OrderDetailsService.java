@@ -0,0 +1,129 @@
+package application;
+//OrderDetailsService.java
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Order lookups for the payment desk. Open (unpaid) orders are kept in a bounded LRU, since
+// cashiers look up the same few orders repeatedly until they are settled. Paid orders are
+// never cached, and settling through here evicts the entry. An order can also be paid at
+// another till or through RestaurantServer, so a cached entry's paid flag is read again
+// before it is served; the lines and customer name are what the cache saves.
+public class OrderDetailsService {
+
+ public enum SettlementResult { SETTLED, ALREADY_PAID, INSUFFICIENT, NOT_FOUND }
+
+ public record Settlement(SettlementResult result, double totalAmount) {}
+
+ public record CacheStats(long hits, long misses, int size, int capacity) {
+     public double hitRate() {
+         long total = hits + misses;
+         return total == 0 ? 0 : (double) hits / total;
+     }
+
+     @Override
+     public String toString() {
+         return String.format("open orders=%d/%d hits=%d misses=%d hitRate=%.1f%%",
+             size, capacity, hits, misses, hitRate() * 100);
+     }
+ }
+
+ private final OrderRepository orders;
+ private final PaymentRepository payments;
+ private final int capacity;
+ private final ReentrantLock lock = new ReentrantLock();
+ private final Map<Integer, OrderDetails> openOrders;
+
+ private final LongAdder hits = new LongAdder();
+ private final LongAdder misses = new LongAdder();
+
+ public OrderDetailsService(OrderRepository orders, PaymentRepository payments, int capacity) {
+     this.orders = orders;
+     this.payments = payments;
+     this.capacity = capacity;
+     this.openOrders = new LinkedHashMap<>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Integer, OrderDetails> eldest) {
+             return size() > OrderDetailsService.this.capacity;
+         }
+     };
+ }
+
+ public Optional<OrderDetails> find(int orderId) throws SQLException {
+     OrderDetails cached = cached(orderId);
+     if (cached != null) {
+         Optional<PaymentRepository.Balance> balance = payments.findBalance(orderId);
+         if (balance.isPresent() && !balance.get().paid()) {
+             hits.increment();
+             return Optional.of(cached);
+         }
+         // Settled elsewhere; the full lookup below shows it as paid and doesn't cache it
+         invalidate(orderId);
+     }
+
+     misses.increment();
+     Optional<OrderDetails> found = orders.findDetails(orderId);
+     if (found.isPresent() && !found.get().paid()) {
+         lock.lock();
+         try {
+             openOrders.put(orderId, found.get());
+         } finally {
+             lock.unlock();
+         }
+     }
+     return found;
+ }
+
+ // Settles with one conditional update; only when it matches nothing is the order read again
+ // to tell the cashier why
+ public Settlement settle(int orderId, double tendered) throws SQLException {
+     OrderDetails cached = cached(orderId);
+     boolean settled = payments.settle(orderId, tendered);
+     invalidate(orderId);
+
+     if (settled) {
+         // Totals never change after placement, so the cached one is still right
+         double totalAmount = cached != null ? cached.totalAmount()
+             : payments.findBalance(orderId).map(PaymentRepository.Balance::totalAmount).orElse(0.0);
+         return new Settlement(SettlementResult.SETTLED, totalAmount);
+     }
+
+     Optional<PaymentRepository.Balance> balance = payments.findBalance(orderId);
+     if (balance.isEmpty()) {
+         return new Settlement(SettlementResult.NOT_FOUND, 0);
+     }
+     return new Settlement(balance.get().paid() ? SettlementResult.ALREADY_PAID : SettlementResult.INSUFFICIENT,
+         balance.get().totalAmount());
+ }
+
+ public void invalidate(int orderId) {
+     lock.lock();
+     try {
+         openOrders.remove(orderId);
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ public CacheStats getStats() {
+     lock.lock();
+     try {
+         return new CacheStats(hits.sum(), misses.sum(), openOrders.size(), capacity);
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ private OrderDetails cached(int orderId) {
+     // Access-ordered LinkedHashMap reorders on get, so reads take the lock too
+     lock.lock();
+     try {
+         return openOrders.get(orderId);
+     } finally {
+         lock.unlock();
+     }
+ }
+}
@@ -0,0 +1,287 @@
+package application;
+//OrderJournal.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only write-ahead log in memory-mapped segment files. An append is a copy into the
+// mapping, so it costs microseconds, and the bytes belong to the OS page cache from then on:
+// they survive the app dying. Only a power cut can lose the last few, unless sync is on, which
+// forces each record to disk and costs a disk write per append.
+//
+// Each record is: length, CRC32C, sequence, payload. The length is written last, and a zero
+// length ends a segment (new mappings are zero-filled), so a record cut off half way is
+// simply not there on recovery. Sequences count up across segments. checkpoint(n) records
+// that everything up to n has been dealt with; segments wholly at or below it are deleted.
+// One app instance per journal directory: open() locks it and fails if another holds it.
+public final class OrderJournal implements AutoCloseable {
+
+ public static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+
+ private static final String SEGMENT_PREFIX = "journal-";
+ private static final String SEGMENT_SUFFIX = ".wal";
+ private static final String CHECKPOINT_FILE = "checkpoint";
+ private static final String LOCK_FILE = "lock";
+ // length, crc, sequence
+ private static final int HEADER_BYTES = 4 + 4 + 8;
+
+ private record Segment(Path path, long lastSequence) {}
+
+ private final Path dir;
+ private final int segmentBytes;
+ private final boolean sync;
+ private final ReentrantLock lock = new ReentrantLock();
+ private final CRC32C crc = new CRC32C();
+
+ // Under lock. Full or recovered segments still holding records above the checkpoint, oldest
+ // first; current is the one being appended to.
+ private final List<Segment> segments = new ArrayList<>();
+ private MappedByteBuffer current;
+ private Path currentPath;
+ private long currentLastSequence;
+ private long nextSequence = 1;
+ private long checkpointed;
+ private boolean closed;
+ // Held from open() to close(), released by the OS if the process dies
+ private FileChannel lockChannel;
+ private FileLock dirLock;
+
+ public OrderJournal(Path dir, int segmentBytes, boolean sync) {
+     if (segmentBytes < 1024) {
+         throw new IllegalArgumentException("Journal segments must be at least 1KB");
+     }
+     this.dir = dir;
+     this.segmentBytes = segmentBytes;
+     this.sync = sync;
+ }
+
+ // Opens the journal and hands every record above the checkpoint to visitor, oldest first.
+ // The payload buffer is only valid during the call.
+ public void open(BiConsumer<Long, ByteBuffer> visitor) throws IOException {
+     lock.lock();
+     try {
+         Files.createDirectories(dir);
+         lockDirectory();
+         Path checkpointFile = dir.resolve(CHECKPOINT_FILE);
+         if (Files.exists(checkpointFile)) {
+             checkpointed = Long.parseLong(Files.readString(checkpointFile, StandardCharsets.UTF_8).trim());
+         }
+         nextSequence = checkpointed + 1;
+
+         List<Path> found;
+         try (Stream<Path> files = Files.list(dir)) {
+             found = files.filter(OrderJournal::isSegment).sorted().toList();
+         }
+         // Kept aside until every segment has been read, so open() can be tried again after a failure
+         List<Segment> recovered = new ArrayList<>();
+         for (Path path : found) {
+             long last = recover(path, visitor);
+             if (last > checkpointed) {
+                 recovered.add(new Segment(path, last));
+             } else {
+                 delete(path);
+             }
+             nextSequence = Math.max(nextSequence, last + 1);
+         }
+         segments.addAll(recovered);
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ // The record's sequence. payload is read from its position to its limit.
+ public long append(ByteBuffer payload) throws IOException {
+     int length = payload.remaining();
+     // Room for the record and for the zero length that ends the segment after it
+     int needed = HEADER_BYTES + length + 4;
+     if (needed > segmentBytes) {
+         throw new IOException("Journal record of " + length + " bytes is larger than a segment");
+     }
+     lock.lock();
+     try {
+         if (closed) {
+             throw new IOException("Journal has been closed");
+         }
+         if (current == null || current.remaining() < needed) {
+             roll();
+         }
+         long sequence = nextSequence++;
+         int at = current.position();
+         current.putLong(at + 8, sequence);
+         current.put(at + HEADER_BYTES, payload, payload.position(), length);
+         crc.reset();
+         crc.update(current.slice(at + 8, 8 + length));
+         current.putInt(at + 4, (int) crc.getValue());
+         // Last, so a record is only ever seen whole
+         current.putInt(at, length);
+         current.position(at + HEADER_BYTES + length);
+         if (sync) {
+             current.force(at, HEADER_BYTES + length);
+         }
+         currentLastSequence = sequence;
+         return sequence;
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ // Everything up to and including sequence has been applied and need not be replayed
+ public void checkpoint(long sequence) throws IOException {
+     lock.lock();
+     try {
+         if (sequence <= checkpointed) {
+             return;
+         }
+         // Written aside and moved over, so a crash never leaves a half-written number
+         Path temporary = dir.resolve(CHECKPOINT_FILE + ".tmp");
+         Files.writeString(temporary, Long.toString(sequence), StandardCharsets.UTF_8);
+         Files.move(temporary, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+             StandardCopyOption.ATOMIC_MOVE);
+         checkpointed = sequence;
+
+         while (!segments.isEmpty() && segments.get(0).lastSequence() <= sequence) {
+             delete(segments.remove(0).path());
+         }
+         if (current != null && currentLastSequence <= sequence) {
+             // Nothing in it is needed any more; start afresh on the next append
+             delete(currentPath);
+             current = null;
+             currentPath = null;
+         }
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ public long getCheckpoint() {
+     lock.lock();
+     try {
+         return checkpointed;
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ // Flushes the open segment to disk; what is still needed stays for the next open()
+ @Override
+ public void close() {
+     lock.lock();
+     try {
+         if (current != null) {
+             current.force();
+         }
+         closed = true;
+         current = null;
+         if (lockChannel != null) {
+             // Closing the channel releases the lock
+             lockChannel.close();
+             lockChannel = null;
+             dirLock = null;
+         }
+     } catch (IOException e) {
+         System.err.println("Could not release journal lock in " + dir + ": " + e.getMessage());
+     } finally {
+         lock.unlock();
+     }
+ }
+
+ // Caller holds lock. A second process on the same directory would replay this one's
+ // segments, clash on segment names and overwrite its checkpoint.
+ private void lockDirectory() throws IOException {
+     if (dirLock != null) {
+         return;
+     }
+     FileChannel channel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+     FileLock acquired;
+     try {
+         acquired = channel.tryLock();
+     } catch (OverlappingFileLockException e) {
+         // Held by another journal in this JVM
+         acquired = null;
+     } catch (IOException e) {
+         channel.close();
+         throw e;
+     }
+     if (acquired == null) {
+         channel.close();
+         throw new IOException("Journal directory " + dir + " is in use by another process;"
+             + " give each instance its own -Drestaurant.journal.dir");
+     }
+     lockChannel = channel;
+     dirLock = acquired;
+ }
+
+ // Caller holds lock
+ private void roll() throws IOException {
+     if (current != null) {
+         segments.add(new Segment(currentPath, currentLastSequence));
+     }
+     // Named by the first sequence in it, so name order is replay order
+     Path path = dir.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+     try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+             StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+         // The mapping stays valid after the channel is closed
+         current = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+     }
+     currentPath = path;
+     currentLastSequence = nextSequence - 1;
+ }
+
+ // The last sequence in the segment, or 0 when it is empty; stops at the first record that
+ // is incomplete or doesn't match its CRC
+ private long recover(Path path, BiConsumer<Long, ByteBuffer> visitor) throws IOException {
+     MappedByteBuffer buffer;
+     try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+     }
+     long last = 0;
+     int at = 0;
+     while (at + HEADER_BYTES <= buffer.limit()) {
+         int length = buffer.getInt(at);
+         if (length <= 0 || at + HEADER_BYTES + length > buffer.limit()) {
+             break;
+         }
+         crc.reset();
+         crc.update(buffer.slice(at + 8, 8 + length));
+         if ((int) crc.getValue() != buffer.getInt(at + 4)) {
+             System.err.println("Journal " + path.getFileName() + " ends with a damaged record at byte " + at);
+             break;
+         }
+         long sequence = buffer.getLong(at + 8);
+         if (sequence > checkpointed) {
+             visitor.accept(sequence, buffer.slice(at + HEADER_BYTES, length));
+         }
+         last = sequence;
+         at += HEADER_BYTES + length;
+     }
+     return last;
+ }
+
+ // Some platforms refuse while the file is still mapped; open() deletes it next time instead
+ private static void delete(Path path) {
+     try {
+         Files.deleteIfExists(path);
+     } catch (IOException e) {
+         System.err.println("Could not delete journal segment " + path.getFileName() + ": " + e.getMessage());
+     }
+ }
+
+ private static boolean isSegment(Path path) {
+     String name = path.getFileName().toString();
+     return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+ }
+}
@@ -0,0 +1,6 @@
+package application;
+//OrderLine.java
+
+// One cart line. description is what the cart list shows, e.g. "Veg Biryani (Qty: 2) - ₹398.00"
+public record OrderLine(int menuItemId, int quantity, String description) {
+}
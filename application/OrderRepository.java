@@ -0,0 +1,23 @@
+package application;
+//OrderRepository.java
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface OrderRepository {
+
+ record PopularItem(String name, int totalQuantity) {}
+
+ // Prices the lines from the current menu and stores the order with its items atomically
+ PlacedOrder place(int customerId, List<OrderLine> lines) throws SQLException;
+
+ Optional<OrderDetails> findDetails(int orderId) throws SQLException;
+
+ int count() throws SQLException;
+
+ Optional<PopularItem> mostPopularItem() throws SQLException;
+
+ // Total quantity ordered per menu item id, over all orders
+ Map<Integer, Long> quantitiesByItem() throws SQLException;
+}
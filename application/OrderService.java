@@ -0,0 +1,49 @@
+package application;
+//OrderService.java
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Order placement on top of whichever OrderRepository is configured. Once an order is
+// committed its ticket goes to the kitchen.
+public class OrderService {
+
+ private final OrderRepository orders;
+ private final MenuCatalog catalog;
+ private final KitchenTickets kitchen;
+
+ public OrderService(OrderRepository orders, MenuCatalog catalog, KitchenTickets kitchen) {
+     this.orders = orders;
+     this.catalog = catalog;
+     this.kitchen = kitchen;
+ }
+
+ public PlacedOrder placeOrder(int customerId, List<OrderLine> lines) throws SQLException {
+     PlacedOrder placed = orders.place(customerId, lines);
+
+     // The cart was priced from the catalog but the repository priced the order from the
+     // store; if the two totals disagree the catalog is stale
+     double cachedTotal = 0;
+     boolean stale = false;
+     List<KitchenTicket.Item> items = new ArrayList<>(lines.size());
+     for (OrderLine line : lines) {
+         Optional<MenuItem> item = catalog.find(line.menuItemId());
+         if (item.isEmpty()) {
+             stale = true;
+             items.add(new KitchenTicket.Item(line.menuItemId(), "Item #" + line.menuItemId(), line.quantity()));
+             continue;
+         }
+         cachedTotal += item.get().price() * line.quantity();
+         items.add(new KitchenTicket.Item(line.menuItemId(), item.get().name(), line.quantity()));
+     }
+     if (stale || Math.abs(cachedTotal - placed.totalAmount()) > 0.005) {
+         // The menu changed under us, so every catalog in the process is out of date
+         MenuCatalog.invalidateAll();
+     }
+
+     kitchen.publish(new KitchenTicket(placed.orderId(), customerId, LocalDateTime.now(), List.copyOf(items)));
+     return placed;
+ }
+}
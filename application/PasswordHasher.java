@@ -0,0 +1,90 @@
+package application;
+//PasswordHasher.java
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// Salted PBKDF2 password hashes, stored as pbkdf2-sha256$<iterations>$<salt>$<hash>. The
+// iteration count is the work factor; anything stored below it, or still in plain text from
+// before hashing existed, reports needsRehash so login can upgrade it.
+public final class PasswordHasher {
+
+ private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+ private static final String PREFIX = "pbkdf2-sha256";
+ private static final int SALT_BYTES = 16;
+ private static final int HASH_BITS = 256;
+ private static final SecureRandom RANDOM = new SecureRandom();
+ // Declared after RANDOM, since building it hashes the decoy
+ public static final int DEFAULT_ITERATIONS = Integer.getInteger("restaurant.password.iterations", 310_000);
+ public static final PasswordHasher DEFAULT = new PasswordHasher(DEFAULT_ITERATIONS);
+
+ private final int iterations;
+ // Verified against when the username doesn't exist, so a miss costs as much as a wrong password
+ private final String decoy;
+
+ public PasswordHasher(int iterations) {
+     if (iterations < 1) {
+         throw new IllegalArgumentException("Invalid iteration count: " + iterations);
+     }
+     this.iterations = iterations;
+     this.decoy = hash("decoy");
+ }
+
+ public int getIterations() {
+     return iterations;
+ }
+
+ public String hash(String password) {
+     byte[] salt = new byte[SALT_BYTES];
+     RANDOM.nextBytes(salt);
+     Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+     return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$"
+         + encoder.encodeToString(derive(password, salt, iterations));
+ }
+
+ public boolean verify(String password, String stored) {
+     if (stored == null) {
+         verify(password, decoy);
+         return false;
+     }
+     String[] parts = stored.split("\\$");
+     if (parts.length != 4 || !parts[0].equals(PREFIX)) {
+         // Legacy row written before passwords were hashed
+         return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+     }
+     try {
+         Base64.Decoder decoder = Base64.getDecoder();
+         byte[] expected = decoder.decode(parts[3]);
+         return MessageDigest.isEqual(derive(password, decoder.decode(parts[2]), Integer.parseInt(parts[1])), expected);
+     } catch (IllegalArgumentException e) {
+         return false;
+     }
+ }
+
+ public boolean needsRehash(String stored) {
+     String[] parts = stored.split("\\$");
+     if (parts.length != 4 || !parts[0].equals(PREFIX)) {
+         return true;
+     }
+     try {
+         return Integer.parseInt(parts[1]) < iterations;
+     } catch (NumberFormatException e) {
+         return true;
+     }
+ }
+
+ private static byte[] derive(String password, byte[] salt, int iterations) {
+     PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+     try {
+         return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+     } catch (GeneralSecurityException e) {
+         throw new IllegalStateException(ALGORITHM + " is not available", e);
+     } finally {
+         spec.clearPassword();
+     }
+ }
+}
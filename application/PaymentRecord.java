@@ -0,0 +1,6 @@
+package application;
+//PaymentRecord.java
+import java.time.LocalDateTime;
+
+public record PaymentRecord(int orderId, String customerName, double amount, LocalDateTime orderTime) {
+}
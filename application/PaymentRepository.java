@@ -0,0 +1,28 @@
+package application;
+//PaymentRepository.java
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentRepository {
+
+ record Balance(double totalAmount, boolean paid) {}
+
+ record Revenue(int payments, double total) {}
+
+ // Position in the newest-first listing: rows strictly older than this come next
+ record Cursor(LocalDateTime orderTime, int orderId) {}
+
+ Optional<Balance> findBalance(int orderId) throws SQLException;
+
+ // Marks the order paid only if it is still unpaid and tendered covers its total, as one
+ // conditional update; false means nothing changed (unknown, already paid or underpaid)
+ boolean settle(int orderId, double tendered) throws SQLException;
+
+ // Paid orders with from <= order_time < to
+ Revenue findRevenue(LocalDateTime from, LocalDateTime to) throws SQLException;
+
+ // Keyset page of paid orders with from <= order_time < to, newest first; after is null for the first page
+ List<PaymentRecord> findPaidOrders(LocalDateTime from, LocalDateTime to, Cursor after, int limit) throws SQLException;
+}
@@ -0,0 +1,5 @@
+package application;
+//PlacedOrder.java
+
+public record PlacedOrder(int orderId, double totalAmount) {
+}
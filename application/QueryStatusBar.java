@@ -0,0 +1,70 @@
+package application;
+//QueryStatusBar.java
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.HBox;
+
+// Small progress/error strip shown at the bottom of a pane while its query runs
+public class QueryStatusBar extends HBox {
+
+ private final ProgressIndicator indicator = new ProgressIndicator();
+ private final Label messageLabel = new Label();
+ private int running;
+
+ private QueryStatusBar() {
+     super(8);
+ }
+
+ // Lays the bar out after construction, so no overridable method runs on a half-built bar
+ public static QueryStatusBar create() {
+     QueryStatusBar bar = new QueryStatusBar();
+     bar.setAlignment(Pos.CENTER_LEFT);
+     bar.indicator.setPrefSize(16, 16);
+     bar.indicator.setVisible(false);
+     bar.getChildren().addAll(bar.indicator, bar.messageLabel);
+     return bar;
+ }
+
+ // Shows busyMessage while the task runs and disables the given controls until it finishes
+ public void track(Task<?> task, String busyMessage, Node... disableWhileRunning) {
+     running++;
+     indicator.setVisible(true);
+     showMessage(busyMessage, "-fx-text-fill: #555555;");
+     for (Node node : disableWhileRunning) {
+         node.setDisable(true);
+     }
+
+     task.stateProperty().addListener((obs, oldState, newState) -> {
+         switch (newState) {
+             case SUCCEEDED, FAILED, CANCELLED -> {
+                 running--;
+                 indicator.setVisible(running > 0);
+                 for (Node node : disableWhileRunning) {
+                     node.setDisable(false);
+                 }
+                 if (newState == Worker.State.FAILED) {
+                     Throwable error = task.getException();
+                     showMessage("Error: " + (error != null ? error.getMessage() : "unknown"), "-fx-text-fill: #f44336;");
+                 } else if (running == 0) {
+                     showMessage("", "");
+                 }
+             }
+             default -> {
+             }
+         }
+     });
+ }
+
+ public void showError(String message) {
+     showMessage(message, "-fx-text-fill: #f44336;");
+ }
+
+ private void showMessage(String message, String style) {
+     messageLabel.setText(message);
+     messageLabel.setStyle(style);
+ }
+}
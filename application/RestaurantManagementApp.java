@@ -1,18 +1,39 @@
 package application;
 //RestaurantManagementApp.java
 import javafx.application.Application;
+import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import javafx.stage.StageStyle;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import java.sql.*;
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.beans.value.ObservableValue;
+import javafx.stage.FileChooser;
+import javafx.concurrent.Task;
 import javafx.application.Platform;
 import javafx.scene.control.ButtonBar;
 import javafx.scene.control.ButtonType;
@@ -21,14 +42,41 @@ import javafx.scene.control.PasswordField;
 import javafx.scene.control.Separator;
 import javafx.scene.layout.GridPane;
 import javafx.scene.Node;
+import javafx.stage.Window;
 
 public class RestaurantManagementApp extends Application {
  
+ private static final int CUSTOMER_PAGE_SIZE = 200;
+ private static final int CUSTOMER_SEARCH_LIMIT = 50;
+ private static final int PAYMENT_PAGE_SIZE = 200;
+ private static final int OPEN_ORDER_CACHE_SIZE = 256;
+ 
+ // Half-open: from <= t < to
+ private record DateRange(LocalDateTime from, LocalDateTime to) {}
+ 
+ // window is null for "since startup"
+ private record PerformanceWindow(String label, Duration window) {
+     @Override
+     public String toString() {
+         return label;
+     }
+ }
+ 
+ private final DataStore store = DataStore.current();
+ private final KitchenTickets kitchenTickets = new KitchenTickets(Platform::runLater);
+ private final OrderService orderService = new OrderService(store.orders(), MenuCatalog.getInstance(), kitchenTickets);
+ private final KitchenDisplay kitchenDisplay = new KitchenDisplay(kitchenTickets);
+ private final OrderDetailsService orderDetails = new OrderDetailsService(store.orders(), store.payments(), OPEN_ORDER_CACHE_SIZE);
+ 
+ // Portal windows are built once and reused on later opens
+ private Stage customerStage;
+ private Stage adminStage;
+ private String adminStageUser;
+ 
  @Override
  public void start(Stage primaryStage) {
-     DatabaseConnection.initializeDatabase();
-     
      primaryStage.setTitle("Restaurant Management System");
+     registerGauges();
      
      // Create main layout
      VBox mainLayout = new VBox(20);
@@ -43,17 +91,89 @@ public class RestaurantManagementApp extends Application {
      // Buttons
      Button customerBtn = createStyledButton("Customer Portal", "#4CAF50");
      Button adminBtn = createStyledButton("Admin Portal", "#2196F3");
+     Button kitchenBtn = createStyledButton("Kitchen Display", "#FF9800");
      Button exitBtn = createStyledButton("Exit", "#f44336");
      
      customerBtn.setOnAction(e -> openCustomerPortal());
      adminBtn.setOnAction(e -> openAdminPortal());
+     kitchenBtn.setOnAction(e -> kitchenDisplay.show());
      exitBtn.setOnAction(e -> primaryStage.close());
      
-     mainLayout.getChildren().addAll(titleLabel, customerBtn, adminBtn, exitBtn);
+     mainLayout.getChildren().addAll(titleLabel, customerBtn, adminBtn, kitchenBtn, exitBtn);
      
-     Scene scene = new Scene(mainLayout, 400, 300);
+     Scene scene = new Scene(mainLayout, 400, 380);
      primaryStage.setScene(scene);
      primaryStage.show();
+     
+     // Portals stay disabled until the schema is ready
+     customerBtn.setDisable(true);
+     adminBtn.setDisable(true);
+     prepareDatabase(primaryStage, customerBtn, adminBtn);
+ }
+ 
+ // On failure, e.g. the database is not up yet, the user can try again without restarting
+ private void prepareDatabase(Stage primaryStage, Button customerBtn, Button adminBtn) {
+     Stage splash = showSplash(primaryStage);
+     DataAccessExecutor.submit("Preparing database", () -> {
+         if (!store.isInMemory()) {
+             DatabaseConnection.initializeDatabase();
+         }
+         store.preload();
+         return null;
+     }, ignored -> {
+         splash.close();
+         customerBtn.setDisable(false);
+         adminBtn.setDisable(false);
+     }, ex -> {
+         splash.close();
+         ButtonType retry = new ButtonType("Retry", ButtonBar.ButtonData.OK_DONE);
+         ButtonType exit = new ButtonType("Exit", ButtonBar.ButtonData.CANCEL_CLOSE);
+         Alert alert = new Alert(Alert.AlertType.ERROR, "Could not prepare the database: " + ex.getMessage(), retry, exit);
+         alert.setTitle("Error");
+         alert.setHeaderText(null);
+         if (alert.showAndWait().orElse(exit) == retry) {
+             prepareDatabase(primaryStage, customerBtn, adminBtn);
+         } else {
+             primaryStage.close();
+         }
+     });
+ }
+ 
+ private Stage showSplash(Stage owner) {
+     ProgressIndicator indicator = new ProgressIndicator();
+     indicator.setPrefSize(40, 40);
+     Label message = new Label("Preparing database...");
+     message.setStyle("-fx-font-size: 14px; -fx-text-fill: white;");
+     
+     VBox splashLayout = new VBox(15, indicator, message);
+     splashLayout.setPadding(new Insets(30));
+     splashLayout.setAlignment(Pos.CENTER);
+     splashLayout.setStyle("-fx-background-color: linear-gradient(to bottom, #667eea 0%, #764ba2 100%);");
+     
+     Stage splash = new Stage(StageStyle.UNDECORATED);
+     splash.initOwner(owner);
+     splash.setScene(new Scene(splashLayout, 260, 140));
+     splash.show();
+     splash.setX(owner.getX() + (owner.getWidth() - splash.getWidth()) / 2);
+     splash.setY(owner.getY() + (owner.getHeight() - splash.getHeight()) / 2);
+     return splash;
+ }
+ 
+ @Override
+ public void stop() {
+     DataAccessExecutor.shutdown();
+     store.close();
+     DatabaseConnection.shutdown();
+     Diagnostics.stopRecording();
+ }
+ 
+ // Runs JDBC work on a background thread and hands the result back on the FX thread
+ private <T> void runInBackground(QueryStatusBar status, String busyMessage, Callable<T> work,
+                                  Consumer<T> onSuccess, Consumer<Throwable> onFailure, Node... disableWhileRunning) {
+     // The busy message doubles as the action's name in flight recordings
+     String action = busyMessage.endsWith("...") ? busyMessage.substring(0, busyMessage.length() - 3) : busyMessage;
+     Task<T> task = DataAccessExecutor.submit(action, work, onSuccess, onFailure);
+     status.track(task, busyMessage, disableWhileRunning);
  }
  
  private Button createStyledButton(String text, String color) {
@@ -70,42 +190,27 @@ public class RestaurantManagementApp extends Application {
  }
  
  private void openCustomerPortal() {
-     Stage customerStage = new Stage();
+     // Reuse the portal if it was opened before; tabs keep whatever they already loaded
+     if (customerStage != null) {
+         customerStage.show();
+         customerStage.toFront();
+         return;
+     }
+     
+     customerStage = new Stage();
      customerStage.setTitle("Customer Portal");
      
      TabPane tabPane = new TabPane();
      
-     // Registration Tab
-     Tab registrationTab = new Tab("Registration");
-     registrationTab.setContent(createRegistrationPane());
-     registrationTab.setClosable(false);
-     
-     // Menu Tab
-     Tab menuTab = new Tab("View Menu");
-     menuTab.setContent(createMenuPane());
-     menuTab.setClosable(false);
-     
-     // Order Tab
-     Tab orderTab = new Tab("Place Order");
-     orderTab.setContent(createOrderPane());
-     orderTab.setClosable(false);
-     
-     // Booking Tab
-     Tab bookingTab = new Tab("Book Table");
-     bookingTab.setContent(createBookingPane());
-     bookingTab.setClosable(false);
-     
-     // Payment Tab
-     Tab paymentTab = new Tab("Make Payment");
-     paymentTab.setContent(createPaymentPane());
-     paymentTab.setClosable(false);
-     
-     // Feedback Tab
-     Tab feedbackTab = new Tab("Feedback");
-     feedbackTab.setContent(createFeedbackPane());
-     feedbackTab.setClosable(false);
-     
-     tabPane.getTabs().addAll(registrationTab, menuTab, orderTab, bookingTab, paymentTab, feedbackTab);
+     // Each tab's pane is built the first time it is selected
+     tabPane.getTabs().addAll(
+         LazyTab.create("Registration", this::createRegistrationPane),
+         LazyTab.create("View Menu", this::createMenuPane),
+         LazyTab.create("Place Order", this::createOrderPane),
+         LazyTab.create("Book Table", this::createBookingPane),
+         LazyTab.create("Make Payment", this::createPaymentPane),
+         LazyTab.create("Feedback", this::createFeedbackPane));
+     LazyTab.buildSelected(tabPane);
      
      Scene scene = new Scene(tabPane, 800, 600);
      customerStage.setScene(scene);
@@ -113,7 +218,7 @@ public class RestaurantManagementApp extends Application {
  }
 //First, add this method to create the admin login dialog
  private String showAdminLogin() {
-	    Dialog<String[]> dialog = new Dialog<>();
+	    Dialog<String> dialog = new Dialog<>();
 	    dialog.setTitle("Admin Login");
 	    dialog.setHeaderText("Please enter admin credentials");
 	    
@@ -137,6 +242,9 @@ public class RestaurantManagementApp extends Application {
 	    grid.add(new Label("Password:"), 0, 1);
 	    grid.add(password, 1, 1);
 	    
+	    QueryStatusBar status = QueryStatusBar.create();
+	    grid.add(status, 0, 2, 2, 1);
+	    
 	    // Enable/Disable login button depending on whether a username was entered
 	    Node loginButton = dialog.getDialogPane().lookupButton(loginButtonType);
 	    loginButton.setDisable(true);
@@ -151,55 +259,61 @@ public class RestaurantManagementApp extends Application {
 	    // Request focus on the username field by default
 	    Platform.runLater(() -> username.requestFocus());
 	    
-	    // Convert the result to a username-password-pair when the login button is clicked
-	    dialog.setResultConverter(dialogButton -> {
-	        if (dialogButton == loginButtonType) {
-	            return new String[]{username.getText(), password.getText()};
-	        }
-	        return null;
+	    // Hashing is deliberately slow, so the dialog stays open and responsive while the
+	    // credentials are checked on a worker thread; it only closes once they are accepted
+	    loginButton.addEventFilter(ActionEvent.ACTION, event -> {
+	        event.consume();
+	        String user = username.getText();
+	        runInBackground(status, "Verifying credentials...", () -> verifyAdminCredentials(user, password.getText()), valid -> {
+	            if (valid) {
+	                dialog.setResult(user);
+	                dialog.close();
+	            } else {
+	                password.clear();
+	                status.showError("Invalid username or password!");
+	            }
+	        }, ex -> status.showError("Authentication failed: " + ex.getMessage()), username, password, loginButton);
 	    });
+	    dialog.setResultConverter(dialogButton -> null);
 	    
-	    Optional<String[]> result = dialog.showAndWait();
-	    
-	    if (result.isPresent()) {
-	        String[] credentials = result.get();
-	        if (authenticateAdmin(credentials[0], credentials[1])) {
-	            return credentials[0]; // Return username if authentication successful
-	        }
-	    }
-	    
-	    return null; // Return null if authentication failed or cancelled
+	    // Username if authentication succeeded, null if the dialog was cancelled
+	    return dialog.showAndWait().orElse(null);
 	}
 
-//Add this method to authenticate admin credentials
-private boolean authenticateAdmin(String username, String password) {
+//Checks credentials without touching the UI; runs on a worker thread since hashing takes a while
+private boolean verifyAdminCredentials(String username, String password) throws SQLException {
   try (Connection conn = DatabaseConnection.getConnection()) {
+      int id;
+      String storedHash;
       String sql = "SELECT id, password_hash FROM admin_users WHERE username = ? AND is_active = 1";
       try (PreparedStatement stmt = conn.prepareStatement(sql)) {
           stmt.setString(1, username);
           try (ResultSet rs = stmt.executeQuery()) {
-              if (rs.next()) {
-                  String storedHash = rs.getString("password_hash");
-                  // For simplicity, we'll use basic comparison
-                  // In production, use proper password hashing like BCrypt
-                  return password.equals(storedHash) || checkPasswordHash(password, storedHash);
+              if (!rs.next()) {
+                  PasswordHasher.DEFAULT.verify(password, null);
+                  return false;
               }
+              id = rs.getInt("id");
+              storedHash = rs.getString("password_hash");
+          }
+      }
+      if (!PasswordHasher.DEFAULT.verify(password, storedHash)) {
+          return false;
+      }
+      
+      // Plain-text rows and hashes below the current work factor are upgraded on a good login;
+      // matching on the old value keeps this from overwriting a password changed meanwhile
+      if (PasswordHasher.DEFAULT.needsRehash(storedHash)) {
+          String upgrade = "UPDATE admin_users SET password_hash = ? WHERE id = ? AND password_hash = ?";
+          try (PreparedStatement stmt = conn.prepareStatement(upgrade)) {
+              stmt.setString(1, PasswordHasher.DEFAULT.hash(password));
+              stmt.setInt(2, id);
+              stmt.setString(3, storedHash);
+              stmt.executeUpdate();
           }
       }
-  } catch (SQLException e) {
-      showAlert("Error", "Authentication failed: " + e.getMessage());
-      return false;
+      return true;
   }
-  
-  showAlert("Login Failed", "Invalid username or password!");
-  return false;
-}
-
-//Simple password hashing check (replace with BCrypt in production)
-private boolean checkPasswordHash(String password, String hash) {
-  // For demo purposes, storing plain text passwords
-  // In production, use: BCrypt.checkpw(password, hash)
-  return password.equals(hash);
 }
 
 //Update the openAdminPortal method to include login check
@@ -212,42 +326,32 @@ private void openAdminPortal() {
     showWelcomeMessage("Admin Login Successful", 
             "Welcome back, " + adminUsername + "!\n\nYou have successfully logged into the Admin Portal.\nYou now have access to all administrative functions.");
   
-  Stage adminStage = new Stage();
+  // Same admin again: bring back the existing portal instead of rebuilding every tab
+  if (adminStage != null && adminUsername.equals(adminStageUser)) {
+      adminStage.show();
+      adminStage.toFront();
+      return;
+  }
+  if (adminStage != null) {
+      adminStage.close();
+  }
+  
+  adminStage = new Stage();
+  adminStageUser = adminUsername;
   adminStage.setTitle("Admin Portal - Authenticated");
   
   TabPane tabPane = new TabPane();
   
-  // Add a logout option in the admin portal
-  Tab logoutTab = new Tab("Logout");
-  logoutTab.setContent(createLogoutPane(adminStage, adminUsername));
-  logoutTab.setClosable(false);
-  
-  // Customer Management Tab
-  Tab customerTab = new Tab("Customer Management");
-  customerTab.setContent(createCustomerManagementPane());
-  customerTab.setClosable(false);
-  
-  // Table Management Tab
-  Tab tableTab = new Tab("Table Management");
-  tableTab.setContent(createTableManagementPane());
-  tableTab.setClosable(false);
-  
-  // Payment Records Tab
-  Tab paymentTab = new Tab("Payment Records");
-  paymentTab.setContent(createPaymentRecordsPane());
-  paymentTab.setClosable(false);
-  
-  // Analytics Tab
-  Tab analyticsTab = new Tab("Analytics");
-  analyticsTab.setContent(createAnalyticsPane());
-  analyticsTab.setClosable(false);
-  
-  // Admin Settings Tab (new)
-  Tab settingsTab = new Tab("Admin Settings");
-  settingsTab.setContent(createAdminSettingsPane());
-  settingsTab.setClosable(false);
-  
-  tabPane.getTabs().addAll(customerTab, tableTab, paymentTab, analyticsTab, settingsTab, logoutTab);
+  // Each tab's pane, and the queries it runs, is built the first time it is selected
+  tabPane.getTabs().addAll(
+      LazyTab.create("Customer Management", this::createCustomerManagementPane),
+      LazyTab.create("Table Management", this::createTableManagementPane),
+      LazyTab.create("Payment Records", this::createPaymentRecordsPane),
+      LazyTab.create("Analytics", this::createAnalyticsPane),
+      LazyTab.create("Performance", this::createPerformancePane),
+      LazyTab.create("Admin Settings", this::createAdminSettingsPane),
+      LazyTab.create("Logout", () -> createLogoutPane(adminUsername)));
+  LazyTab.buildSelected(tabPane);
   
   Scene scene = new Scene(tabPane, 900, 700);
   adminStage.setScene(scene);
@@ -256,7 +360,7 @@ private void openAdminPortal() {
 
 
 //Create logout pane
-private VBox createLogoutPane(Stage adminStage, String adminUsername) {
+private VBox createLogoutPane(String adminUsername) {
   VBox layout = new VBox(20);
   layout.setPadding(new Insets(50));
   layout.setAlignment(Pos.CENTER);
@@ -282,7 +386,10 @@ private VBox createLogoutPane(Stage adminStage, String adminUsername) {
       
       Optional<ButtonType> result = confirmAlert.showAndWait();
       if (result.isPresent() && result.get() == ButtonType.OK) {
+          // Logging out discards the portal; the next login builds a fresh one
           adminStage.close();
+          adminStage = null;
+          adminStageUser = null;
       }
   });
   
@@ -317,6 +424,8 @@ private VBox createAdminSettingsPane() {
   Button changePasswordBtn = new Button("Change Password");
   changePasswordBtn.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white;");
   
+  QueryStatusBar status = QueryStatusBar.create();
+  
   changePasswordBtn.setOnAction(e -> {
       String username = currentUsernameField.getText().trim();
       String currentPassword = currentPasswordField.getText();
@@ -338,31 +447,32 @@ private VBox createAdminSettingsPane() {
           return;
       }
       
-      // Verify current credentials and update password
-      if (authenticateAdmin(username, currentPassword)) {
+      // Verify current credentials and update password; null means the credentials were rejected
+      runInBackground(status, "Changing password...", () -> {
+          if (!verifyAdminCredentials(username, currentPassword)) {
+              return null;
+          }
           try (Connection conn = DatabaseConnection.getConnection()) {
               String sql = "UPDATE admin_users SET password_hash = ? WHERE username = ?";
               try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                  stmt.setString(1, newPassword); // In production, hash this password
+                  stmt.setString(1, PasswordHasher.DEFAULT.hash(newPassword));
                   stmt.setString(2, username);
-                  int updated = stmt.executeUpdate();
-                  
-                  if (updated > 0) {
-                      showAlert("Success", "Password changed successfully!");
-                      currentUsernameField.clear();
-                      currentPasswordField.clear();
-                      newPasswordField.clear();
-                      confirmPasswordField.clear();
-                  } else {
-                      showAlert("Error", "Failed to update password!");
-                  }
+                  return stmt.executeUpdate() > 0;
               }
-          } catch (SQLException ex) {
-              showAlert("Error", "Database error: " + ex.getMessage());
           }
-      } else {
-          showAlert("Error", "Current credentials are invalid!");
-      }
+      }, updated -> {
+          if (updated == null) {
+              showAlert("Error", "Current credentials are invalid!");
+          } else if (updated) {
+              showAlert("Success", "Password changed successfully!");
+              currentUsernameField.clear();
+              currentPasswordField.clear();
+              newPasswordField.clear();
+              confirmPasswordField.clear();
+          } else {
+              showAlert("Error", "Failed to update password!");
+          }
+      }, ex -> showAlert("Error", "Database error: " + ex.getMessage()), changePasswordBtn);
   });
   
   // Add separator
@@ -395,26 +505,79 @@ private VBox createAdminSettingsPane() {
           return;
       }
       
-      try (Connection conn = DatabaseConnection.getConnection()) {
-          String sql = "INSERT INTO admin_users (id, username, password_hash, is_active) VALUES (admin_seq.NEXTVAL, ?, ?, 1)";
-          try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-              stmt.setString(1, username);
-              stmt.setString(2, password); // In production, hash this password
-              stmt.executeUpdate();
-              
-              showAlert("Success", "Admin account created successfully!");
-              newUsernameField.clear();
-              newAdminPasswordField.clear();
+      runInBackground(status, "Creating admin...", () -> {
+          try (Connection conn = DatabaseConnection.getConnection()) {
+              String sql = "INSERT INTO admin_users (id, username, password_hash, is_active) VALUES (?, ?, ?, 1)";
+              try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                  stmt.setInt(1, IdAllocator.ADMINS.next(conn));
+                  stmt.setString(2, username);
+                  stmt.setString(3, PasswordHasher.DEFAULT.hash(password));
+                  return stmt.executeUpdate();
+              }
           }
-      } catch (SQLException ex) {
-          if (ex.getMessage().contains("unique constraint")) {
+      }, inserted -> {
+          showAlert("Success", "Admin account created successfully!");
+          newUsernameField.clear();
+          newAdminPasswordField.clear();
+      }, ex -> {
+          if (ex.getMessage() != null && ex.getMessage().contains("unique constraint")) {
               showAlert("Error", "Username already exists!");
           } else {
               showAlert("Error", "Failed to create admin: " + ex.getMessage());
           }
+      }, createAdminBtn);
+  });
+  
+  // Bulk menu import section
+  Label importMenuLabel = new Label("Import Menu");
+  importMenuLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
+  
+  TextField batchSizeField = new TextField(String.valueOf(MenuImporter.DEFAULT_BATCH_SIZE));
+  batchSizeField.setPrefColumnCount(6);
+  
+  Button importMenuBtn = new Button("Import Menu File...");
+  importMenuBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
+  
+  importMenuBtn.setOnAction(e -> {
+      int batchSize;
+      try {
+          batchSize = Integer.parseInt(batchSizeField.getText().trim());
+      } catch (NumberFormatException ex) {
+          batchSize = 0;
+      }
+      if (batchSize < 1) {
+          showAlert("Error", "Batch size must be a positive whole number!");
+          return;
       }
+      
+      FileChooser chooser = new FileChooser();
+      chooser.setTitle("Import Menu");
+      chooser.getExtensionFilters().addAll(
+          new FileChooser.ExtensionFilter("Menu files (CSV, JSON)", "*.csv", "*.json"),
+          new FileChooser.ExtensionFilter("All files", "*.*"));
+      File file = chooser.showOpenDialog(layout.getScene().getWindow());
+      if (file == null) {
+          return;
+      }
+      
+      MenuImporter importer = new MenuImporter(store.menu(), batchSize);
+      runInBackground(status, "Importing menu...", () -> importer.importFile(file.toPath()), result -> {
+          StringBuilder report = new StringBuilder(result.toString());
+          if (!result.errors().isEmpty()) {
+              report.append("\n\nRejected rows");
+              if (result.errors().size() < result.rejected()) {
+                  report.append(" (first ").append(result.errors().size()).append(")");
+              }
+              report.append(":");
+              result.errors().forEach(error -> report.append("\n").append(error));
+          }
+          showAlert(result.rejected() == 0 ? "Success" : "Import Finished", report.toString());
+      }, ex -> showAlert("Error", "Menu import failed: " + ex.getMessage()), importMenuBtn);
   });
   
+  HBox importControls = new HBox(10, new Label("Batch size:"), batchSizeField, importMenuBtn);
+  importControls.setAlignment(Pos.CENTER_LEFT);
+  
   layout.getChildren().addAll(titleLabel,
       changePasswordLabel,
       new Label("Current Username:"), currentUsernameField,
@@ -426,7 +589,11 @@ private VBox createAdminSettingsPane() {
       createAdminLabel,
       new Label("Username:"), newUsernameField,
       new Label("Password:"), newAdminPasswordField,
-      createAdminBtn);
+      createAdminBtn,
+      new Separator(),
+      importMenuLabel,
+      importControls,
+      status);
   
   return layout;
 }
@@ -449,6 +616,8 @@ private VBox createAdminSettingsPane() {
      resultArea.setEditable(false);
      resultArea.setPrefRowCount(5);
      
+     QueryStatusBar status = QueryStatusBar.create();
+     
      registerBtn.setOnAction(e -> {
          String name = nameField.getText().trim();
          if (name.isEmpty()) {
@@ -456,39 +625,25 @@ private VBox createAdminSettingsPane() {
              return;
          }
          
-         try (Connection conn = DatabaseConnection.getConnection()) {
-             String sql = "INSERT INTO customers (id, name) VALUES (customer_seq.NEXTVAL, ?)";
-             try (PreparedStatement stmt = conn.prepareStatement(sql, new String[]{"id"})) {
-                 stmt.setString(1, name);
-                 stmt.executeUpdate();
-                 
-                 try (ResultSet rs = stmt.getGeneratedKeys()) {
-                     if (rs.next()) {
-                         int customerId = rs.getInt(1);
-                         showWelcomeMessage("Registration Successful", 
-                                 "Welcome to our Restaurant, " + name + "!\n\n" +
-                                 "Your registration has been completed successfully.\n" +
-                                 "Your Customer ID is: " + customerId + "\n\n" +
-                                 "Please remember your Customer ID as you'll need it to:\n" +
-                                 "• Place orders\n" +
-                                 "• Book tables\n" +
-                                 "• Make payments\n" +
-                                 "• Provide feedback\n\n" +
-                                 "Thank you for choosing our restaurant!");
-                             
-                             resultArea.setText("Registration successful!\nYour Customer ID is: " + customerId);
-                             nameField.clear();
-                         
-             }
-                 }
-             }
-         } catch (SQLException ex) {
-             resultArea.setText("Registration failed: " + ex.getMessage());
-         }
+         runInBackground(status, "Registering...", () -> store.customers().register(name), customerId -> {
+             showWelcomeMessage("Registration Successful",
+                     "Welcome to our Restaurant, " + name + "!\n\n" +
+                     "Your registration has been completed successfully.\n" +
+                     "Your Customer ID is: " + customerId + "\n\n" +
+                     "Please remember your Customer ID as you'll need it to:\n" +
+                     "• Place orders\n" +
+                     "• Book tables\n" +
+                     "• Make payments\n" +
+                     "• Provide feedback\n\n" +
+                     "Thank you for choosing our restaurant!");
+             
+             resultArea.setText("Registration successful!\nYour Customer ID is: " + customerId);
+             nameField.clear();
+         }, ex -> resultArea.setText("Registration failed: " + ex.getMessage()), registerBtn);
      });
      
-     layout.getChildren().addAll(titleLabel, 
-         new Label("Name:"), nameField, registerBtn, resultArea);
+     layout.getChildren().addAll(titleLabel,
+         new Label("Name:"), nameField, registerBtn, resultArea, status);
      
      return layout;
  }
@@ -509,8 +664,8 @@ private VBox createAdminSettingsPane() {
 	    
 	    welcomeAlert.showAndWait();
 	}
- 
- 
+	
+	
  private VBox createMenuPane() {
      VBox layout = new VBox(15);
      layout.setPadding(new Insets(20));
@@ -524,34 +679,29 @@ private VBox createAdminSettingsPane() {
      Button refreshBtn = new Button("Refresh Menu");
      refreshBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
      
-     refreshBtn.setOnAction(e -> loadMenu(menuListView));
+     QueryStatusBar status = QueryStatusBar.create();
+     
+     refreshBtn.setOnAction(e -> {
+         MenuCatalog.invalidateAll();
+         loadMenu(menuListView, status);
+     });
      
      // Load menu initially
-     loadMenu(menuListView);
+     loadMenu(menuListView, status);
      
-     layout.getChildren().addAll(titleLabel, menuListView, refreshBtn);
+     layout.getChildren().addAll(titleLabel, menuListView, refreshBtn, status);
      return layout;
  }
  
- private void loadMenu(ListView<String> menuListView) {
-     ObservableList<String> menuItems = FXCollections.observableArrayList();
-     
-     try (Connection conn = DatabaseConnection.getConnection()) {
-         String sql = "SELECT id, name, price FROM menu_items ORDER BY price";
-         try (PreparedStatement stmt = conn.prepareStatement(sql);
-              ResultSet rs = stmt.executeQuery()) {
-             
-             while (rs.next()) {
-                 String item = String.format("ID: %d | %s | Price: ₹%.2f", 
-                     rs.getInt("id"), rs.getString("name"), rs.getDouble("price"));
-                 menuItems.add(item);
-             }
+ private void loadMenu(ListView<String> menuListView, QueryStatusBar status) {
+     runInBackground(status, "Loading menu...", () -> {
+         List<String> menuItems = new ArrayList<>();
+         for (MenuItem item : MenuCatalog.getInstance().itemsByPrice()) {
+             menuItems.add(String.format("ID: %d | %s | Price: ₹%.2f", item.id(), item.name(), item.price()));
          }
-     } catch (SQLException e) {
-         menuItems.add("Error loading menu: " + e.getMessage());
-     }
-     
-     menuListView.setItems(menuItems);
+         return menuItems;
+     }, menuItems -> menuListView.setItems(FXCollections.observableArrayList(menuItems)),
+        ex -> menuListView.setItems(FXCollections.observableArrayList("Error loading menu: " + ex.getMessage())));
  }
  
  private VBox createOrderPane() {
@@ -561,12 +711,14 @@ private VBox createAdminSettingsPane() {
      Label titleLabel = new Label("Place Order");
      titleLabel.setStyle("-fx-font-size: 20px; -fx-font-weight: bold;");
      
+     QueryStatusBar status = QueryStatusBar.create();
+     
      TextField customerIdField = new TextField();
      customerIdField.setPromptText("Enter Customer ID");
      
      ListView<String> menuListView = new ListView<>();
      menuListView.setPrefHeight(200);
-     loadMenu(menuListView);
+     loadMenu(menuListView, status);
      
      TextField itemIdField = new TextField();
      itemIdField.setPromptText("Enter Item ID");
@@ -575,8 +727,15 @@ private VBox createAdminSettingsPane() {
      quantityField.setPromptText("Quantity");
      quantityField.setText("1");
      
-     ListView<String> orderItemsListView = new ListView<>();
+     ListView<OrderLine> orderItemsListView = new ListView<>();
      orderItemsListView.setPrefHeight(150);
+     orderItemsListView.setCellFactory(list -> new ListCell<>() {
+         @Override
+         protected void updateItem(OrderLine line, boolean empty) {
+             super.updateItem(line, empty);
+             setText(empty || line == null ? null : line.description());
+         }
+     });
      
      Button addItemBtn = new Button("Add Item");
      Button placeOrderBtn = new Button("Place Order");
@@ -584,109 +743,59 @@ private VBox createAdminSettingsPane() {
      addItemBtn.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white;");
      placeOrderBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
      
-     ObservableList<String> orderItems = FXCollections.observableArrayList();
+     ObservableList<OrderLine> orderItems = FXCollections.observableArrayList();
      orderItemsListView.setItems(orderItems);
      
      addItemBtn.setOnAction(e -> {
+         int itemId;
+         int quantity;
          try {
-             int itemId = Integer.parseInt(itemIdField.getText().trim());
-             int quantity = Integer.parseInt(quantityField.getText().trim());
-             
-             try (Connection conn = DatabaseConnection.getConnection()) {
-                 String sql = "SELECT name, price FROM menu_items WHERE id = ?";
-                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                     stmt.setInt(1, itemId);
-                     try (ResultSet rs = stmt.executeQuery()) {
-                         if (rs.next()) {
-                             String itemText = String.format("%s (Qty: %d) - ₹%.2f", 
-                                 rs.getString("name"), quantity, rs.getDouble("price") * quantity);
-                             orderItems.add(itemId + ":" + quantity + ":" + itemText);
-                             itemIdField.clear();
-                             quantityField.setText("1");
-                         } else {
-                             showAlert("Error", "Item not found!");
-                         }
-                     }
-                 }
-             }
-         } catch (Exception ex) {
+             itemId = Integer.parseInt(itemIdField.getText().trim());
+             quantity = Integer.parseInt(quantityField.getText().trim());
+         } catch (NumberFormatException ex) {
              showAlert("Error", "Invalid input: " + ex.getMessage());
+             return;
          }
+         
+         // Served from the menu catalog; only a cold or expired catalog touches the database
+         runInBackground(status, "Looking up item...", () -> MenuCatalog.getInstance().find(itemId)
+             .map(item -> new OrderLine(itemId, quantity,
+                 String.format("%s (Qty: %d) - ₹%.2f", item.name(), quantity, item.price() * quantity)))
+             .orElse(null), line -> {
+             if (line != null) {
+                 orderItems.add(line);
+                 itemIdField.clear();
+                 quantityField.setText("1");
+             } else {
+                 showAlert("Error", "Item not found!");
+             }
+         }, ex -> showAlert("Error", "Invalid input: " + ex.getMessage()), addItemBtn);
      });
      
      placeOrderBtn.setOnAction(e -> {
+         int customerId;
          try {
-             int customerId = Integer.parseInt(customerIdField.getText().trim());
-             
-             if (orderItems.isEmpty()) {
-                 showAlert("Error", "Please add items to your order!");
-                 return;
-             }
-             
-             try (Connection conn = DatabaseConnection.getConnection()) {
-                 conn.setAutoCommit(false);
-                 
-                 // Insert order
-                 String orderSql = "INSERT INTO orders (order_id, customer_id, total_amount) VALUES (order_seq.NEXTVAL, ?, ?)";
-                 double totalAmount = 0;
-                 
-                 // Calculate total
-                 for (String item : orderItems) {
-                     String[] parts = item.split(":");
-                     int itemId = Integer.parseInt(parts[0]);
-                     int quantity = Integer.parseInt(parts[1]);
-                     
-                     String priceSql = "SELECT price FROM menu_items WHERE id = ?";
-                     try (PreparedStatement priceStmt = conn.prepareStatement(priceSql)) {
-                         priceStmt.setInt(1, itemId);
-                         try (ResultSet rs = priceStmt.executeQuery()) {
-                             if (rs.next()) {
-                                 totalAmount += rs.getDouble("price") * quantity;
-                             }
-                         }
-                     }
-                 }
-                 
-                 int orderId;
-                 try (PreparedStatement orderStmt = conn.prepareStatement(orderSql, new String[]{"order_id"})) {
-                     orderStmt.setInt(1, customerId);
-                     orderStmt.setDouble(2, totalAmount);
-                     orderStmt.executeUpdate();
-                     
-                     try (ResultSet rs = orderStmt.getGeneratedKeys()) {
-                         rs.next();
-                         orderId = rs.getInt(1);
-                     }
-                 }
-                 
-                 // Insert order items
-                 String itemSql = "INSERT INTO order_items (id, order_id, menu_item_id, quantity) VALUES (order_item_seq.NEXTVAL, ?, ?, ?)";
-                 try (PreparedStatement itemStmt = conn.prepareStatement(itemSql)) {
-                     for (String item : orderItems) {
-                         String[] parts = item.split(":");
-                         int itemId = Integer.parseInt(parts[0]);
-                         int quantity = Integer.parseInt(parts[1]);
-                         
-                         itemStmt.setInt(1, orderId);
-                         itemStmt.setInt(2, itemId);
-                         itemStmt.setInt(3, quantity);
-                         itemStmt.executeUpdate();
-                     }
-                 }
-                 
-                 conn.commit();
-                 showAlert("Success", "Order placed successfully!\nOrder ID: " + orderId + "\nTotal: ₹" + totalAmount);
-                 
-                 // Clear form
-                 customerIdField.clear();
-                 orderItems.clear();
-                 
-             } catch (SQLException ex) {
-                 showAlert("Error", "Failed to place order: " + ex.getMessage());
-             }
+             customerId = Integer.parseInt(customerIdField.getText().trim());
          } catch (NumberFormatException ex) {
              showAlert("Error", "Please enter a valid customer ID!");
+             return;
+         }
+         
+         if (orderItems.isEmpty()) {
+             showAlert("Error", "Please add items to your order!");
+             return;
          }
+         
+         // Snapshot the cart so the worker never reads the live ObservableList
+         List<OrderLine> cart = List.copyOf(orderItems);
+         
+         runInBackground(status, "Placing order...", () -> orderService.placeOrder(customerId, cart), placed -> {
+             showAlert("Success", "Order placed successfully!\nOrder ID: " + placed.orderId() + "\nTotal: ₹" + placed.totalAmount() + offlineNote());
+             
+             // Clear form
+             customerIdField.clear();
+             orderItems.clear();
+         }, ex -> showAlert("Error", "Failed to place order: " + ex.getMessage()), placeOrderBtn);
      });
      
      HBox buttonBox = new HBox(10, addItemBtn, placeOrderBtn);
@@ -697,7 +806,8 @@ private VBox createAdminSettingsPane() {
          new Label("Item ID:"), itemIdField,
          new Label("Quantity:"), quantityField,
          buttonBox,
-         new Label("Order Items:"), orderItemsListView);
+         new Label("Order Items:"), orderItemsListView,
+         status);
      
      return layout;
  }
@@ -729,95 +839,72 @@ private VBox createAdminSettingsPane() {
      checkAvailabilityBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
      bookTableBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
      
+     QueryStatusBar status = QueryStatusBar.create();
+     
      checkAvailabilityBtn.setOnAction(e -> {
+         int partySize;
          try {
-             int partySize = Integer.parseInt(partySizeField.getText().trim());
-             if (datePicker.getValue() == null || timeComboBox.getValue() == null) {
-                 showAlert("Error", "Please select date and time!");
-                 return;
-             }
-             
-             LocalDateTime bookingTime = LocalDateTime.of(datePicker.getValue(), 
-                 java.time.LocalTime.parse(timeComboBox.getValue()));
-             
-             ObservableList<String> availableTables = FXCollections.observableArrayList();
-             
-             try (Connection conn = DatabaseConnection.getConnection()) {
-                 String sql = """
-                     SELECT t.table_number, t.capacity 
-                     FROM tables t 
-                     WHERE t.capacity >= ? 
-                     AND t.table_number NOT IN (
-                         SELECT tb.table_number 
-                         FROM table_bookings tb 
-                         WHERE tb.booking_time BETWEEN ? AND ?
-                     )
-                     ORDER BY t.capacity
-                     """;
-                 
-                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                     stmt.setInt(1, partySize);
-                     stmt.setTimestamp(2, Timestamp.valueOf(bookingTime.minusHours(1)));
-                     stmt.setTimestamp(3, Timestamp.valueOf(bookingTime.plusHours(1)));
-                     
-                     try (ResultSet rs = stmt.executeQuery()) {
-                         while (rs.next()) {
-                             availableTables.add("Table " + rs.getInt("table_number") + 
-                                 " (Capacity: " + rs.getInt("capacity") + ")");
-                         }
-                     }
-                 }
+             partySize = Integer.parseInt(partySizeField.getText().trim());
+         } catch (NumberFormatException ex) {
+             showAlert("Error", "Error checking availability: " + ex.getMessage());
+             return;
+         }
+         if (datePicker.getValue() == null || timeComboBox.getValue() == null) {
+             showAlert("Error", "Please select date and time!");
+             return;
+         }
+         
+         LocalDateTime bookingTime = LocalDateTime.of(datePicker.getValue(),
+             java.time.LocalTime.parse(timeComboBox.getValue()));
+         
+         runInBackground(status, "Checking availability...", () -> {
+             List<String> availableTables = new ArrayList<>();
+             for (DiningTable table : store.bookings().findAvailableTables(partySize, bookingTime)) {
+                 availableTables.add("Table " + table.tableNumber() + " (Capacity: " + table.capacity() + ")");
              }
-             
+             return availableTables;
+         }, availableTables -> {
              //if (availableTables.isEmpty()) {
                //  availableTables.add("No tables available for the selected time and party size");
              //}
              
-             availableTablesListView.setItems(availableTables);
-             
-         } catch (Exception ex) {
-             showAlert("Error", "Error checking availability: " + ex.getMessage());
-         }
+             availableTablesListView.setItems(FXCollections.observableArrayList(availableTables));
+         }, ex -> showAlert("Error", "Error checking availability: " + ex.getMessage()), checkAvailabilityBtn);
      });
      
      bookTableBtn.setOnAction(e -> {
+         int customerId;
+         int partySize;
          try {
-             int customerId = Integer.parseInt(customerIdField.getText().trim());
-             int partySize = Integer.parseInt(partySizeField.getText().trim());
-             
-             String selectedTable = availableTablesListView.getSelectionModel().getSelectedItem();
-             if (selectedTable == null || selectedTable.contains("No tables available")) {
-                 showAlert("Error", "Please select an available table!");
-                 return;
-             }
-             
-             int tableNumber = Integer.parseInt(selectedTable.split(" ")[1]);
-             LocalDateTime bookingTime = LocalDateTime.of(datePicker.getValue(), 
-                 java.time.LocalTime.parse(timeComboBox.getValue()));
-             
-             try (Connection conn = DatabaseConnection.getConnection()) {
-                 String sql = "INSERT INTO table_bookings (id, table_number, customer_id, booking_time, party_size) VALUES (booking_seq.NEXTVAL, ?, ?, ?, ?)";
-                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                     stmt.setInt(1, tableNumber);
-                     stmt.setInt(2, customerId);
-                     stmt.setTimestamp(3, Timestamp.valueOf(bookingTime));
-                     stmt.setInt(4, partySize);
-                     stmt.executeUpdate();
-                     
-                     showAlert("Success", "Table booked successfully!\nTable Number: " + tableNumber + 
-                         "\nDate: " + datePicker.getValue() + "\nTime: " + timeComboBox.getValue());
-                     
-                     // Clear form
-                     customerIdField.clear();
-                     partySizeField.clear();
-                     datePicker.setValue(null);
-                     timeComboBox.setValue(null);
-                     availableTablesListView.getItems().clear();
-                 }
-             }
-         } catch (Exception ex) {
+             customerId = Integer.parseInt(customerIdField.getText().trim());
+             partySize = Integer.parseInt(partySizeField.getText().trim());
+         } catch (NumberFormatException ex) {
              showAlert("Error", "Booking failed: " + ex.getMessage());
+             return;
          }
+         
+         String selectedTable = availableTablesListView.getSelectionModel().getSelectedItem();
+         if (selectedTable == null || selectedTable.contains("No tables available")) {
+             showAlert("Error", "Please select an available table!");
+             return;
+         }
+         
+         int tableNumber = Integer.parseInt(selectedTable.split(" ")[1]);
+         LocalDateTime bookingTime = LocalDateTime.of(datePicker.getValue(),
+             java.time.LocalTime.parse(timeComboBox.getValue()));
+         
+         runInBackground(status, "Booking table...",
+             () -> store.bookings().book(tableNumber, customerId, bookingTime, partySize), bookingId -> {
+             showAlert("Success", "Table booked successfully!\nTable Number: " + tableNumber +
+                 "\nDate: " + datePicker.getValue() + "\nTime: " + timeComboBox.getValue() + offlineNote());
+             
+             // Clear form
+             customerIdField.clear();
+             partySizeField.clear();
+             datePicker.setValue(null);
+             timeComboBox.setValue(null);
+             availableTablesListView.getItems().clear();
+         }, ex -> showAlert("Error", "Booking failed: " + ex.getMessage()), bookTableBtn);
      });
      
      HBox buttonBox = new HBox(10, checkAvailabilityBtn, bookTableBtn);
@@ -828,7 +915,8 @@ private VBox createAdminSettingsPane() {
          new Label("Date:"), datePicker,
          new Label("Time:"), timeComboBox,
          buttonBox,
-         new Label("Available Tables:"), availableTablesListView);
+         new Label("Available Tables:"), availableTablesListView,
+         status);
      
      return layout;
  }
@@ -856,116 +944,80 @@ private VBox createAdminSettingsPane() {
      checkOrderBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
      makePaymentBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
      
+     QueryStatusBar status = QueryStatusBar.create();
+     
+
      checkOrderBtn.setOnAction(e -> {
+         int orderId;
          try {
-             int orderId = Integer.parseInt(orderIdField.getText().trim());
-             
-             try (Connection conn = DatabaseConnection.getConnection()) {
-                 String sql = """
-                     SELECT o.order_id, o.customer_id, c.name, o.total_amount, o.is_paid, o.order_time
-                     FROM orders o
-                     JOIN customers c ON o.customer_id = c.id
-                     WHERE o.order_id = ?
-                     """;
+             orderId = Integer.parseInt(orderIdField.getText().trim());
+         } catch (NumberFormatException ex) {
+             orderDetailsArea.setText("Error: " + ex.getMessage());
+             return;
+         }
+         
+         runInBackground(status, "Looking up order...", () -> orderDetails.find(orderId), found -> {
+             if (found.isPresent()) {
+                 OrderDetails order = found.get();
+                 StringBuilder details = new StringBuilder();
+                 details.append("Order ID: ").append(order.orderId()).append("\n");
+                 details.append("Customer: ").append(order.customerName()).append("\n");
+                 details.append("Order Time: ").append(Timestamp.valueOf(order.orderTime())).append("\n");
+                 details.append("Total Amount: ₹").append(order.totalAmount()).append("\n");
+                 details.append("Payment Status: ").append(order.paid() ? "Paid" : "Pending").append("\n\n");
+                 details.append("Items:\n");
+                 for (OrderDetails.Item item : order.items()) {
+                     details.append("- ").append(item.name())
+                         .append(" (Qty: ").append(item.quantity())
+                         .append(") - ₹").append(item.price()).append("\n");
+                 }
+                 orderDetailsArea.setText(details.toString());
                  
-                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                     stmt.setInt(1, orderId);
-                     try (ResultSet rs = stmt.executeQuery()) {
-                         if (rs.next()) {
-                             StringBuilder details = new StringBuilder();
-                             details.append("Order ID: ").append(rs.getInt("order_id")).append("\n");
-                             details.append("Customer: ").append(rs.getString("name")).append("\n");
-                             details.append("Order Time: ").append(rs.getTimestamp("order_time")).append("\n");
-                             details.append("Total Amount: ₹").append(rs.getDouble("total_amount")).append("\n");
-                             details.append("Payment Status: ").append(rs.getInt("is_paid") == 1 ? "Paid" : "Pending").append("\n\n");
-                             
-                             // Get order items
-                             String itemsSql = """
-                                 SELECT mi.name, oi.quantity, mi.price
-                                 FROM order_items oi
-                                 JOIN menu_items mi ON oi.menu_item_id = mi.id
-                                 WHERE oi.order_id = ?
-                                 """;
-                             
-                             try (PreparedStatement itemsStmt = conn.prepareStatement(itemsSql)) {
-                                 itemsStmt.setInt(1, orderId);
-                                 try (ResultSet itemsRs = itemsStmt.executeQuery()) {
-                                     details.append("Items:\n");
-                                     while (itemsRs.next()) {
-                                         details.append("- ").append(itemsRs.getString("name"))
-                                             .append(" (Qty: ").append(itemsRs.getInt("quantity"))
-                                             .append(") - ₹").append(itemsRs.getDouble("price")).append("\n");
-                                     }
-                                 }
-                             }
-                             
-                             orderDetailsArea.setText(details.toString());
-                             
-                             if (rs.getInt("is_paid") == 1) {
-                                 makePaymentBtn.setDisable(true);
-                                 makePaymentBtn.setText("Already Paid");
-                             } else {
-                                 makePaymentBtn.setDisable(false);
-                                 makePaymentBtn.setText("Make Payment");
-                             }
-                         } else {
-                             orderDetailsArea.setText("Order not found!");
-                             makePaymentBtn.setDisable(true);
-                         }
-                     }
+                 if (order.paid()) {
+                     makePaymentBtn.setDisable(true);
+                     makePaymentBtn.setText("Already Paid");
+                 } else {
+                     makePaymentBtn.setDisable(false);
+                     makePaymentBtn.setText("Make Payment");
                  }
+             } else {
+                 orderDetailsArea.setText("Order not found!");
+                 makePaymentBtn.setDisable(true);
              }
-         } catch (Exception ex) {
-             orderDetailsArea.setText("Error: " + ex.getMessage());
-         }
+         }, ex -> orderDetailsArea.setText("Error: " + ex.getMessage()), checkOrderBtn);
      });
      
      makePaymentBtn.setOnAction(e -> {
+         int orderId;
+         double paymentAmount;
          try {
-             int orderId = Integer.parseInt(orderIdField.getText().trim());
-             double paymentAmount = Double.parseDouble(paymentAmountField.getText().trim());
-             
-             try (Connection conn = DatabaseConnection.getConnection()) {
-                 // Get order total
-                 String checkSql = "SELECT total_amount, is_paid FROM orders WHERE order_id = ?";
-                 try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                     checkStmt.setInt(1, orderId);
-                     try (ResultSet rs = checkStmt.executeQuery()) {
-                         if (rs.next()) {
-                             double totalAmount = rs.getDouble("total_amount");
-                             int isPaid = rs.getInt("is_paid");
-                             
-                             if (isPaid == 1) {
-                                 showAlert("Info", "Order is already paid!");
-                                 return;
-                             }
-                             
-                             if (paymentAmount >= totalAmount) {
-                                 // Update payment status
-                                 String updateSql = "UPDATE orders SET is_paid = 1 WHERE order_id = ?";
-                                 try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                                     updateStmt.setInt(1, orderId);
-                                     updateStmt.executeUpdate();
-                                     
-                                     double change = paymentAmount - totalAmount;
-                                     showAlert("Success", "Payment successful!\nChange: ₹" + String.format("%.2f", change));
-                                     
-                                     // Clear form
-                                     orderIdField.clear();
-                                     paymentAmountField.clear();
-                                     orderDetailsArea.clear();
-                                     makePaymentBtn.setDisable(true);
-                                 }
-                             } else {
-                                 showAlert("Error", "Insufficient payment!\nRequired: ₹" + totalAmount + "\nProvided: ₹" + paymentAmount);
-                             }
-                         }
-                     }
-                 }
-             }
-         } catch (Exception ex) {
+             orderId = Integer.parseInt(orderIdField.getText().trim());
+             paymentAmount = Double.parseDouble(paymentAmountField.getText().trim());
+         } catch (NumberFormatException ex) {
              showAlert("Error", "Payment failed: " + ex.getMessage());
+             return;
          }
+         
+         // One conditional update settles the order, so two tills paying it at once can't both succeed
+         runInBackground(status, "Processing payment...", () -> orderDetails.settle(orderId, paymentAmount), outcome -> {
+             switch (outcome.result()) {
+                 case NOT_FOUND -> {
+                     return;
+                 }
+                 case ALREADY_PAID -> showAlert("Info", "Order is already paid!");
+                 case SETTLED -> {
+                     double change = paymentAmount - outcome.totalAmount();
+                     showAlert("Success", "Payment successful!\nChange: ₹" + String.format("%.2f", change) + offlineNote());
+                     
+                     // Clear form
+                     orderIdField.clear();
+                     paymentAmountField.clear();
+                     orderDetailsArea.clear();
+                     makePaymentBtn.setDisable(true);
+                 }
+                 case INSUFFICIENT -> showAlert("Error", "Insufficient payment!\nRequired: ₹" + outcome.totalAmount() + "\nProvided: ₹" + paymentAmount);
+             }
+         }, ex -> showAlert("Error", "Payment failed: " + ex.getMessage()));
      });
      
      HBox buttonBox = new HBox(10, checkOrderBtn, makePaymentBtn);
@@ -974,7 +1026,8 @@ private VBox createAdminSettingsPane() {
          new Label("Order ID:"), orderIdField,
          buttonBox,
          new Label("Order Details:"), orderDetailsArea,
-         new Label("Payment Amount:"), paymentAmountField);
+         new Label("Payment Amount:"), paymentAmountField,
+         status);
      
      return layout;
  }
@@ -1000,43 +1053,43 @@ private VBox createAdminSettingsPane() {
      Button submitBtn = new Button("Submit Feedback");
      submitBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
      
+     QueryStatusBar status = QueryStatusBar.create();
+     
      submitBtn.setOnAction(e -> {
+         int customerId;
          try {
-             int customerId = Integer.parseInt(customerIdField.getText().trim());
-             String comments = commentArea.getText().trim();
-             Integer rating = ratingComboBox.getValue();
-             
-             if (comments.isEmpty() || rating == null) {
-                 showAlert("Error", "Please provide both comments and rating!");
-                 return;
-             }
-             
-             try (Connection conn = DatabaseConnection.getConnection()) {
-                 String sql = "INSERT INTO feedback (id, customer_id, comments, rating) VALUES (feedback_seq.NEXTVAL, ?, ?, ?)";
-                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                     stmt.setInt(1, customerId);
-                     stmt.setString(2, comments);
-                     stmt.setInt(3, rating);
-                     stmt.executeUpdate();
-                     
-                     showAlert("Success", "Thank you for your feedback!");
-                     
-                     // Clear form
-                     customerIdField.clear();
-                     commentArea.clear();
-                     ratingComboBox.setValue(null);
-                 }
-             }
-         } catch (Exception ex) {
+             customerId = Integer.parseInt(customerIdField.getText().trim());
+         } catch (NumberFormatException ex) {
              showAlert("Error", "Failed to submit feedback: " + ex.getMessage());
+             return;
+         }
+         String comments = commentArea.getText().trim();
+         Integer rating = ratingComboBox.getValue();
+         
+         if (comments.isEmpty() || rating == null) {
+             showAlert("Error", "Please provide both comments and rating!");
+             return;
          }
+         
+         runInBackground(status, "Submitting feedback...", () -> {
+             store.feedback().submit(customerId, comments, rating);
+             return null;
+         }, submitted -> {
+             showAlert("Success", "Thank you for your feedback!");
+             
+             // Clear form
+             customerIdField.clear();
+             commentArea.clear();
+             ratingComboBox.setValue(null);
+         }, ex -> showAlert("Error", "Failed to submit feedback: " + ex.getMessage()), submitBtn);
      });
      
      layout.getChildren().addAll(titleLabel,
          new Label("Customer ID:"), customerIdField,
          new Label("Comment:"), commentArea,
          new Label("Rating:"), ratingComboBox,
-         submitBtn);
+         submitBtn,
+         status);
      
      return layout;
  }
@@ -1055,8 +1108,8 @@ private VBox createAdminSettingsPane() {
      countLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 16px;");
      countBox.getChildren().addAll(totalCustomersLabel, countLabel);
      
-     // Customer list
-     ListView<String> customerListView = new ListView<>();
+     // Customer list, fetched a page at a time as it scrolls
+     ListView<Customer> customerListView = new ListView<>();
      customerListView.setPrefHeight(300);
      
      // Update customer section
@@ -1072,80 +1125,125 @@ private VBox createAdminSettingsPane() {
      refreshBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
      updateBtn.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white;");
      
-     refreshBtn.setOnAction(e -> loadCustomers(customerListView, countLabel));
+     QueryStatusBar status = QueryStatusBar.create();
+     
+     KeysetPager<Customer, Integer> customerPager = new KeysetPager<>(
+         (afterId, limit) -> store.customers().findPage(afterId, limit), Customer::id, 0, CUSTOMER_PAGE_SIZE, status);
+     customerPager.attach(customerListView, customer -> String.format("ID: %d | Name: %s | Table: %s | Booking: %s",
+         customer.id(),
+         customer.name(),
+         customer.tableNo() != null ? customer.tableNo().toString() : "None",
+         customer.bookingTime() != null ? Timestamp.valueOf(customer.bookingTime()).toString() : "None"));
+     
+     refreshBtn.setOnAction(e -> loadCustomers(customerPager, countLabel, status));
+     
+     // Search as you type; while there is a query its matches replace the full list
+     TextField searchField = new TextField();
+     searchField.setPromptText("Search by name or ID");
+     
+     ListView<CustomerNameIndex.Match> searchResultsView = new ListView<>();
+     searchResultsView.setPrefHeight(300);
+     searchResultsView.setVisible(false);
+     searchResultsView.setManaged(false);
+     searchResultsView.setCellFactory(list -> new ListCell<>() {
+         @Override
+         protected void updateItem(CustomerNameIndex.Match match, boolean empty) {
+             super.updateItem(match, empty);
+             setText(empty || match == null ? null : String.format("ID: %d | Name: %s", match.customerId(), match.name()));
+         }
+     });
      
-     updateBtn.setOnAction(e -> {
-         try {
-             int customerId = Integer.parseInt(customerIdField.getText().trim());
-             String newName = newNameField.getText().trim();
-             
-             if (newName.isEmpty()) {
-                 showAlert("Error", "Please enter a new name!");
-                 return;
+     // Replies can arrive out of order; only the one for the current text is shown
+     AtomicReference<String> latestQuery = new AtomicReference<>("");
+     searchField.textProperty().addListener((obs, oldText, text) -> {
+         String query = text.trim();
+         latestQuery.set(query);
+         boolean searching = !query.isEmpty();
+         searchResultsView.setVisible(searching);
+         searchResultsView.setManaged(searching);
+         customerListView.setVisible(!searching);
+         customerListView.setManaged(!searching);
+         if (!searching) {
+             searchResultsView.getItems().clear();
+             return;
+         }
+         runInBackground(status, "Searching customers...", () -> store.searchCustomers(query, CUSTOMER_SEARCH_LIMIT), matches -> {
+             if (query.equals(latestQuery.get())) {
+                 searchResultsView.getItems().setAll(matches);
              }
-             
-             try (Connection conn = DatabaseConnection.getConnection()) {
-                 String sql = "UPDATE customers SET name = ? WHERE id = ?";
-                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                     stmt.setString(1, newName);
-                     stmt.setInt(2, customerId);
-                     int updated = stmt.executeUpdate();
-                     
-                     if (updated > 0) {
-                         showAlert("Success", "Customer updated successfully!");
-                         customerIdField.clear();
-                         newNameField.clear();
-                         loadCustomers(customerListView, countLabel);
-                     } else {
-                         showAlert("Error", "Customer not found!");
-                     }
-                 }
+         }, ex -> status.showError("Search failed: " + ex.getMessage()));
+     });
+     
+     // Picking a match fills in the id for the update form
+     searchResultsView.getSelectionModel().selectedItemProperty().addListener((obs, oldMatch, match) -> {
+         if (match != null) {
+             customerIdField.setText(String.valueOf(match.customerId()));
+         }
+     });
+     
+     // New registrations join the list in place; the count is one SELECT COUNT(*)
+     subscribeWhileShowing(layout, Set.of(DomainEvent.CustomerRegistered.class), events -> {
+         for (DomainEvent event : events) {
+             if (event instanceof DomainEvent.CustomerRegistered registered) {
+                 customerPager.insert(new Customer(registered.customerId(), registered.name(), null, null),
+                     Comparator.comparingInt(Customer::id));
              }
-         } catch (Exception ex) {
+         }
+         countCustomers(countLabel, status);
+     }, () -> loadCustomers(customerPager, countLabel, status));
+     
+     updateBtn.setOnAction(e -> {
+         int customerId;
+         try {
+             customerId = Integer.parseInt(customerIdField.getText().trim());
+         } catch (NumberFormatException ex) {
              showAlert("Error", "Update failed: " + ex.getMessage());
+             return;
+         }
+         String newName = newNameField.getText().trim();
+         
+         if (newName.isEmpty()) {
+             showAlert("Error", "Please enter a new name!");
+             return;
          }
+         
+         runInBackground(status, "Updating customer...", () -> store.customers().rename(customerId, newName), updated -> {
+             if (updated) {
+                 showAlert("Success", "Customer updated successfully!");
+                 customerIdField.clear();
+                 newNameField.clear();
+                 loadCustomers(customerPager, countLabel, status);
+             } else {
+                 showAlert("Error", "Customer not found!");
+             }
+         }, ex -> showAlert("Error", "Update failed: " + ex.getMessage()), updateBtn);
      });
      
      HBox buttonBox = new HBox(10, refreshBtn, updateBtn);
      
      // Load customers initially
-     loadCustomers(customerListView, countLabel);
+     loadCustomers(customerPager, countLabel, status);
      
      layout.getChildren().addAll(titleLabel, countBox,
-         new Label("Customers:"), customerListView,
+         new Label("Customers:"), searchField, customerListView, searchResultsView,
          new Label("Update Customer:"),
          new Label("Customer ID:"), customerIdField,
          new Label("New Name:"), newNameField,
-         buttonBox);
+         buttonBox,
+         status);
      
      return layout;
  }
  
- private void loadCustomers(ListView<String> customerListView, Label countLabel) {
-     ObservableList<String> customers = FXCollections.observableArrayList();
-     
-     try (Connection conn = DatabaseConnection.getConnection()) {
-         String sql = "SELECT id, name, table_no, booking_time FROM customers ORDER BY id";
-         try (PreparedStatement stmt = conn.prepareStatement(sql);
-              ResultSet rs = stmt.executeQuery()) {
-             
-             int count = 0;
-             while (rs.next()) {
-                 count++;
-                 String customer = String.format("ID: %d | Name: %s | Table: %s | Booking: %s",
-                     rs.getInt("id"),
-                     rs.getString("name"),
-                     rs.getObject("table_no") != null ? rs.getString("table_no") : "None",
-                     rs.getTimestamp("booking_time") != null ? rs.getTimestamp("booking_time").toString() : "None");
-                 customers.add(customer);
-             }
-             countLabel.setText(String.valueOf(count));
-         }
-     } catch (SQLException e) {
-         customers.add("Error loading customers: " + e.getMessage());
-     }
-     
-     customerListView.setItems(customers);
+ private void loadCustomers(KeysetPager<Customer, Integer> customerPager, Label countLabel, QueryStatusBar status) {
+     customerPager.reset();
+     countCustomers(countLabel, status);
+ }
+ 
+ private void countCustomers(Label countLabel, QueryStatusBar status) {
+     runInBackground(status, "Counting customers...", store::countCustomers,
+         count -> countLabel.setText(String.valueOf(count)),
+         ex -> countLabel.setText("?"));
  }
  
  private VBox createTableManagementPane() {
@@ -1165,63 +1263,66 @@ private VBox createAdminSettingsPane() {
      Button checkStatusBtn = new Button("Check Table Status");
      checkStatusBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
      
+     QueryStatusBar status = QueryStatusBar.create();
+     
+     // The time whose status is on screen, null until the first check
+     AtomicReference<LocalDateTime> shownTime = new AtomicReference<>();
+     
+     Consumer<LocalDateTime> loadStatus = checkTime -> {
+         shownTime.set(checkTime);
+         runInBackground(status, "Loading table status...", () -> {
+             List<String> tableStatus = new ArrayList<>();
+             for (BookingRepository.TableStatus table : store.bookings().findTableStatus(checkTime)) {
+                 String tableLine = String.format("Table %d (Capacity: %d) - %s",
+                     table.tableNumber(), table.capacity(), table.booked() ? "Booked" : "Available");
+                 
+                 if (table.booked()) {
+                     tableLine += String.format(" by %s (Party: %d)", table.customerName(), table.partySize());
+                 }
+                 
+                 tableStatus.add(tableLine);
+             }
+             return tableStatus;
+         }, tableStatus -> tableStatusListView.setItems(FXCollections.observableArrayList(tableStatus)),
+            ex -> tableStatusListView.setItems(FXCollections.observableArrayList("Error loading table status: " + ex.getMessage())),
+            checkStatusBtn);
+     };
+     
      checkStatusBtn.setOnAction(e -> {
          if (datePicker.getValue() == null || timeComboBox.getValue() == null) {
              showAlert("Error", "Please select date and time!");
              return;
          }
          
-         LocalDateTime checkTime = LocalDateTime.of(datePicker.getValue(), 
-             java.time.LocalTime.parse(timeComboBox.getValue()));
-         
-         ObservableList<String> tableStatus = FXCollections.observableArrayList();
-         
-         try (Connection conn = DatabaseConnection.getConnection()) {
-             String sql = """
-                 SELECT t.table_number, t.capacity,
-                        CASE WHEN tb.table_number IS NOT NULL THEN 'Booked' ELSE 'Available' END as status,
-                        c.name as customer_name,
-                        tb.party_size
-                 FROM tables t
-                 LEFT JOIN table_bookings tb ON t.table_number = tb.table_number 
-                     AND tb.booking_time BETWEEN ? AND ?
-                 LEFT JOIN customers c ON tb.customer_id = c.id
-                 ORDER BY t.table_number
-                 """;
-             
-             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                 stmt.setTimestamp(1, Timestamp.valueOf(checkTime.minusMinutes(30)));
-                 stmt.setTimestamp(2, Timestamp.valueOf(checkTime.plusMinutes(30)));
-                 
-                 try (ResultSet rs = stmt.executeQuery()) {
-                     while (rs.next()) {
-                         String status = String.format("Table %d (Capacity: %d) - %s",
-                             rs.getInt("table_number"),
-                             rs.getInt("capacity"),
-                             rs.getString("status"));
-                         
-                         if ("Booked".equals(rs.getString("status"))) {
-                             status += String.format(" by %s (Party: %d)",
-                                 rs.getString("customer_name"),
-                                 rs.getInt("party_size"));
-                         }
-                         
-                         tableStatus.add(status);
-                     }
-                 }
+         loadStatus.accept(LocalDateTime.of(datePicker.getValue(), java.time.LocalTime.parse(timeComboBox.getValue())));
+     });
+     
+     // Served from the occupancy index, so re-reading is cheap; only bookings that overlap
+     // the time on screen trigger it
+     subscribeWhileShowing(layout, Set.of(DomainEvent.BookingCreated.class), events -> {
+         LocalDateTime checkTime = shownTime.get();
+         if (checkTime == null) {
+             return;
+         }
+         for (DomainEvent event : events) {
+             if (event instanceof DomainEvent.BookingCreated booking
+                     && Duration.between(booking.bookingTime(), checkTime).abs().compareTo(TableOccupancyIndex.TURNOVER) <= 0) {
+                 loadStatus.accept(checkTime);
+                 return;
              }
-         } catch (SQLException ex) {
-             tableStatus.add("Error loading table status: " + ex.getMessage());
          }
-         
-         tableStatusListView.setItems(tableStatus);
+     }, () -> {
+         if (shownTime.get() != null) {
+             loadStatus.accept(shownTime.get());
+         }
      });
      
      layout.getChildren().addAll(titleLabel,
          new Label("Select Date:"), datePicker,
          new Label("Select Time:"), timeComboBox,
          checkStatusBtn,
-         new Label("Table Status:"), tableStatusListView);
+         new Label("Table Status:"), tableStatusListView,
+         status);
      
      return layout;
  }
@@ -1233,7 +1334,13 @@ private VBox createAdminSettingsPane() {
      Label titleLabel = new Label("Payment Records");
      titleLabel.setStyle("-fx-font-size: 20px; -fx-font-weight: bold;");
      
-     ListView<String> paymentListView = new ListView<>();
+     // Last 30 days by default, both ends inclusive as dates
+     DatePicker fromPicker = new DatePicker(LocalDate.now().minusDays(30));
+     DatePicker toPicker = new DatePicker(LocalDate.now());
+     HBox rangeBox = new HBox(10, new Label("From:"), fromPicker, new Label("To:"), toPicker);
+     rangeBox.setAlignment(Pos.CENTER_LEFT);
+     
+     ListView<PaymentRecord> paymentListView = new ListView<>();
      paymentListView.setPrefHeight(400);
      
      Label totalRevenueLabel = new Label("Total Revenue: ₹0.00");
@@ -1242,51 +1349,68 @@ private VBox createAdminSettingsPane() {
      Button refreshBtn = new Button("Refresh Records");
      refreshBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
      
-     refreshBtn.setOnAction(e -> loadPaymentRecords(paymentListView, totalRevenueLabel));
+     QueryStatusBar status = QueryStatusBar.create();
+     
+     // Set on the FX thread before each reset; pages read whichever range was current then
+     AtomicReference<DateRange> range = new AtomicReference<>();
+     KeysetPager<PaymentRecord, PaymentRepository.Cursor> paymentPager = new KeysetPager<>(
+         (after, limit) -> store.payments().findPaidOrders(range.get().from(), range.get().to(), after, limit),
+         record -> new PaymentRepository.Cursor(record.orderTime(), record.orderId()), null, PAYMENT_PAGE_SIZE, status);
+     paymentPager.attach(paymentListView, record -> String.format("Order ID: %d | Customer: %s | Amount: ₹%.2f | Date: %s",
+         record.orderId(),
+         record.customerName(),
+         record.amount(),
+         Timestamp.valueOf(record.orderTime()).toString()));
+     
+     refreshBtn.setOnAction(e -> loadPaymentRecords(paymentPager, range, fromPicker, toPicker, totalRevenueLabel, status, refreshBtn));
+     
+     // Same order as findPaidOrders: newest first, ties by order id
+     Comparator<PaymentRecord> newestFirst = Comparator.comparing(PaymentRecord::orderTime)
+         .thenComparingInt(PaymentRecord::orderId).reversed();
+     subscribeWhileShowing(layout, Set.of(DomainEvent.OrderPaid.class), events -> {
+         DateRange shown = range.get();
+         boolean inRange = false;
+         for (DomainEvent event : events) {
+             if (event instanceof DomainEvent.OrderPaid paid && shown != null
+                     && !paid.orderTime().isBefore(shown.from()) && paid.orderTime().isBefore(shown.to())) {
+                 paymentPager.insert(new PaymentRecord(paid.orderId(), paid.customerName(), paid.amount(), paid.orderTime()), newestFirst);
+                 inRange = true;
+             }
+         }
+         // One aggregate over the range rather than adding up here, which could double count
+         // a payment that the last total already included
+         if (inRange) {
+             totalRevenue(shown, totalRevenueLabel, status, refreshBtn);
+         }
+     }, () -> loadPaymentRecords(paymentPager, range, fromPicker, toPicker, totalRevenueLabel, status, refreshBtn));
      
      // Load payment records initially
-     loadPaymentRecords(paymentListView, totalRevenueLabel);
+     loadPaymentRecords(paymentPager, range, fromPicker, toPicker, totalRevenueLabel, status, refreshBtn);
      
-     layout.getChildren().addAll(titleLabel, paymentListView, totalRevenueLabel, refreshBtn);
+     layout.getChildren().addAll(titleLabel, rangeBox, paymentListView, totalRevenueLabel, refreshBtn, status);
      
      return layout;
  }
  
- private void loadPaymentRecords(ListView<String> paymentListView, Label totalRevenueLabel) {
-     ObservableList<String> payments = FXCollections.observableArrayList();
-     double totalRevenue = 0;
-     
-     try (Connection conn = DatabaseConnection.getConnection()) {
-         String sql = """
-             SELECT o.order_id, c.name, o.total_amount, o.order_time
-             FROM orders o
-             JOIN customers c ON o.customer_id = c.id
-             WHERE o.is_paid = 1
-             ORDER BY o.order_time DESC
-             """;
-         
-         try (PreparedStatement stmt = conn.prepareStatement(sql);
-              ResultSet rs = stmt.executeQuery()) {
-             
-             while (rs.next()) {
-                 double amount = rs.getDouble("total_amount");
-                 totalRevenue += amount;
-                 
-                 String payment = String.format("Order ID: %d | Customer: %s | Amount: ₹%.2f | Date: %s",
-                     rs.getInt("order_id"),
-                     rs.getString("name"),
-                     amount,
-                     rs.getTimestamp("order_time").toString());
-                 
-                 payments.add(payment);
-             }
-         }
-     } catch (SQLException e) {
-         payments.add("Error loading payment records: " + e.getMessage());
+ private void loadPaymentRecords(KeysetPager<PaymentRecord, PaymentRepository.Cursor> paymentPager,
+                                 AtomicReference<DateRange> range, DatePicker fromPicker, DatePicker toPicker,
+                                 Label totalRevenueLabel, QueryStatusBar status, Button refreshBtn) {
+     if (fromPicker.getValue() == null || toPicker.getValue() == null) {
+         showAlert("Error", "Please select a date range!");
+         return;
      }
+     LocalDateTime from = fromPicker.getValue().atStartOfDay();
+     LocalDateTime to = toPicker.getValue().plusDays(1).atStartOfDay();
+     range.set(new DateRange(from, to));
      
-     paymentListView.setItems(payments);
-     totalRevenueLabel.setText("Total Revenue: ₹" + String.format("%.2f", totalRevenue));
+     paymentPager.reset();
+     totalRevenue(range.get(), totalRevenueLabel, status, refreshBtn);
+ }
+ 
+ private void totalRevenue(DateRange range, Label totalRevenueLabel, QueryStatusBar status, Button refreshBtn) {
+     runInBackground(status, "Totalling revenue...", () -> store.payments().findRevenue(range.from(), range.to()), revenue ->
+         totalRevenueLabel.setText(String.format("Total Revenue: ₹%.2f (%d payments)", revenue.total(), revenue.payments())),
+         ex -> totalRevenueLabel.setText("Total Revenue: unavailable"), refreshBtn);
  }
  
  private VBox createAnalyticsPane() {
@@ -1313,6 +1437,15 @@ private VBox createAdminSettingsPane() {
      Label mostPopularItemLabel = new Label("Most Popular Item:");
      Label mostPopularItemValue = new Label("None");
      
+     Label poolLabel = new Label("Connection Pool:");
+     Label poolValue = new Label("-");
+     
+     Label menuCacheLabel = new Label("Menu Cache:");
+     Label menuCacheValue = new Label("-");
+     
+     Label orderCacheLabel = new Label("Order Cache:");
+     Label orderCacheValue = new Label("-");
+     
      statsGrid.add(totalCustomersLabel, 0, 0);
      statsGrid.add(totalCustomersValue, 1, 0);
      statsGrid.add(totalOrdersLabel, 0, 1);
@@ -1321,6 +1454,12 @@ private VBox createAdminSettingsPane() {
      statsGrid.add(avgRatingValue, 1, 2);
      statsGrid.add(mostPopularItemLabel, 0, 3);
      statsGrid.add(mostPopularItemValue, 1, 3);
+     statsGrid.add(poolLabel, 0, 4);
+     statsGrid.add(poolValue, 1, 4);
+     statsGrid.add(menuCacheLabel, 0, 5);
+     statsGrid.add(menuCacheValue, 1, 5);
+     statsGrid.add(orderCacheLabel, 0, 6);
+     statsGrid.add(orderCacheValue, 1, 6);
      
      // Style value labels
      totalCustomersValue.setStyle("-fx-font-weight: bold; -fx-text-fill: blue;");
@@ -1331,67 +1470,199 @@ private VBox createAdminSettingsPane() {
      Button refreshStatsBtn = new Button("Refresh Statistics");
      refreshStatsBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
      
-     refreshStatsBtn.setOnAction(e -> loadAnalytics(totalCustomersValue, totalOrdersValue, 
-         avgRatingValue, mostPopularItemValue));
+     QueryStatusBar status = QueryStatusBar.create();
+     
+     refreshStatsBtn.setOnAction(e -> loadAnalytics(totalCustomersValue, totalOrdersValue,
+         avgRatingValue, mostPopularItemValue, poolValue, menuCacheValue, orderCacheValue, status, refreshStatsBtn));
      
      // Load analytics initially
-     loadAnalytics(totalCustomersValue, totalOrdersValue, avgRatingValue, mostPopularItemValue);
+     loadAnalytics(totalCustomersValue, totalOrdersValue, avgRatingValue, mostPopularItemValue,
+         poolValue, menuCacheValue, orderCacheValue, status, refreshStatsBtn);
      
-     layout.getChildren().addAll(titleLabel, statsGrid, refreshStatsBtn);
+     // The figures come from AnalyticsAggregator's running totals, so re-reading them after
+     // each batch of writes costs no query
+     Runnable reloadAnalytics = () -> loadAnalytics(totalCustomersValue, totalOrdersValue, avgRatingValue,
+         mostPopularItemValue, poolValue, menuCacheValue, orderCacheValue, status, refreshStatsBtn);
+     subscribeWhileShowing(layout, Set.of(DomainEvent.CustomerRegistered.class, DomainEvent.OrderPlaced.class,
+         DomainEvent.FeedbackSubmitted.class), events -> reloadAnalytics.run(), reloadAnalytics);
+     
+     layout.getChildren().addAll(titleLabel, statsGrid, refreshStatsBtn, status);
      
      return layout;
  }
  
- private void loadAnalytics(Label totalCustomersValue, Label totalOrdersValue, 
-                           Label avgRatingValue, Label mostPopularItemValue) {
-     try (Connection conn = DatabaseConnection.getConnection()) {
-         // Total customers
-         String customerSql = "SELECT COUNT(*) FROM customers";
-         try (PreparedStatement stmt = conn.prepareStatement(customerSql);
-              ResultSet rs = stmt.executeQuery()) {
-             if (rs.next()) {
-                 totalCustomersValue.setText(String.valueOf(rs.getInt(1)));
-             }
+ private void loadAnalytics(Label totalCustomersValue, Label totalOrdersValue,
+                           Label avgRatingValue, Label mostPopularItemValue,
+                           Label poolValue, Label menuCacheValue, Label orderCacheValue,
+                           QueryStatusBar status, Button refreshStatsBtn) {
+     // mostPopularItem is null when nothing has been ordered yet
+     record AnalyticsSnapshot(int totalCustomers, int totalOrders, double avgRating, String mostPopularItem) {}
+     
+     runInBackground(status, "Loading analytics...", () -> {
+         int totalCustomers = store.customers().count();
+         int totalOrders = store.orders().count();
+         double avgRating = store.feedback().averageRating();
+         String mostPopularItem = store.orders().mostPopularItem()
+             .map(item -> item.name() + " (" + item.totalQuantity() + " orders)")
+             .orElse(null);
+         return new AnalyticsSnapshot(totalCustomers, totalOrders, avgRating, mostPopularItem);
+     }, snapshot -> {
+         totalCustomersValue.setText(String.valueOf(snapshot.totalCustomers()));
+         totalOrdersValue.setText(String.valueOf(snapshot.totalOrders()));
+         avgRatingValue.setText(String.format("%.1f", snapshot.avgRating()));
+         if (snapshot.mostPopularItem() != null) {
+             mostPopularItemValue.setText(snapshot.mostPopularItem());
          }
-         
-         // Total orders
-         String orderSql = "SELECT COUNT(*) FROM orders";
-         try (PreparedStatement stmt = conn.prepareStatement(orderSql);
-              ResultSet rs = stmt.executeQuery()) {
-             if (rs.next()) {
-                 totalOrdersValue.setText(String.valueOf(rs.getInt(1)));
+         poolValue.setText(DatabaseConnection.getPoolStats().toString());
+         menuCacheValue.setText(MenuCatalog.getInstance().getStats().toString());
+         orderCacheValue.setText(orderDetails.getStats().toString());
+     }, ex -> showAlert("Error", "Failed to load analytics: " + ex.getMessage()), refreshStatsBtn);
+ }
+ 
+ // Delivers store events to a pane, batched per FX pulse, while its window is showing.
+ // Events raised while the window was hidden are not queued; reload catches the pane up
+ // when the window is shown again.
+ private void subscribeWhileShowing(Node pane, Set<Class<? extends DomainEvent>> types,
+                                    Consumer<List<DomainEvent>> handler, Runnable reload) {
+     ObservableValue<Boolean> showing = pane.sceneProperty()
+         .flatMap(Scene::windowProperty)
+         .flatMap(Window::showingProperty)
+         .orElse(false);
+     AtomicReference<EventBus.Subscription> subscription = new AtomicReference<>();
+     boolean[] missedEvents = new boolean[1];
+     Consumer<Boolean> apply = isShowing -> {
+         if (isShowing && subscription.get() == null) {
+             subscription.set(store.events().subscribe(types, Platform::runLater, handler));
+             if (missedEvents[0]) {
+                 missedEvents[0] = false;
+                 reload.run();
              }
+         } else if (!isShowing && subscription.get() != null) {
+             subscription.getAndSet(null).cancel();
+             missedEvents[0] = true;
          }
-         
-         // Average rating
-         String ratingSql = "SELECT AVG(rating) FROM feedback";
-         try (PreparedStatement stmt = conn.prepareStatement(ratingSql);
-              ResultSet rs = stmt.executeQuery()) {
-             if (rs.next()) {
-                 double avgRating = rs.getDouble(1);
-                 avgRatingValue.setText(String.format("%.1f", avgRating));
-             }
+     };
+     showing.addListener((obs, was, isShowing) -> apply.accept(isShowing));
+     apply.accept(showing.getValue());
+ }
+ 
+ // Point-in-time values shown under the timers in the Performance tab
+ private void registerGauges() {
+     Metrics.gauge("db pool active", () -> DatabaseConnection.getPoolStats().active());
+     Metrics.gauge("db pool waiting", () -> DatabaseConnection.getPoolStats().waiting());
+     Metrics.gauge("db pool timeouts", () -> DatabaseConnection.getPoolStats().timeouts());
+     Metrics.gauge("menu cache hit rate", () -> MenuCatalog.getInstance().getStats().hitRate());
+     Metrics.gauge("order cache hit rate", () -> orderDetails.getStats().hitRate());
+     Metrics.gauge("kitchen tickets pending", () -> kitchenTickets.getStats().pending());
+     if (store.feedbackStats() != null) {
+         Metrics.gauge("feedback pending", () -> store.feedbackStats().pending());
+         Metrics.gauge("feedback rejected", () -> store.feedbackStats().rejected());
+     }
+     if (store.offlineStats() != null) {
+         Metrics.gauge("journal pending", () -> store.offlineStats().pending());
+         Metrics.gauge("journal rejected", () -> store.offlineStats().rejected());
+     }
+ }
+
+ // Appended to a confirmation when the write went to the local journal
+ private String offlineNote() {
+     return store.isOffline() ? "\n\nDatabase unreachable: saved on this till, it will be sent when the connection is back." : "";
+ }
+ 
+ private VBox createPerformancePane() {
+     VBox layout = new VBox(15);
+     layout.setPadding(new Insets(20));
+     
+     Label titleLabel = new Label("Performance");
+     titleLabel.setStyle("-fx-font-size: 20px; -fx-font-weight: bold;");
+     
+     ChoiceBox<PerformanceWindow> windowChoice = new ChoiceBox<>(FXCollections.observableArrayList(
+         new PerformanceWindow("Last 1 minute", Duration.ofMinutes(1)),
+         new PerformanceWindow("Last 5 minutes", Duration.ofMinutes(5)),
+         new PerformanceWindow("Last 15 minutes", Metrics.MAX_WINDOW),
+         new PerformanceWindow("Since startup", null)));
+     windowChoice.getSelectionModel().selectFirst();
+     
+     // Timings are in milliseconds; sql rows are per statement, action rows run from click to screen update
+     TableView<Metrics.TimerSnapshot> timersTable = new TableView<>();
+     timersTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+     timersTable.getColumns().addAll(List.of(
+         performanceColumn("Metric", 260, Metrics.TimerSnapshot::name),
+         performanceColumn("Count", 70, s -> String.valueOf(s.count())),
+         performanceColumn("Per sec", 70, s -> String.format("%.2f", s.perSecond())),
+         performanceColumn("p50 ms", 70, s -> String.format("%.2f", s.p50Millis())),
+         performanceColumn("p95 ms", 70, s -> String.format("%.2f", s.p95Millis())),
+         performanceColumn("p99 ms", 70, s -> String.format("%.2f", s.p99Millis())),
+         performanceColumn("Max ms", 70, s -> String.format("%.2f", s.maxMillis()))));
+     VBox.setVgrow(timersTable, Priority.ALWAYS);
+     
+     Label gaugesValue = new Label();
+     gaugesValue.setStyle("-fx-font-family: monospace;");
+     
+     Runnable refresh = () -> {
+         timersTable.setItems(FXCollections.observableArrayList(Metrics.snapshot(windowChoice.getValue().window())));
+         StringBuilder gauges = new StringBuilder();
+         Metrics.gauges().forEach((name, value) -> gauges.append(String.format("%-24s %.3f%n", name, value)));
+         gaugesValue.setText(gauges.toString());
+     };
+     windowChoice.setOnAction(e -> refresh.run());
+     
+     Button refreshBtn = new Button("Refresh");
+     refreshBtn.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
+     refreshBtn.setOnAction(e -> refresh.run());
+     
+     // Stops itself once the portal window is closed, so a forgotten tick box doesn't keep running
+     CheckBox autoRefresh = new CheckBox("Auto refresh");
+     Timeline ticker = new Timeline(new KeyFrame(javafx.util.Duration.seconds(5), e -> {
+         if (layout.getScene() == null || !layout.getScene().getWindow().isShowing()) {
+             autoRefresh.setSelected(false);
+         } else {
+             refresh.run();
          }
-         
-         // Most popular item
-         String popularSql = """
-             SELECT mi.name, SUM(oi.quantity) as total_qty
-             FROM menu_items mi
-             JOIN order_items oi ON mi.id = oi.menu_item_id
-             GROUP BY mi.name
-             ORDER BY total_qty DESC
-             FETCH FIRST 1 ROWS ONLY
-             """;
-         try (PreparedStatement stmt = conn.prepareStatement(popularSql);
-              ResultSet rs = stmt.executeQuery()) {
-             if (rs.next()) {
-                 mostPopularItemValue.setText(rs.getString("name") + " (" + rs.getInt("total_qty") + " orders)");
-             }
+     }));
+     ticker.setCycleCount(Animation.INDEFINITE);
+     autoRefresh.selectedProperty().addListener((obs, was, selected) -> {
+         if (selected) {
+             ticker.play();
+         } else {
+             ticker.stop();
          }
-         
-     } catch (SQLException e) {
-         showAlert("Error", "Failed to load analytics: " + e.getMessage());
-     }
+     });
+     
+     QueryStatusBar status = QueryStatusBar.create();
+     
+     Button exportBtn = new Button("Export Snapshot...");
+     exportBtn.setStyle("-fx-background-color: #2196F3; -fx-text-fill: white;");
+     exportBtn.setOnAction(e -> {
+         FileChooser chooser = new FileChooser();
+         chooser.setTitle("Export Performance Snapshot");
+         chooser.setInitialFileName("performance-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".txt");
+         File file = chooser.showSaveDialog(layout.getScene().getWindow());
+         if (file == null) {
+             return;
+         }
+         String snapshot = Metrics.format(windowChoice.getValue().window());
+         runInBackground(status, "Exporting snapshot...", () -> Files.writeString(file.toPath(), snapshot),
+             path -> showAlert("Success", "Snapshot written to " + path),
+             ex -> showAlert("Error", "Failed to export snapshot: " + ex.getMessage()), exportBtn);
+     });
+     
+     HBox controls = new HBox(10, new Label("Window:"), windowChoice, refreshBtn, autoRefresh, exportBtn);
+     controls.setAlignment(Pos.CENTER_LEFT);
+     
+     refresh.run();
+     
+     layout.getChildren().addAll(titleLabel, controls, timersTable, gaugesValue, status);
+     
+     return layout;
+ }
+ 
+ private static TableColumn<Metrics.TimerSnapshot, String> performanceColumn(String title, double width,
+                                                                            Function<Metrics.TimerSnapshot, String> value) {
+     TableColumn<Metrics.TimerSnapshot, String> column = new TableColumn<>(title);
+     column.setPrefWidth(width);
+     column.setCellValueFactory(cell -> new ReadOnlyStringWrapper(value.apply(cell.getValue())));
+     return column;
  }
  
  private void showAlert(String title, String message) {
@@ -1402,8 +1673,9 @@ private VBox createAdminSettingsPane() {
      alert.showAndWait();
  }
  
-
+ 
  public static void main(String[] args) {
+     Diagnostics.startRecordingIfRequested();
      launch(args);
  }
 }
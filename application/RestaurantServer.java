@@ -0,0 +1,486 @@
+package application;
+//RestaurantServer.java
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Headless mode: the terminal flows over a local HTTP API instead of a window, so any number
+// of tills share one warm process with one connection pool and one set of caches. Every
+// request gets its own virtual thread; as in DataAccessExecutor, the pool is what bounds
+// concurrent queries. Parameters come as a query string or a form-encoded body, replies are JSON.
+//
+//   POST /customers          name                                   -> {"customerId"}
+//   GET  /customers/search   q, limit                               -> [{"customerId", "name"}]
+//   GET  /menu                                                      -> [{"id", "name", "price"}]
+//   POST /orders             customerId, items ("3:2,7:1" as id:qty) -> {"orderId", "totalAmount"}
+//   GET  /orders/{id}                                               -> order details
+//   GET  /tables/available   partySize, time (2025-01-31T19:00)     -> [{"tableNumber", "capacity"}]
+//   POST /bookings           tableNumber, customerId, time, partySize -> {"bookingId"}
+//   POST /payments           orderId, amount                        -> {"result", "totalAmount", "change"}
+//   POST /feedback           customerId, comment, rating            -> 202
+//   GET  /analytics                                                 -> the Admin Portal figures
+//   GET  /metrics                                                   -> Metrics.format, plain text
+//
+// Start with java ... application.RestaurantServer; -Drestaurant.server.port (8080) and
+// -Drestaurant.server.host (127.0.0.1, so only this machine can reach it) pick the address.
+// The desktop app has no client mode, so the tills sharing this process are HTTP clients.
+// The API has no users or roles: to listen on any other address, -Drestaurant.server.token
+// must be set, and every request must then carry "Authorization: Bearer <token>". It is
+// plain HTTP, so off this machine the token should only cross a trusted network or a TLS proxy.
+public final class RestaurantServer {
+
+ private static final int CUSTOMER_SEARCH_LIMIT = 50;
+ private static final int OPEN_ORDER_CACHE_SIZE = 256;
+ private static final int BACKLOG = 256;
+ private static final int STOP_GRACE_SECONDS = 2;
+ // Form posts here are a few fields; feedback comments are the longest at 500 bytes
+ private static final int MAX_BODY_BYTES = 8 * 1024;
+ // Driver and schema details stay in the server log
+ private static final String INTERNAL_ERROR = "Internal error; see the server log";
+
+ static {
+     // The JDK server writes headers and body separately; with Nagle on, the body then waits
+     // for the client's delayed ACK and every reply takes ~40ms. Read once, when HttpServer loads.
+     if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+         System.setProperty("sun.net.httpserver.nodelay", "true");
+     }
+ }
+
+ // One reply, already rendered
+ private record Reply(int status, String contentType, String body) {}
+
+ private interface Route {
+     Reply handle(Map<String, String> params) throws Exception;
+ }
+
+ private final DataStore store;
+ private final MenuCatalog catalog;
+ // Nothing attaches a kitchen display in headless mode; KitchenTickets caps what it holds back
+ private final KitchenTickets kitchenTickets = new KitchenTickets(Runnable::run);
+ private final OrderService orderService;
+ private final OrderDetailsService orderDetails;
+ private final ExecutorService executor =
+     Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-worker-", 0).factory());
+ private final Map<String, Route> routes = new HashMap<>();
+ private final HttpServer server;
+ // "Bearer <token>" as bytes, or null when requests need no token
+ private final byte[] expectedAuthorization;
+
+ // catalog must read from store's menu; main passes MenuCatalog.getInstance() with DataStore.current()
+ public RestaurantServer(DataStore store, MenuCatalog catalog, InetSocketAddress address) throws IOException {
+     this(store, catalog, address, null);
+ }
+
+ // token may be null only for a loopback address
+ public RestaurantServer(DataStore store, MenuCatalog catalog, InetSocketAddress address, String token)
+         throws IOException {
+     boolean hasToken = token != null && !token.isBlank();
+     if (!hasToken && (address.getAddress() == null || !address.getAddress().isLoopbackAddress())) {
+         throw new IllegalArgumentException("Refusing to listen on " + address
+             + " without -Drestaurant.server.token: the API would take orders and payments from anyone who can reach it");
+     }
+     this.expectedAuthorization = hasToken ? ("Bearer " + token).getBytes(StandardCharsets.UTF_8) : null;
+     this.store = store;
+     this.catalog = catalog;
+     this.orderService = new OrderService(store.orders(), catalog, kitchenTickets);
+     this.orderDetails = new OrderDetailsService(store.orders(), store.payments(), OPEN_ORDER_CACHE_SIZE);
+
+     routes.put("POST /customers", this::register);
+     routes.put("GET /customers/search", this::searchCustomers);
+     routes.put("GET /menu", params -> menu());
+     routes.put("POST /orders", this::placeOrder);
+     routes.put("GET /orders/{id}", this::orderDetails);
+     routes.put("GET /tables/available", this::availableTables);
+     routes.put("POST /bookings", this::book);
+     routes.put("POST /payments", this::pay);
+     routes.put("POST /feedback", this::submitFeedback);
+     routes.put("GET /analytics", params -> analytics());
+     routes.put("GET /metrics", params -> new Reply(200, "text/plain; charset=utf-8", Metrics.format(null)));
+
+     server = HttpServer.create(address, BACKLOG);
+     server.setExecutor(executor);
+     server.createContext("/", this::dispatch);
+ }
+
+ public void start() {
+     registerGauges();
+     server.start();
+ }
+
+ // The port actually bound, for an address created with port 0
+ public int port() {
+     return server.getAddress().getPort();
+ }
+
+ // Lets requests already running finish for a moment, then closes the listener
+ public void stop() {
+     server.stop(STOP_GRACE_SECONDS);
+     executor.shutdown();
+ }
+
+ public static void main(String[] args) throws Exception {
+     Diagnostics.startRecordingIfRequested();
+     DataStore store = DataStore.current();
+     if (!store.isInMemory()) {
+         DatabaseConnection.initializeDatabase();
+     }
+     // Warm the indexes before the first terminal connects
+     store.preload();
+
+     String host = System.getProperty("restaurant.server.host", "127.0.0.1");
+     int port = Integer.getInteger("restaurant.server.port", 8080);
+     RestaurantServer server = new RestaurantServer(store, MenuCatalog.getInstance(), new InetSocketAddress(host, port),
+         System.getProperty("restaurant.server.token"));
+     Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+         server.stop();
+         store.close();
+         DatabaseConnection.shutdown();
+         Diagnostics.stopRecording();
+     }, "server-shutdown"));
+     server.start();
+     System.out.println("Restaurant server listening on http://" + host + ":" + server.port());
+ }
+
+ private void registerGauges() {
+     Metrics.gauge("db pool active", () -> DatabaseConnection.getPoolStats().active());
+     Metrics.gauge("db pool waiting", () -> DatabaseConnection.getPoolStats().waiting());
+     Metrics.gauge("db pool timeouts", () -> DatabaseConnection.getPoolStats().timeouts());
+     Metrics.gauge("menu cache hit rate", () -> catalog.getStats().hitRate());
+     Metrics.gauge("order cache hit rate", () -> orderDetails.getStats().hitRate());
+     if (store.feedbackStats() != null) {
+         Metrics.gauge("feedback pending", () -> store.feedbackStats().pending());
+         Metrics.gauge("feedback rejected", () -> store.feedbackStats().rejected());
+     }
+     if (store.offlineStats() != null) {
+         Metrics.gauge("journal pending", () -> store.offlineStats().pending());
+         Metrics.gauge("journal rejected", () -> store.offlineStats().rejected());
+     }
+ }
+
+ private void dispatch(HttpExchange exchange) throws IOException {
+     long start = System.nanoTime();
+     String path = exchange.getRequestURI().getPath();
+     Map<String, String> params = new HashMap<>();
+
+     // "/orders/42" is served by "/orders/{id}"
+     String template = path;
+     int slash = path.lastIndexOf('/');
+     if (slash > 0 && slash < path.length() - 1 && path.substring(slash + 1).chars().allMatch(Character::isDigit)) {
+         params.put("id", path.substring(slash + 1));
+         template = path.substring(0, slash) + "/{id}";
+     }
+     String key = exchange.getRequestMethod() + " " + template;
+     Route route = routes.get(key);
+
+     try (exchange) {
+         Reply reply;
+         if (!isAuthorized(exchange)) {
+             exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+             reply = error(401, "Missing or wrong Authorization: Bearer token");
+         } else if (route == null) {
+             reply = error(404, "No such endpoint: " + exchange.getRequestMethod() + " " + path);
+         } else {
+             byte[] form = "POST".equals(exchange.getRequestMethod())
+                 ? exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1) : new byte[0];
+             if (form.length > MAX_BODY_BYTES) {
+                 reply = error(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+             } else {
+                 parseForm(exchange.getRequestURI().getRawQuery(), params);
+                 parseForm(new String(form, StandardCharsets.UTF_8), params);
+                 reply = handle(route, params);
+             }
+         }
+         byte[] body = reply.body().getBytes(StandardCharsets.UTF_8);
+         exchange.getResponseHeaders().set("Content-Type", reply.contentType());
+         exchange.sendResponseHeaders(reply.status(), body.length == 0 ? -1 : body.length);
+         if (body.length > 0) {
+             try (OutputStream out = exchange.getResponseBody()) {
+                 out.write(body);
+             }
+         }
+     } finally {
+         // Keyed by template so every order id lands in the same timer
+         Metrics.record("http " + (route == null ? "unmatched" : key), System.nanoTime() - start);
+     }
+ }
+
+ private boolean isAuthorized(HttpExchange exchange) {
+     if (expectedAuthorization == null) {
+         return true;
+     }
+     String given = exchange.getRequestHeaders().getFirst("Authorization");
+     // Constant time, so the token can't be guessed a byte at a time
+     return given != null && MessageDigest.isEqual(expectedAuthorization, given.getBytes(StandardCharsets.UTF_8));
+ }
+
+ private static Reply handle(Route route, Map<String, String> params) {
+     try {
+         return route.handle(params);
+     } catch (IllegalArgumentException | DateTimeParseException e) {
+         return error(400, e.getMessage());
+     } catch (SQLException e) {
+         // A customer, table or menu item that doesn't exist
+         if (e instanceof SQLIntegrityConstraintViolationException
+                 || (e.getSQLState() != null && e.getSQLState().startsWith("23"))) {
+             return error(409, e.getMessage());
+         }
+         System.err.println("Request failed: " + e + " (SQLState " + e.getSQLState() + ")");
+         return error(500, INTERNAL_ERROR);
+     } catch (Exception e) {
+         System.err.println("Request failed: " + e);
+         return error(500, INTERNAL_ERROR);
+     }
+ }
+
+ private Reply register(Map<String, String> params) throws SQLException {
+     String name = required(params, "name").trim();
+     if (name.isEmpty()) {
+         throw new IllegalArgumentException("name must not be blank");
+     }
+     int customerId = store.customers().register(name);
+     return json(201, object("customerId", customerId));
+ }
+
+ private Reply searchCustomers(Map<String, String> params) throws SQLException {
+     int limit = params.containsKey("limit") ? Math.min(intParam(params, "limit"), CUSTOMER_SEARCH_LIMIT) : CUSTOMER_SEARCH_LIMIT;
+     List<Object> matches = new ArrayList<>();
+     for (CustomerNameIndex.Match match : store.searchCustomers(required(params, "q"), limit)) {
+         matches.add(object("customerId", match.customerId(), "name", match.name()));
+     }
+     return json(200, matches);
+ }
+
+ private Reply menu() throws SQLException {
+     List<Object> items = new ArrayList<>();
+     for (MenuItem item : catalog.itemsByPrice()) {
+         items.add(object("id", item.id(), "name", item.name(), "price", item.price()));
+     }
+     return json(200, items);
+ }
+
+ private Reply placeOrder(Map<String, String> params) throws SQLException {
+     int customerId = intParam(params, "customerId");
+     // Priced from the menu catalog, like the Place Order pane's cart
+     List<OrderLine> lines = new ArrayList<>();
+     for (String entry : required(params, "items").split(",")) {
+         String[] pair = entry.trim().split(":");
+         if (pair.length != 2) {
+             throw new IllegalArgumentException("items must look like 3:2,7:1 (menu item id:quantity)");
+         }
+         int itemId = parseInt("item id", pair[0]);
+         int quantity = parseInt("quantity", pair[1]);
+         if (quantity <= 0) {
+             throw new IllegalArgumentException("quantity must be positive");
+         }
+         MenuItem item = catalog.find(itemId)
+             .orElseThrow(() -> new IllegalArgumentException("Menu item " + itemId + " not found"));
+         lines.add(new OrderLine(itemId, quantity,
+             String.format("%s (Qty: %d) - ₹%.2f", item.name(), quantity, item.price() * quantity)));
+     }
+     PlacedOrder placed = orderService.placeOrder(customerId, lines);
+     return json(201, object("orderId", placed.orderId(), "totalAmount", placed.totalAmount()));
+ }
+
+ private Reply orderDetails(Map<String, String> params) throws SQLException {
+     int orderId = intParam(params, "id");
+     Optional<OrderDetails> found = orderDetails.find(orderId);
+     if (found.isEmpty()) {
+         return error(404, "Order " + orderId + " not found");
+     }
+     OrderDetails details = found.get();
+     List<Object> items = new ArrayList<>();
+     for (OrderDetails.Item item : details.items()) {
+         items.add(object("name", item.name(), "quantity", item.quantity(), "price", item.price()));
+     }
+     return json(200, object("orderId", details.orderId(), "customerId", details.customerId(),
+         "customerName", details.customerName(), "orderTime", details.orderTime().toString(),
+         "totalAmount", details.totalAmount(), "paid", details.paid(), "items", items));
+ }
+
+ private Reply availableTables(Map<String, String> params) throws SQLException {
+     List<Object> tables = new ArrayList<>();
+     for (DiningTable table : store.bookings().findAvailableTables(intParam(params, "partySize"),
+             LocalDateTime.parse(required(params, "time")))) {
+         tables.add(object("tableNumber", table.tableNumber(), "capacity", table.capacity()));
+     }
+     return json(200, tables);
+ }
+
+ private Reply book(Map<String, String> params) throws SQLException {
+     int bookingId = store.bookings().book(intParam(params, "tableNumber"), intParam(params, "customerId"),
+         LocalDateTime.parse(required(params, "time")), intParam(params, "partySize"));
+     return json(201, object("bookingId", bookingId));
+ }
+
+ private Reply pay(Map<String, String> params) throws SQLException {
+     int orderId = intParam(params, "orderId");
+     double amount;
+     try {
+         amount = Double.parseDouble(required(params, "amount"));
+     } catch (NumberFormatException e) {
+         throw new IllegalArgumentException("amount must be a number");
+     }
+     // One conditional update settles the order, so two tills paying it at once can't both succeed
+     OrderDetailsService.Settlement outcome = orderDetails.settle(orderId, amount);
+     int status = switch (outcome.result()) {
+         case SETTLED -> 200;
+         case NOT_FOUND -> 404;
+         case ALREADY_PAID -> 409;
+         case INSUFFICIENT -> 422;
+     };
+     Map<String, Object> body = object("result", outcome.result().name(), "totalAmount", outcome.totalAmount());
+     if (outcome.result() == OrderDetailsService.SettlementResult.SETTLED) {
+         body.put("change", Math.round((amount - outcome.totalAmount()) * 100) / 100.0);
+     }
+     return json(status, body);
+ }
+
+ // Accepted rather than created: with the JDBC store the row is queued by FeedbackIngestion
+ private Reply submitFeedback(Map<String, String> params) throws SQLException {
+     int customerId = intParam(params, "customerId");
+     String comment = required(params, "comment").trim();
+     int rating = intParam(params, "rating");
+     if (comment.isEmpty() || rating < 1 || rating > 5) {
+         throw new IllegalArgumentException("comment must not be blank and rating must be 1-5");
+     }
+     store.feedback().submit(customerId, comment, rating);
+     return json(202, object("status", "accepted"));
+ }
+
+ private Reply analytics() throws SQLException {
+     Optional<OrderRepository.PopularItem> popular = store.orders().mostPopularItem();
+     return json(200, object("totalCustomers", store.customers().count(),
+         "totalOrders", store.orders().count(),
+         "averageRating", store.feedback().averageRating(),
+         "mostPopularItem", popular.map(OrderRepository.PopularItem::name).orElse(null),
+         "mostPopularQuantity", popular.map(OrderRepository.PopularItem::totalQuantity).orElse(0)));
+ }
+
+ private static String required(Map<String, String> params, String name) {
+     String value = params.get(name);
+     if (value == null) {
+         throw new IllegalArgumentException("Missing parameter: " + name);
+     }
+     return value;
+ }
+
+ private static int intParam(Map<String, String> params, String name) {
+     return parseInt(name, required(params, name));
+ }
+
+ private static int parseInt(String name, String value) {
+     try {
+         return Integer.parseInt(value.trim());
+     } catch (NumberFormatException e) {
+         throw new IllegalArgumentException(name + " must be a whole number");
+     }
+ }
+
+ // a=1&b=two; a later value for the same name wins
+ private static void parseForm(String raw, Map<String, String> params) {
+     if (raw == null || raw.isEmpty()) {
+         return;
+     }
+     for (String pair : raw.split("&")) {
+         if (pair.isEmpty()) {
+             continue;
+         }
+         int eq = pair.indexOf('=');
+         String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+         String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+         params.put(name, value);
+     }
+ }
+
+ private static Map<String, Object> object(Object... namesAndValues) {
+     Map<String, Object> object = new LinkedHashMap<>();
+     for (int i = 0; i < namesAndValues.length; i += 2) {
+         object.put((String) namesAndValues[i], namesAndValues[i + 1]);
+     }
+     return object;
+ }
+
+ private static Reply error(int status, String message) {
+     return json(status, object("error", message));
+ }
+
+ private static Reply json(int status, Object value) {
+     StringBuilder out = new StringBuilder();
+     writeJson(out, value);
+     return new Reply(status, "application/json; charset=utf-8", out.toString());
+ }
+
+ // Just the shapes the routes above build: maps, lists, strings, numbers, booleans and null
+ private static void writeJson(StringBuilder out, Object value) {
+     if (value == null) {
+         out.append("null");
+     } else if (value instanceof Map<?, ?> map) {
+         out.append('{');
+         boolean first = true;
+         for (Map.Entry<?, ?> entry : map.entrySet()) {
+             if (!first) {
+                 out.append(',');
+             }
+             first = false;
+             writeString(out, entry.getKey().toString());
+             out.append(':');
+             writeJson(out, entry.getValue());
+         }
+         out.append('}');
+     } else if (value instanceof List<?> list) {
+         out.append('[');
+         for (int i = 0; i < list.size(); i++) {
+             if (i > 0) {
+                 out.append(',');
+             }
+             writeJson(out, list.get(i));
+         }
+         out.append(']');
+     } else if (value instanceof Double number) {
+         out.append(number.isNaN() || number.isInfinite() ? "null" : number.toString());
+     } else if (value instanceof Number || value instanceof Boolean) {
+         out.append(value);
+     } else {
+         writeString(out, value.toString());
+     }
+ }
+
+ private static void writeString(StringBuilder out, String text) {
+     out.append('"');
+     for (int i = 0; i < text.length(); i++) {
+         char c = text.charAt(i);
+         switch (c) {
+             case '"' -> out.append("\\\"");
+             case '\\' -> out.append("\\\\");
+             case '\n' -> out.append("\\n");
+             case '\r' -> out.append("\\r");
+             case '\t' -> out.append("\\t");
+             default -> {
+                 if (c < 0x20) {
+                     out.append(String.format("\\u%04x", (int) c));
+                 } else {
+                     out.append(c);
+                 }
+             }
+         }
+     }
+     out.append('"');
+ }
+}
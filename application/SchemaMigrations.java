@@ -0,0 +1,247 @@
+package application;
+//SchemaMigrations.java
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+
+// Ordered schema migrations recorded in schema_version. A warm start costs one MAX(version)
+// query; only migrations above the recorded version run. Every statement tolerates its object
+// already existing, so a database created before schema_version existed is adopted as-is.
+public final class SchemaMigrations {
+
+ @FunctionalInterface
+ interface Step {
+     void apply(Connection conn) throws SQLException;
+ }
+
+ record Migration(int version, String description, Step step) {}
+
+ // "Already exists" errors: Oracle ORA-00955/ORA-01408, H2 table/index/sequence exists
+ private static final Set<Integer> ALREADY_EXISTS = Set.of(955, 1408, 42101, 42111, 90035);
+ // Unique constraint violated: Oracle ORA-00001, H2 23505
+ private static final Set<Integer> DUPLICATE_KEY = Set.of(1, 23505);
+ // Invalid identifier / column not found: Oracle ORA-00904, H2 42122
+ private static final Set<Integer> MISSING_COLUMN = Set.of(904, 42122);
+
+ static final List<Migration> MIGRATIONS = List.of(
+     new Migration(1, "Base schema and seed data", SchemaMigrations::baseSchema),
+     new Migration(2, "Index paid orders by time", conn ->
+         createIgnoringExisting(conn, "CREATE INDEX orders_paid_time_idx ON orders (is_paid, order_time, order_id)")),
+     new Migration(3, "Sequences step by IdAllocator block size", SchemaMigrations::blockSequences),
+     new Migration(4, "Rename feedback.comment to comments", SchemaMigrations::renameFeedbackComment),
+     new Migration(5, "Index feedback by customer and time", conn ->
+         createIgnoringExisting(conn, "CREATE INDEX feedback_customer_time_idx ON feedback (customer_id, feedback_time)"))
+ );
+
+ private SchemaMigrations() {
+ }
+
+ public static int latestVersion() {
+     return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+ }
+
+ // Brings the schema up to latestVersion(); returns the number of migrations applied
+ public static int migrate(Connection conn) throws SQLException {
+     int current = currentVersion(conn);
+     int applied = 0;
+     for (Migration migration : MIGRATIONS) {
+         if (migration.version() <= current) {
+             continue;
+         }
+         migration.step().apply(conn);
+         recordVersion(conn, migration);
+         applied++;
+         System.out.println("Applied schema migration " + migration.version() + ": " + migration.description());
+     }
+     return applied;
+ }
+
+ static int currentVersion(Connection conn) throws SQLException {
+     try (Statement stmt = conn.createStatement();
+          ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+         rs.next();
+         return rs.getInt(1);
+     } catch (SQLException missingTable) {
+         createIgnoringExisting(conn, """
+             CREATE TABLE schema_version (
+                 version NUMBER PRIMARY KEY,
+                 description VARCHAR2(200),
+                 applied_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+             )
+             """);
+         return 0;
+     }
+ }
+
+ private static void recordVersion(Connection conn, Migration migration) throws SQLException {
+     try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+         stmt.setInt(1, migration.version());
+         stmt.setString(2, migration.description());
+         stmt.executeUpdate();
+     } catch (SQLException e) {
+         // Another instance applied the same migration concurrently
+         if (!DUPLICATE_KEY.contains(e.getErrorCode())) {
+             throw e;
+         }
+     }
+ }
+
+ static void createIgnoringExisting(Connection conn, String ddl) throws SQLException {
+     try (Statement stmt = conn.createStatement()) {
+         stmt.execute(ddl);
+     } catch (SQLException e) {
+         if (!ALREADY_EXISTS.contains(e.getErrorCode())) {
+             throw e;
+         }
+     }
+ }
+
+ private static void blockSequences(Connection conn) throws SQLException {
+     try (Statement stmt = conn.createStatement()) {
+         for (IdAllocator allocator : IdAllocator.ALL) {
+             stmt.execute("ALTER SEQUENCE " + allocator.getSequenceName() + " INCREMENT BY " + allocator.getBlockSize());
+         }
+     }
+ }
+
+ // COMMENT is reserved in Oracle, so only databases that accept it (H2) ever got that column;
+ // anywhere else the column is already comments and there is nothing to rename
+ private static void renameFeedbackComment(Connection conn) throws SQLException {
+     try (Statement stmt = conn.createStatement()) {
+         stmt.execute("ALTER TABLE feedback RENAME COLUMN \"COMMENT\" TO comments");
+     } catch (SQLException e) {
+         if (!MISSING_COLUMN.contains(e.getErrorCode())) {
+             throw e;
+         }
+     }
+ }
+
+ private static void baseSchema(Connection conn) throws SQLException {
+     String[] tables = {
+         """
+         CREATE TABLE  customers (
+             id NUMBER PRIMARY KEY,
+             name VARCHAR2(100) NOT NULL,
+             table_no NUMBER,
+             booking_time TIMESTAMP
+         )
+         """,
+         """
+         CREATE TABLE  menu_items (
+             id NUMBER PRIMARY KEY,
+             name VARCHAR2(100) NOT NULL,
+             price NUMBER(10,2) NOT NULL
+         )
+         """,
+         """
+         CREATE TABLE  tables (
+             table_number NUMBER PRIMARY KEY,
+             capacity NUMBER NOT NULL
+         )
+         """,
+         """
+         CREATE TABLE  orders (
+             order_id NUMBER PRIMARY KEY,
+             customer_id NUMBER,
+             order_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+             is_paid NUMBER(1) DEFAULT 0,
+             total_amount NUMBER(10,2),
+             FOREIGN KEY (customer_id) REFERENCES customers(id)
+         )
+         """,
+         """
+         CREATE TABLE order_items (
+             id NUMBER PRIMARY KEY,
+             order_id NUMBER,
+             menu_item_id NUMBER,
+             quantity NUMBER DEFAULT 1,
+             FOREIGN KEY (order_id) REFERENCES orders(order_id),
+             FOREIGN KEY (menu_item_id) REFERENCES menu_items(id)
+         )
+         """,
+         """
+         CREATE TABLE  feedback (
+             id NUMBER PRIMARY KEY,
+             customer_id NUMBER,
+             comments VARCHAR2(500),
+             rating NUMBER(1),
+             feedback_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+             FOREIGN KEY (customer_id) REFERENCES customers(id)
+         )
+         """,
+         """
+         CREATE TABLE  table_bookings (
+             id NUMBER PRIMARY KEY,
+             table_number NUMBER,
+             customer_id NUMBER,
+             booking_time TIMESTAMP,
+             party_size NUMBER,
+             FOREIGN KEY (table_number) REFERENCES tables(table_number),
+             FOREIGN KEY (customer_id) REFERENCES customers(id)
+         )
+         """,
+         """
+         CREATE TABLE admin_users (
+             id NUMBER PRIMARY KEY,
+             username VARCHAR2(50) UNIQUE NOT NULL,
+             password_hash VARCHAR2(255) NOT NULL,
+             is_active NUMBER(1) DEFAULT 1,
+             created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+         )
+         """
+     };
+     for (String ddl : tables) {
+         createIgnoringExisting(conn, ddl);
+     }
+
+     String[] sequences = {
+         "CREATE SEQUENCE customer_seq START WITH 1 INCREMENT BY 1",
+         "CREATE SEQUENCE order_seq START WITH 1 INCREMENT BY 1",
+         "CREATE SEQUENCE order_item_seq START WITH 1 INCREMENT BY 1",
+         "CREATE SEQUENCE feedback_seq START WITH 1 INCREMENT BY 1",
+         "CREATE SEQUENCE booking_seq START WITH 1 INCREMENT BY 1",
+         "CREATE SEQUENCE admin_seq START WITH 1 INCREMENT BY 1 NOCACHE"
+     };
+     for (String ddl : sequences) {
+         createIgnoringExisting(conn, ddl);
+     }
+
+     // Seed rows are only added where missing, so re-running is harmless
+     String insertMenu = "INSERT INTO menu_items (id, name, price) SELECT ?, ?, ? FROM dual WHERE NOT EXISTS (SELECT 1 FROM menu_items WHERE id = ?)";
+     try (PreparedStatement stmt = conn.prepareStatement(insertMenu)) {
+         for (Object[] item : DatabaseConnection.INITIAL_MENU) {
+             stmt.setInt(1, (Integer) item[0]);
+             stmt.setString(2, (String) item[1]);
+             stmt.setDouble(3, (Double) item[2]);
+             stmt.setInt(4, (Integer) item[0]);
+             stmt.addBatch();
+         }
+         stmt.executeBatch();
+     }
+
+     String insertTable = "INSERT INTO tables (table_number, capacity) SELECT ?, ? FROM dual WHERE NOT EXISTS (SELECT 1 FROM tables WHERE table_number = ?)";
+     try (PreparedStatement stmt = conn.prepareStatement(insertTable)) {
+         for (Object[] table : DatabaseConnection.INITIAL_TABLES) {
+             stmt.setInt(1, (Integer) table[0]);
+             stmt.setInt(2, (Integer) table[1]);
+             stmt.setInt(3, (Integer) table[0]);
+             stmt.addBatch();
+         }
+         stmt.executeBatch();
+     }
+
+     // Default admin user (username: admin, password: admin123)
+     try (Statement stmt = conn.createStatement()) {
+         stmt.executeUpdate("""
+             INSERT INTO admin_users (id, username, password_hash, is_active)
+             SELECT admin_seq.NEXTVAL, 'admin', 'admin123', 1
+             FROM dual
+             WHERE NOT EXISTS (SELECT 1 FROM admin_users WHERE username = 'admin')
+             """);
+     }
+ }
+}
@@ -0,0 +1,189 @@
+package application;
+//StatementTracing.java
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Wraps statements handed out by ConnectionPool so each execute emits a
+// Diagnostics.StatementEvent and a "sql <label>" Metrics timing. Queries stay open until their result set (or the statement) is
+// closed, so the event covers fetching the rows as well as running the SQL.
+final class StatementTracing {
+
+ // SQL in this app is all string constants, so this stays small
+ private static final Map<String, String> LABELS = new ConcurrentHashMap<>();
+
+ private StatementTracing() {
+ }
+
+ // Checked per statement, so nothing is wrapped when metrics are off and no recording wants these events
+ static boolean isEnabled() {
+     return Metrics.ENABLED || new Diagnostics.StatementEvent().isEnabled();
+ }
+
+ // type is the interface the caller asked for: Statement, PreparedStatement or CallableStatement
+ static Statement wrap(Statement statement, Class<?> type, String sql) {
+     return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+         new Class<?>[]{type}, new StatementHandler(statement, sql));
+ }
+
+ // "SELECT orders", "UPDATE orders", "INSERT order_items": the verb and the first table named
+ static String label(String sql) {
+     if (sql == null) {
+         return "unknown";
+     }
+     return LABELS.computeIfAbsent(sql, StatementTracing::parseLabel);
+ }
+
+ private static String parseLabel(String sql) {
+     String[] words = sql.trim().replaceAll("[(),]", " ").split("\\s+");
+     String verb = words[0].toUpperCase(Locale.ROOT);
+     String marker = switch (verb) {
+         case "SELECT", "DELETE" -> "FROM";
+         case "INSERT", "MERGE" -> "INTO";
+         default -> null;
+     };
+     for (int i = 1; i < words.length - 1; i++) {
+         if (marker == null || words[i].equalsIgnoreCase(marker)) {
+             return verb + " " + words[i + (marker == null ? 0 : 1)].toLowerCase(Locale.ROOT);
+         }
+     }
+     return verb;
+ }
+
+ private static final class StatementHandler implements InvocationHandler {
+     private final Statement statement;
+     private final String sql;
+     // The query whose result set is still open
+     private Diagnostics.StatementEvent open;
+     private long openRows;
+     private long openStart;
+
+     private StatementHandler(Statement statement, String sql) {
+         this.statement = statement;
+         this.sql = sql;
+     }
+
+     @Override
+     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+         String name = method.getName();
+         switch (name) {
+             case "equals":
+                 return proxy == args[0];
+             case "hashCode":
+                 return System.identityHashCode(proxy);
+             case "toString":
+                 return "Traced" + statement;
+             case "close":
+                 finish();
+                 return call(statement, method, args);
+             default:
+                 break;
+         }
+         if (!name.startsWith("execute")) {
+             return call(statement, method, args);
+         }
+
+         // A new execute implicitly closes the previous result set
+         finish();
+         Diagnostics.StatementEvent event = new Diagnostics.StatementEvent();
+         event.sql = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+         event.begin();
+         long start = System.nanoTime();
+         Object result;
+         try {
+             result = call(statement, method, args);
+         } catch (Throwable e) {
+             event.error = e.getMessage();
+             commit(event, start, -1);
+             throw e;
+         }
+
+         if (result instanceof ResultSet resultSet) {
+             open = event;
+             openRows = 0;
+             openStart = start;
+             return countingResultSet(resultSet, proxy);
+         }
+         commit(event, start, rowCount(result));
+         return result;
+     }
+
+     private static Object call(Object target, Method method, Object[] args) throws Throwable {
+         try {
+             return method.invoke(target, args);
+         } catch (InvocationTargetException e) {
+             throw e.getCause();
+         }
+     }
+
+     private ResultSet countingResultSet(ResultSet resultSet, Object owner) {
+         return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+             new Class<?>[]{ResultSet.class}, (rsProxy, method, args) -> {
+                 switch (method.getName()) {
+                     case "close":
+                         finish();
+                         break;
+                     case "equals":
+                         return rsProxy == args[0];
+                     case "hashCode":
+                         return System.identityHashCode(rsProxy);
+                     case "getStatement":
+                         return owner;
+                     default:
+                         break;
+                 }
+                 Object result = call(resultSet, method, args);
+                 if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                     openRows++;
+                 }
+                 return result;
+             });
+     }
+
+     private void finish() {
+         if (open != null) {
+             commit(open, openStart, openRows);
+             open = null;
+         }
+     }
+
+     private static long rowCount(Object result) {
+         if (result instanceof Integer count) {
+             return count;
+         }
+         if (result instanceof Long count) {
+             return count;
+         }
+         long total = 0;
+         if (result instanceof int[] counts) {
+             for (int count : counts) {
+                 total += Math.max(count, 0);
+             }
+         } else if (result instanceof long[] counts) {
+             for (long count : counts) {
+                 total += Math.max(count, 0);
+             }
+         } else {
+             // execute() returning false: the rows are in getUpdateCount, which we leave alone
+             return -1;
+         }
+         return total;
+     }
+
+     private static void commit(Diagnostics.StatementEvent event, long start, long rows) {
+         event.end();
+         Metrics.record("sql " + label(event.sql), System.nanoTime() - start);
+         if (event.shouldCommit()) {
+             event.label = label(event.sql);
+             event.rows = rows;
+             event.commit();
+         }
+     }
+ }
+}
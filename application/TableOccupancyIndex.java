@@ -0,0 +1,82 @@
+package application;
+//TableOccupancyIndex.java
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Bookings per table, sorted by time, so "is this table free at T" is a range probe on one
+// small set instead of a scan of table_bookings.
+//
+// One overlap rule everywhere: a booking holds its table from TURNOVER before to TURNOVER
+// after its booking time, both ends inclusive, which is the window the booking pane used.
+public class TableOccupancyIndex {
+
+ public static final Duration TURNOVER = Duration.ofHours(1);
+
+ private static final Comparator<Booking> BY_TIME =
+     Comparator.comparing(Booking::bookingTime).thenComparingInt(Booking::id);
+
+ private record State(List<DiningTable> byNumber, List<DiningTable> byCapacity,
+                      Map<Integer, NavigableSet<Booking>> bookings) {}
+
+ private volatile State state = new State(List.of(), List.of(), new ConcurrentHashMap<>());
+
+ // Replaces the whole index; readers keep using the previous state until the swap
+ public void load(List<DiningTable> tables, List<Booking> bookings) {
+     List<DiningTable> byNumber = new ArrayList<>(tables);
+     byNumber.sort(Comparator.comparingInt(DiningTable::tableNumber));
+     List<DiningTable> byCapacity = new ArrayList<>(tables);
+     byCapacity.sort(Comparator.comparingInt(DiningTable::capacity).thenComparingInt(DiningTable::tableNumber));
+
+     Map<Integer, NavigableSet<Booking>> byTable = new ConcurrentHashMap<>();
+     for (Booking booking : bookings) {
+         byTable.computeIfAbsent(booking.tableNumber(), t -> new ConcurrentSkipListSet<>(BY_TIME)).add(booking);
+     }
+     state = new State(List.copyOf(byNumber), List.copyOf(byCapacity), byTable);
+ }
+
+ public void add(Booking booking) {
+     state.bookings().computeIfAbsent(booking.tableNumber(), t -> new ConcurrentSkipListSet<>(BY_TIME)).add(booking);
+ }
+
+ public List<DiningTable> tables() {
+     return state.byNumber();
+ }
+
+ // The earliest booking holding tableNumber at time, if any
+ public Optional<Booking> findConflict(int tableNumber, LocalDateTime time) {
+     NavigableSet<Booking> bookings = state.bookings().get(tableNumber);
+     if (bookings == null) {
+         return Optional.empty();
+     }
+     Booking from = new Booking(Integer.MIN_VALUE, tableNumber, 0, time.minus(TURNOVER), 0);
+     Booking to = new Booking(Integer.MAX_VALUE, tableNumber, 0, time.plus(TURNOVER), 0);
+     return Optional.ofNullable(bookings.ceiling(from)).filter(b -> BY_TIME.compare(b, to) <= 0);
+ }
+
+ // Tables seating at least partySize that are free at time, smallest first
+ public List<DiningTable> findAvailable(int partySize, LocalDateTime time) {
+     List<DiningTable> available = new ArrayList<>();
+     for (DiningTable table : state.byCapacity()) {
+         if (table.capacity() >= partySize && findConflict(table.tableNumber(), time).isEmpty()) {
+             available.add(table);
+         }
+     }
+     return available;
+ }
+
+ public int size() {
+     int size = 0;
+     for (NavigableSet<Booking> bookings : state.bookings().values()) {
+         size += bookings.size();
+     }
+     return size;
+ }
+}
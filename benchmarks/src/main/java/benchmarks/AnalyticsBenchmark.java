@@ -0,0 +1,54 @@
+package benchmarks;
+//AnalyticsBenchmark.java
+
+import application.DataStore;
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Everything loadAnalytics computes: customer and order counts, average rating, most popular item
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkData.H2_URL, BenchmarkData.H2_DRIVER, BenchmarkData.H2_USER, BenchmarkData.H2_PASSWORD})
+public class AnalyticsBenchmark {
+
+ @Param({"memory", "h2"})
+ public String store;
+
+ @Param({"1000", "20000"})
+ public int orders;
+
+ private DataStore dataStore;
+
+ @Setup
+ public void setUp() throws SQLException {
+     dataStore = BenchmarkData.open(store);
+     Random random = new Random(42);
+     int[] customerIds = BenchmarkData.seedCustomers(dataStore, 1_000);
+     BenchmarkData.seedOrders(dataStore, customerIds, orders, 4, random);
+     BenchmarkData.seedFeedback(dataStore, customerIds, orders / 10, random);
+ }
+
+ @Benchmark
+ public void loadAnalytics(Blackhole blackhole) throws SQLException {
+     blackhole.consume(dataStore.customers().count());
+     blackhole.consume(dataStore.orders().count());
+     blackhole.consume(dataStore.feedback().averageRating());
+     blackhole.consume(dataStore.orders().mostPopularItem());
+ }
+}
@@ -0,0 +1,113 @@
+package benchmarks;
+//BenchmarkData.java
+
+import application.DataStore;
+import application.DatabaseConnection;
+import application.InMemoryStore;
+import application.MenuItem;
+import application.OrderLine;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Store setup and seeding shared by the benchmarks. "memory" is InMemoryStore, "h2" runs
+// the real JDBC repositories against an in-process H2 database in Oracle mode.
+final class BenchmarkData {
+
+ // Applied to every forked benchmark JVM so DatabaseConnection points at H2
+ static final String H2_URL = "-Drestaurant.db.url=jdbc:h2:mem:bench;MODE=Oracle;DB_CLOSE_DELAY=-1";
+ static final String H2_DRIVER = "-Drestaurant.db.driver=org.h2.Driver";
+ static final String H2_USER = "-Drestaurant.db.user=sa";
+ static final String H2_PASSWORD = "-Drestaurant.db.password=";
+
+ static final LocalDateTime FIRST_SLOT = LocalDateTime.of(2025, 1, 1, 9, 0);
+ static final int SLOTS_PER_DAY = 13;
+
+ private BenchmarkData() {
+ }
+
+ static DataStore open(String kind) throws SQLException {
+     return switch (kind) {
+         case "memory" -> DataStore.inMemory(InMemoryStore.withInitialData());
+         case "h2" -> {
+             // Keep the feedback spill and order journal away from the real ones in the user's home directory
+             if (System.getProperty("restaurant.feedback.spillDir") == null) {
+                 System.setProperty("restaurant.feedback.spillDir", tempDirectory("feedback-spill").toString());
+             }
+             if (System.getProperty("restaurant.journal.dir") == null) {
+                 System.setProperty("restaurant.journal.dir", tempDirectory("order-journal").toString());
+             }
+             DatabaseConnection.initializeDatabase();
+             yield DataStore.jdbc();
+         }
+         default -> throw new IllegalArgumentException("Unknown store: " + kind);
+     };
+ }
+
+ static int[] seedCustomers(DataStore store, int count) throws SQLException {
+     int[] ids = new int[count];
+     for (int i = 0; i < count; i++) {
+         ids[i] = store.customers().register("Customer " + i);
+     }
+     return ids;
+ }
+
+ static int[] seedOrders(DataStore store, int[] customerIds, int count, int linesPerOrder, Random random)
+         throws SQLException {
+     List<OrderLine> cart = cart(store, linesPerOrder);
+     int[] orderIds = new int[count];
+     for (int i = 0; i < count; i++) {
+         int customerId = customerIds[random.nextInt(customerIds.length)];
+         orderIds[i] = store.orders().place(customerId, cart).orderId();
+     }
+     return orderIds;
+ }
+
+ // One booking per table every other hourly slot, walking forward from FIRST_SLOT; bookings
+ // an hour apart would overlap (TableOccupancyIndex.TURNOVER) and be turned down
+ static void seedBookings(DataStore store, int[] customerIds, int count, Random random) throws SQLException {
+     for (int i = 0; i < count; i++) {
+         int tableNumber = 1 + i % 5;
+         int slot = 2 * (i / 5);
+         store.bookings().book(tableNumber, customerIds[random.nextInt(customerIds.length)], slotTime(slot), 2);
+     }
+ }
+
+ static void seedFeedback(DataStore store, int[] customerIds, int count, Random random) {
+     try {
+         for (int i = 0; i < count; i++) {
+             store.feedback().submit(customerIds[random.nextInt(customerIds.length)], "Benchmark feedback", 1 + random.nextInt(5));
+         }
+     } catch (SQLException e) {
+         throw new IllegalStateException("Feedback not seeded", e);
+     }
+ }
+
+ static Path tempDirectory(String prefix) {
+     try {
+         return Files.createTempDirectory(prefix);
+     } catch (IOException e) {
+         throw new UncheckedIOException(e);
+     }
+ }
+
+ static LocalDateTime slotTime(int slot) {
+     return FIRST_SLOT.plusDays(slot / SLOTS_PER_DAY).plusHours(slot % SLOTS_PER_DAY);
+ }
+
+ static List<OrderLine> cart(DataStore store, int lines) throws SQLException {
+     List<MenuItem> menu = store.menu().findAll();
+     List<OrderLine> cart = new ArrayList<>();
+     for (int i = 0; i < lines; i++) {
+         MenuItem item = menu.get(i % menu.size());
+         cart.add(new OrderLine(item.id(), 1 + i % 3, item.name()));
+     }
+     return cart;
+ }
+}
@@ -0,0 +1,128 @@
+package benchmarks;
+//CustomerSearchBenchmark.java
+
+import application.CustomerNameIndex;
+import application.DataStore;
+import application.InMemoryStore;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The search box in createCustomerManagementPane, one keystroke's lookup, over a large customer
+// base. scanBaseline answers the twoWords queries by walking every name instead.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CustomerSearchBenchmark {
+
+ private static final int LIMIT = 50;
+ private static final String[] FIRST = {
+     "Aarav", "Aditi", "Amit", "Ananya", "Arjun", "Deepa", "Divya", "Farhan", "Gaurav", "Ishaan",
+     "Kavya", "Kiran", "Meera", "Mohan", "Neha", "Nikhil", "Pooja", "Priya", "Rahul", "Raj",
+     "Rohan", "Sana", "Sanjay", "Shreya", "Sunita", "Tanvi", "Varun", "Vikram", "Yash", "Zoya",
+     "Anna", "David", "Elena", "George", "Hannah", "James", "José", "Maria", "Omar", "Sofia"};
+ private static final String[] LAST = {
+     "Agarwal", "Bhatt", "Chopra", "Das", "Desai", "Gupta", "Iyer", "Jain", "Joshi", "Kapoor",
+     "Khan", "Kumar", "Mehta", "Menon", "Mishra", "Nair", "Patel", "Pillai", "Rao", "Reddy",
+     "Saxena", "Shah", "Sharma", "Singh", "Sinha", "Verma", "Yadav", "Brown", "García", "Smith"};
+ private static final String[] SYLLABLES = {
+     "ka", "ri", "mo", "ta", "na", "vel", "shan", "dra", "lo", "pa", "ren", "si", "bha", "gu", "tor"};
+ private static final String[] PREFIXES = {"sha", "pri", "kum", "jo", "meh", "gar"};
+ private static final String[] TWO_WORDS = {"priya sh", "raj kum", "ananya me", "jose gar"};
+ private static final String[] TYPOS = {"shrama", "priay", "kumra", "agrawal"};
+
+ @Param({"1000000"})
+ public int customers;
+
+ private DataStore dataStore;
+ private List<String> foldedNames;
+
+ @Setup
+ public void setUp() throws SQLException, IOException {
+     InMemoryStore store = InMemoryStore.withInitialData();
+     Random random = new Random(42);
+     foldedNames = new ArrayList<>(customers);
+     for (int i = 0; i < customers; i++) {
+         String name = name(random);
+         store.customers().register(name);
+         foldedNames.add(" " + name.toLowerCase(Locale.ROOT).replace("é", "e").replace("í", "i"));
+     }
+     dataStore = DataStore.inMemory(store);
+     // Builds the name index the way the app does at startup
+     dataStore.preload();
+ }
+
+ @Benchmark
+ public List<CustomerNameIndex.Match> prefix() throws SQLException {
+     return dataStore.searchCustomers(pick(PREFIXES), LIMIT);
+ }
+
+ @Benchmark
+ public List<CustomerNameIndex.Match> twoWords() throws SQLException {
+     return dataStore.searchCustomers(pick(TWO_WORDS), LIMIT);
+ }
+
+ @Benchmark
+ public List<CustomerNameIndex.Match> typo() throws SQLException {
+     return dataStore.searchCustomers(pick(TYPOS), LIMIT);
+ }
+
+ @Benchmark
+ public List<CustomerNameIndex.Match> id() throws SQLException {
+     return dataStore.searchCustomers(String.valueOf(1 + ThreadLocalRandom.current().nextInt(customers)), LIMIT);
+ }
+
+ @Benchmark
+ public List<String> scanBaseline() {
+     String[] words = pick(TWO_WORDS).split(" ");
+     String first = " " + words[0];
+     String second = " " + words[1];
+     List<String> found = new ArrayList<>();
+     for (String name : foldedNames) {
+         if (name.contains(first) && name.contains(second)) {
+             found.add(name);
+             if (found.size() == LIMIT) {
+                 break;
+             }
+         }
+     }
+     return found;
+ }
+
+ private static String pick(String[] queries) {
+     return queries[ThreadLocalRandom.current().nextInt(queries.length)];
+ }
+
+ // Mostly common names, with one surname in five made up so the vocabulary is realistically large
+ private static String name(Random random) {
+     String first = FIRST[random.nextInt(FIRST.length)];
+     if (random.nextInt(5) > 0) {
+         return first + " " + LAST[random.nextInt(LAST.length)];
+     }
+     StringBuilder last = new StringBuilder();
+     for (int s = 2 + random.nextInt(2); s > 0; s--) {
+         last.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+     }
+     last.setCharAt(0, Character.toUpperCase(last.charAt(0)));
+     return first + " " + last;
+ }
+}
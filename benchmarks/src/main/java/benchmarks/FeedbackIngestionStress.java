@@ -0,0 +1,150 @@
+package benchmarks;
+//FeedbackIngestionStress.java
+
+import application.DataStore;
+import application.DatabaseConnection;
+import application.FeedbackIngestion;
+import application.FeedbackRepository;
+import application.JdbcFeedbackRepository;
+import application.LatencyHistogram;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+// Kiosks submitting feedback at a peak, against H2. Checks that submit stays in the
+// microseconds, that every row reaches the table once, that rows for unknown customers are
+// set aside without holding up the rest, and that a spill left by a "crashed" run is
+// replayed on the next start without storing anything twice.
+//
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.FeedbackIngestionStress [kiosks] [perKiosk]
+public final class FeedbackIngestionStress {
+
+ private static final int UNKNOWN_CUSTOMER = 999_999;
+
+ private FeedbackIngestionStress() {
+ }
+
+ public static void main(String[] args) throws Exception {
+     int kiosks = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+     int perKiosk = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+     // Must be set before DatabaseConnection is first touched
+     for (String property : List.of(BenchmarkData.H2_URL, BenchmarkData.H2_DRIVER,
+             BenchmarkData.H2_USER, BenchmarkData.H2_PASSWORD)) {
+         String[] pair = property.substring(2).split("=", 2);
+         System.setProperty(pair[0], pair[1]);
+     }
+     DataStore store = BenchmarkData.open("h2");
+     int[] customerIds = BenchmarkData.seedCustomers(store, 50);
+     JdbcFeedbackRepository table = new JdbcFeedbackRepository();
+     Path spill = BenchmarkData.tempDirectory("feedback-stress");
+     List<String> failures = new ArrayList<>();
+
+     // 1. A peak: every kiosk submits as fast as it can, one in a thousand for a customer that doesn't exist
+     FeedbackIngestion ingestion = new FeedbackIngestion(table, spill, 200, Duration.ofMillis(250));
+     ingestion.start();
+     LatencyHistogram submitLatency = new LatencyHistogram();
+     CountDownLatch go = new CountDownLatch(1);
+     long began;
+     // Platform threads: each kiosk is its own client, not a task sharing carriers with the others
+     try (ExecutorService executor = Executors.newFixedThreadPool(kiosks)) {
+         List<Future<?>> futures = new ArrayList<>();
+         for (int k = 0; k < kiosks; k++) {
+             int kiosk = k;
+             futures.add(executor.submit(() -> {
+                 go.await();
+                 for (int i = 0; i < perKiosk; i++) {
+                     int customerId = i % 1000 == 999 ? UNKNOWN_CUSTOMER : customerIds[(kiosk + i) % customerIds.length];
+                     long start = System.nanoTime();
+                     ingestion.submit(customerId, "Kiosk " + kiosk + "\tsays\n\"lovely\" #" + i, 1 + i % 5);
+                     submitLatency.recordNanos(System.nanoTime() - start);
+                 }
+                 return null;
+             }));
+         }
+         began = System.nanoTime();
+         go.countDown();
+         for (Future<?> future : futures) {
+             future.get();
+         }
+     }
+     long submitMillis = (System.nanoTime() - began) / 1_000_000;
+     ingestion.close();
+     long drainMillis = (System.nanoTime() - began) / 1_000_000;
+
+     long total = (long) kiosks * perKiosk;
+     long unknown = (long) kiosks * (perKiosk / 1000);
+     FeedbackIngestion.Stats stats = ingestion.getStats();
+     long stored = table.ratingTotals().count();
+     System.out.printf("%d kiosks x %d: submitted in %dms, drained in %dms, submit p50 %dus p99 %dus max %dus%n",
+         kiosks, perKiosk, submitMillis, drainMillis, submitLatency.valueAtPercentile(50),
+         submitLatency.valueAtPercentile(99), submitLatency.getMaxMicros());
+     System.out.println("  " + stats + ", rows in table " + stored);
+     if (stored != total - unknown || stats.rejected() != unknown || stats.pending() != 0) {
+         failures.add("peak: expected " + (total - unknown) + " stored and " + unknown + " rejected");
+     }
+     if (segments(spill) != 0) {
+         failures.add("peak: spill segments left after a clean close");
+     }
+
+     // 2. A crash: one run queues feedback and dies before its flusher ever runs
+     FeedbackIngestion crashed = new FeedbackIngestion(table, spill, 1_000, Duration.ofHours(1));
+     int crashedRows = 500;
+     for (int i = 0; i < crashedRows; i++) {
+         crashed.submit(customerIds[i % customerIds.length], "Before the crash " + i, 1 + i % 5);
+     }
+     // Keep a copy of its spill as if the next run had also died just after writing it
+     Path copy = BenchmarkData.tempDirectory("feedback-copy").resolve("segment");
+     try (Stream<Path> files = Files.list(spill)) {
+         Files.copy(files.filter(p -> p.getFileName().toString().startsWith("feedback-")).findFirst().orElseThrow(),
+             copy, StandardCopyOption.REPLACE_EXISTING);
+     }
+
+     FeedbackIngestion restarted = new FeedbackIngestion(table, spill, 200, Duration.ofMillis(250));
+     restarted.start();
+     long afterReplay = table.ratingTotals().count();
+     restarted.close();
+     System.out.printf("  crash replay: %d rows recovered%n", afterReplay - stored);
+     if (afterReplay - stored != crashedRows) {
+         failures.add("replay: expected " + crashedRows + " rows, table grew by " + (afterReplay - stored));
+     }
+
+     // 3. The copy holds the same rows, already committed; replaying it must add nothing
+     Files.copy(copy, spill.resolve("feedback-1-000000.spill"));
+     FeedbackIngestion again = new FeedbackIngestion(table, spill, 200, Duration.ofMillis(250));
+     again.start();
+     again.close();
+     long afterDuplicate = table.ratingTotals().count();
+     System.out.printf("  duplicate replay: %d rows added%n", afterDuplicate - afterReplay);
+     if (afterDuplicate != afterReplay) {
+         failures.add("duplicate replay stored " + (afterDuplicate - afterReplay) + " rows twice");
+     }
+     if (segments(spill) != 0) {
+         failures.add("replay: spill segments left behind");
+     }
+
+     FeedbackRepository.RatingTotals totals = table.ratingTotals();
+     System.out.printf("  table: %d rows, average %.2f%n", totals.count(), totals.sum() / (double) totals.count());
+     DatabaseConnection.shutdown();
+     if (!failures.isEmpty()) {
+         failures.forEach(System.err::println);
+         System.err.println("FAILED");
+         System.exit(1);
+     }
+     System.out.println("OK");
+ }
+
+ private static long segments(Path dir) throws Exception {
+     try (Stream<Path> files = Files.list(dir)) {
+         return files.filter(p -> p.getFileName().toString().endsWith(".spill")).count();
+     }
+ }
+}
@@ -0,0 +1,76 @@
+package benchmarks;
+//KitchenTicketStress.java
+
+import application.KitchenTicket;
+import application.KitchenTickets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Many tills publish tickets at once while a single-threaded deliverer stands in for the FX
+// thread. Every ticket must arrive exactly once, each till's tickets in the order it sent them.
+//
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.KitchenTicketStress [tills] [ticketsPerTill]
+public final class KitchenTicketStress {
+
+ private KitchenTicketStress() {
+ }
+
+ public static void main(String[] args) throws Exception {
+     int tills = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+     int perTill = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+     int total = tills * perTill;
+
+     ExecutorService fxThread = Executors.newSingleThreadExecutor();
+     KitchenTickets kitchen = new KitchenTickets(fxThread);
+     // Last sequence number seen per till; only the deliverer thread writes it
+     AtomicIntegerArray lastSeen = new AtomicIntegerArray(tills);
+     int[] outOfOrder = new int[1];
+     int[] maxBatch = new int[1];
+     CountDownLatch received = new CountDownLatch(total);
+     kitchen.attach(batch -> {
+         maxBatch[0] = Math.max(maxBatch[0], batch.size());
+         for (KitchenTicket ticket : batch) {
+             // orderId encodes till * perTill + sequence
+             int till = ticket.orderId() / perTill;
+             int sequence = ticket.orderId() % perTill + 1;
+             if (sequence != lastSeen.get(till) + 1) {
+                 outOfOrder[0]++;
+             }
+             lastSeen.set(till, sequence);
+             received.countDown();
+         }
+     });
+
+     List<KitchenTicket.Item> items = List.of(new KitchenTicket.Item(2, "Veg Biryani", 1), new KitchenTicket.Item(6, "Rotis", 4));
+     LocalDateTime placedAt = LocalDateTime.now();
+     long began = System.nanoTime();
+     try (ExecutorService producers = Executors.newVirtualThreadPerTaskExecutor()) {
+         for (int till = 0; till < tills; till++) {
+             int base = till * perTill;
+             producers.execute(() -> {
+                 for (int i = 0; i < perTill; i++) {
+                     kitchen.publish(new KitchenTicket(base + i, 1, placedAt, items));
+                 }
+             });
+         }
+     }
+     boolean complete = received.await(60, TimeUnit.SECONDS);
+     double seconds = (System.nanoTime() - began) / 1e9;
+     fxThread.shutdown();
+
+     KitchenTickets.Stats stats = kitchen.getStats();
+     System.out.printf("%d tills x %d tickets in %.2fs = %.0f tickets/min, largest batch %d%n",
+         tills, perTill, seconds, total / seconds * 60, maxBatch[0]);
+     System.out.println(stats);
+     if (!complete || stats.delivered() != total || stats.dropped() != 0 || outOfOrder[0] != 0) {
+         System.err.println("FAILED: complete=" + complete + " outOfOrder=" + outOfOrder[0]);
+         System.exit(1);
+     }
+     System.out.println("OK");
+ }
+}
@@ -0,0 +1,136 @@
+package benchmarks;
+//MenuImportLoad.java
+
+import application.DataStore;
+import application.DatabaseConnection;
+import application.MenuImporter;
+import java.io.BufferedWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes a large menu as CSV and as JSON, imports each twice (the second pass updates every
+// row) and reports rows/s and peak heap. Every INVALID_EVERY-th row is broken on purpose and
+// must be rejected without stopping the load.
+//
+//   java -Xmx128m -cp benchmarks/target/benchmarks.jar benchmarks.MenuImportLoad [memory|h2] [rows] [batchSize]
+public final class MenuImportLoad {
+
+ private static final int INVALID_EVERY = 10_000;
+ private static final int FIRST_ID = 1_000;
+
+ private MenuImportLoad() {
+ }
+
+ public static void main(String[] args) throws Exception {
+     String kind = args.length > 0 ? args[0] : "h2";
+     int rows = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+     int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : MenuImporter.DEFAULT_BATCH_SIZE;
+
+     if (kind.equals("h2")) {
+         // Must be set before DatabaseConnection is first touched
+         for (String property : List.of(BenchmarkData.H2_URL, BenchmarkData.H2_DRIVER,
+                 BenchmarkData.H2_USER, BenchmarkData.H2_PASSWORD)) {
+             String[] pair = property.substring(2).split("=", 2);
+             System.setProperty(pair[0], pair[1]);
+         }
+     }
+
+     DataStore store = BenchmarkData.open(kind);
+     int seeded = store.menu().findAll().size();
+     Path dir = Files.createTempDirectory("menu-import");
+     Path csv = writeCsv(dir.resolve("menu.csv"), rows);
+     Path json = writeJson(dir.resolve("menu.json"), rows);
+     System.out.printf("%s: %d rows, batch %d, csv %d KB, json %d KB%n",
+         kind, rows, batchSize, Files.size(csv) / 1024, Files.size(json) / 1024);
+
+     long invalid = rows / INVALID_EVERY;
+     List<String> failures = new ArrayList<>();
+     MenuImporter importer = new MenuImporter(store.menu(), batchSize);
+     for (Path file : List.of(csv, json, csv)) {
+         System.gc();
+         resetPeakHeap();
+         MenuImporter.Result result = importer.importFile(file);
+         System.out.printf("  %-10s %s, peak heap %d MB%n",
+             file.getFileName(), result, peakHeap() / (1024 * 1024));
+         if (result.rows() != rows || result.rejected() != invalid || result.imported() != rows - invalid) {
+             failures.add(file.getFileName() + ": " + result);
+         }
+     }
+
+     int loaded = store.menu().findAll().size();
+     if (loaded != seeded + rows - invalid) {
+         failures.add("menu has " + loaded + " items, expected " + (seeded + rows - invalid));
+     }
+
+     if (kind.equals("h2")) {
+         DatabaseConnection.shutdown();
+     }
+     Files.delete(csv);
+     Files.delete(json);
+     Files.delete(dir);
+     if (!failures.isEmpty()) {
+         failures.forEach(System.err::println);
+         System.err.println("FAILED");
+         System.exit(1);
+     }
+     System.out.println("OK");
+ }
+
+ private static Path writeCsv(Path file, int rows) throws Exception {
+     try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+         out.write("id,name,price\n");
+         for (int i = 0; i < rows; i++) {
+             if (i % INVALID_EVERY == INVALID_EVERY - 1) {
+                 out.write((FIRST_ID + i) + ",Broken item,-1\n");
+             } else {
+                 // Quoted names with commas and doubled quotes exercise the slow path of the parser
+                 String name = i % 7 == 0 ? "\"Thali, \"\"special\"\" " + i + "\"" : "Dish " + i;
+                 out.write((FIRST_ID + i) + "," + name + "," + price(i) + "\n");
+             }
+         }
+     }
+     return file;
+ }
+
+ private static Path writeJson(Path file, int rows) throws Exception {
+     try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+         out.write("[\n");
+         for (int i = 0; i < rows; i++) {
+             String name = i % 7 == 0 ? "Thali, \\\"special\\\" " + i : "Dish " + i;
+             String price = i % INVALID_EVERY == INVALID_EVERY - 1 ? "\"free\"" : price(i);
+             out.write("  {\"id\": " + (FIRST_ID + i) + ", \"name\": \"" + name + "\", \"price\": " + price + "}");
+             out.write(i < rows - 1 ? ",\n" : "\n");
+         }
+         out.write("]\n");
+     }
+     return file;
+ }
+
+ private static String price(int i) {
+     return (50 + i % 900) + "." + (i % 4 == 0 ? "5" : "00");
+ }
+
+ private static void resetPeakHeap() {
+     for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+         if (pool.getType() == MemoryType.HEAP) {
+             pool.resetPeakUsage();
+         }
+     }
+ }
+
+ private static long peakHeap() {
+     long peak = 0;
+     for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+         if (pool.getType() == MemoryType.HEAP) {
+             peak += pool.getPeakUsage().getUsed();
+         }
+     }
+     return peak;
+ }
+}
@@ -0,0 +1,306 @@
+package benchmarks;
+//OfflineJournalStress.java
+
+import application.DataStore;
+import application.DatabaseConnection;
+import application.JdbcBookingRepository;
+import application.JdbcMenuRepository;
+import application.JdbcOrderRepository;
+import application.JdbcPaymentRepository;
+import application.LatencyHistogram;
+import application.OfflineCapture;
+import application.OrderDetails;
+import application.OrderJournal;
+import application.OrderLine;
+import application.PlacedOrder;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.h2.tools.Server;
+
+// Two parts. First the raw OrderJournal: threads appending order-sized records as fast as
+// they can, to show an append costs microseconds. Then an outage against H2 served over TCP:
+// orders are placed and paid, the server is stopped, the tills carry on taking orders,
+// payments and bookings into the journal, and once the server is back everything has to
+// reach the tables exactly once and in a usable order. A copy of the journal taken during the
+// outage is then replayed a second time, which must change nothing.
+//
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.OfflineJournalStress [threads] [perThread]
+public final class OfflineJournalStress {
+
+ private static final int ONLINE_ORDERS = 50;
+ private static final int OFFLINE_ORDERS = 100;
+ private static final int OFFLINE_BOOKINGS = 10;
+ private static final int UNKNOWN_CUSTOMER = 999_999;
+
+ private OfflineJournalStress() {
+ }
+
+ public static void main(String[] args) throws Exception {
+     int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+     int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+     List<String> failures = new ArrayList<>();
+
+     appendThroughput(threads, perThread, failures);
+     outage(failures);
+
+     if (!failures.isEmpty()) {
+         failures.forEach(System.err::println);
+         System.err.println("FAILED");
+         System.exit(1);
+     }
+     System.out.println("OK");
+ }
+
+ private static void appendThroughput(int threads, int perThread, List<String> failures) throws Exception {
+     Path dir = BenchmarkData.tempDirectory("journal-append");
+     OrderJournal journal = new OrderJournal(dir, OrderJournal.DEFAULT_SEGMENT_BYTES, false);
+     journal.open((sequence, payload) -> { });
+     // About what an order with three lines takes
+     byte[] record = new byte[53];
+     LatencyHistogram latency = new LatencyHistogram();
+     CountDownLatch go = new CountDownLatch(1);
+     long began;
+     try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+         List<Future<?>> futures = new ArrayList<>();
+         for (int t = 0; t < threads; t++) {
+             futures.add(executor.submit(() -> {
+                 ByteBuffer payload = ByteBuffer.wrap(record);
+                 go.await();
+                 for (int i = 0; i < perThread; i++) {
+                     long start = System.nanoTime();
+                     journal.append(payload);
+                     latency.recordNanos(System.nanoTime() - start);
+                 }
+                 return null;
+             }));
+         }
+         began = System.nanoTime();
+         go.countDown();
+         for (Future<?> future : futures) {
+             future.get();
+         }
+     }
+     double elapsed = (System.nanoTime() - began) / 1e9;
+     long total = (long) threads * perThread;
+     // The directory is locked while open
+     try {
+         new OrderJournal(dir, OrderJournal.DEFAULT_SEGMENT_BYTES, false).open((sequence, payload) -> { });
+         failures.add("append: a second journal opened a directory in use");
+     } catch (IOException expected) {
+         System.out.println("second open refused: " + expected.getMessage());
+     }
+     journal.close();
+     long segments;
+     try (Stream<Path> files = Files.list(dir)) {
+         segments = files.filter(path -> path.toString().endsWith(".wal")).count();
+     }
+     System.out.printf("append: %d threads, %d records in %.2fs, %.0f records/s, p50 %dus p99 %dus max %dus, %d segments%n",
+         threads, total, elapsed, total / elapsed, latency.valueAtPercentile(50), latency.valueAtPercentile(99),
+         latency.getMaxMicros(), segments);
+
+     // Reopening must find every record, in sequence order
+     long[] seen = {0, 0};
+     new OrderJournal(dir, OrderJournal.DEFAULT_SEGMENT_BYTES, false).open((sequence, payload) -> {
+         if (sequence != seen[1] + 1) {
+             failures.add("append: record " + sequence + " follows " + seen[1]);
+         }
+         seen[0]++;
+         seen[1] = sequence;
+     });
+     if (seen[0] != total) {
+         failures.add("append: wrote " + total + " records, reopened " + seen[0]);
+     }
+     if (latency.valueAtPercentile(50) > 100) {
+         failures.add("append: median " + latency.valueAtPercentile(50) + "us is not microseconds");
+     }
+
+     // For comparison: every record forced to disk
+     OrderJournal synced = new OrderJournal(BenchmarkData.tempDirectory("journal-sync"), OrderJournal.DEFAULT_SEGMENT_BYTES, true);
+     synced.open((sequence, payload) -> { });
+     LatencyHistogram syncLatency = new LatencyHistogram();
+     for (int i = 0; i < 500; i++) {
+         long start = System.nanoTime();
+         synced.append(ByteBuffer.wrap(record));
+         syncLatency.recordNanos(System.nanoTime() - start);
+     }
+     synced.close();
+     System.out.printf("append with sync: p50 %dus p99 %dus%n", syncLatency.valueAtPercentile(50),
+         syncLatency.valueAtPercentile(99));
+ }
+
+ private static void outage(List<String> failures) throws Exception {
+     int port;
+     try (ServerSocket socket = new ServerSocket(0)) {
+         port = socket.getLocalPort();
+     }
+     Server server = Server.createTcpServer("-tcpPort", Integer.toString(port), "-ifNotExists").start();
+     // Must be set before DatabaseConnection is first touched
+     System.setProperty("restaurant.db.url", "jdbc:h2:tcp://localhost:" + port + "/mem:offline;MODE=Oracle;DB_CLOSE_DELAY=-1");
+     for (String property : List.of(BenchmarkData.H2_DRIVER, BenchmarkData.H2_USER, BenchmarkData.H2_PASSWORD)) {
+         String[] pair = property.substring(2).split("=", 2);
+         System.setProperty(pair[0], pair[1]);
+     }
+     Path journalDir = BenchmarkData.tempDirectory("order-journal");
+     System.setProperty("restaurant.journal.dir", journalDir.toString());
+     System.setProperty("restaurant.journal.retryMillis", "200");
+
+     DataStore store = BenchmarkData.open("h2");
+     int[] customerIds = BenchmarkData.seedCustomers(store, 20);
+     store.preload();
+     List<OrderLine> cart = BenchmarkData.cart(store, 3);
+     Path copy = BenchmarkData.tempDirectory("order-journal-copy");
+     try {
+         // 1. Online: orders go straight to the tables, every other one paid
+         List<PlacedOrder> unpaid = new ArrayList<>();
+         for (int i = 0; i < ONLINE_ORDERS; i++) {
+             PlacedOrder placed = store.orders().place(customerIds[i % customerIds.length], cart);
+             if (i % 2 == 0) {
+                 expect(failures, store.payments().settle(placed.orderId(), placed.totalAmount()), "online settle " + placed.orderId());
+             } else {
+                 unpaid.add(placed);
+             }
+         }
+         expect(failures, !store.isOffline(), "online: nothing should be journaled");
+         // Another till books table 1; this till's booking index hasn't seen it yet
+         new JdbcBookingRepository().book(1, customerIds[0], BenchmarkData.slotTime(2_000), 2);
+         int[] before = counts();
+
+         // 2. The database goes away; the tills carry on
+         server.stop();
+         LatencyHistogram offlineLatency = new LatencyHistogram();
+         List<PlacedOrder> offlineOrders = new ArrayList<>();
+         for (int i = 0; i < OFFLINE_ORDERS; i++) {
+             long start = System.nanoTime();
+             offlineOrders.add(store.orders().place(customerIds[i % customerIds.length], cart));
+             offlineLatency.recordNanos(System.nanoTime() - start);
+         }
+         expect(failures, store.isOffline(), "offline: orders should be journaled");
+         for (PlacedOrder placed : offlineOrders) {
+             long start = System.nanoTime();
+             expect(failures, store.payments().settle(placed.orderId(), placed.totalAmount()), "offline settle " + placed.orderId());
+             offlineLatency.recordNanos(System.nanoTime() - start);
+         }
+         // Placed before the outage; the till remembers their totals
+         for (PlacedOrder placed : unpaid) {
+             expect(failures, store.payments().settle(placed.orderId(), placed.totalAmount() + 10), "offline settle of online order " + placed.orderId());
+         }
+         expect(failures, !store.payments().settle(offlineOrders.get(0).orderId(), offlineOrders.get(0).totalAmount()),
+             "offline: an order paid twice");
+         for (int i = 0; i < OFFLINE_BOOKINGS; i++) {
+             long start = System.nanoTime();
+             store.bookings().book(1 + i % 5, customerIds[i], BenchmarkData.slotTime(1_000 + i), 2);
+             offlineLatency.recordNanos(System.nanoTime() - start);
+         }
+         // Mistyped customer and a table taken elsewhere: only the database can tell, so both
+         // are journaled and set aside on replay
+         store.orders().place(UNKNOWN_CUSTOMER, cart);
+         store.bookings().book(1, customerIds[1], BenchmarkData.slotTime(2_000), 2);
+         Optional<OrderDetails> details = store.orders().findDetails(offlineOrders.get(1).orderId());
+         expect(failures, details.isPresent() && details.get().paid() && details.get().items().size() == cart.size(),
+             "offline: details of a journaled order " + details);
+         OfflineCapture.Stats offline = store.offlineStats();
+         long expectedPending = OFFLINE_ORDERS * 2L + unpaid.size() + OFFLINE_BOOKINGS + 2;
+         System.out.printf("offline: %d writes journaled, p50 %dus p99 %dus max %dus%n", offline.journaled(),
+             offlineLatency.valueAtPercentile(50), offlineLatency.valueAtPercentile(99), offlineLatency.getMaxMicros());
+         expect(failures, offline.pending() == expectedPending, "offline: " + offline.pending() + " pending, expected " + expectedPending);
+
+         // Kept to replay a second time below
+         try (Stream<Path> files = Files.list(journalDir)) {
+             for (Path file : files.toList()) {
+                 Files.copy(file, copy.resolve(file.getFileName()));
+             }
+         }
+
+         // 3. The database is back; the replayer drains the journal
+         long restarted = System.nanoTime();
+         server = Server.createTcpServer("-tcpPort", Integer.toString(port), "-ifNotExists").start();
+         long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+         while (store.isOffline() && System.nanoTime() < deadline) {
+             Thread.sleep(20);
+         }
+         System.out.printf("replay: %s in %dms after restart%n", store.offlineStats(),
+             (System.nanoTime() - restarted) / 1_000_000);
+         expect(failures, !store.isOffline(), "replay: journal not drained");
+         expect(failures, store.offlineStats().rejected() == 2,
+             "replay: expected the unknown customer's order and the double booking rejected");
+         int[] after = counts();
+         int[] expected = {before[0] + OFFLINE_ORDERS, before[1] + OFFLINE_ORDERS * cart.size(),
+             ONLINE_ORDERS + OFFLINE_ORDERS, before[3] + OFFLINE_BOOKINGS};
+         checkCounts(failures, "replay", after, expected);
+         expect(failures, Files.exists(journalDir.resolve("rejected.log")), "replay: no rejected.log");
+
+         // Back to writing straight through
+         PlacedOrder online = store.orders().place(customerIds[0], cart);
+         expect(failures, store.payments().settle(online.orderId(), online.totalAmount()) && !store.isOffline(),
+             "after replay: not writing straight through");
+         expected[0]++;
+         expected[1] += cart.size();
+         expected[2]++;
+
+         // 4. The same entries again, as after a crash between commit and checkpoint
+         Files.deleteIfExists(copy.resolve("checkpoint"));
+         OfflineCapture again = new OfflineCapture(new JdbcOrderRepository(), new JdbcPaymentRepository(),
+             new JdbcBookingRepository(), new JdbcMenuRepository(), copy, 200, Duration.ofMillis(200), 0, false);
+         again.start();
+         again.close();
+         System.out.printf("second replay: %s%n", again.getStats());
+         expect(failures, again.getStats().replayed() == expectedPending, "second replay: not everything replayed");
+         // Every payment is already paid by now, and nothing else is refused again but the same two
+         long expectedRejected = OFFLINE_ORDERS + unpaid.size() + 2;
+         expect(failures, again.getStats().rejected() == expectedRejected,
+             "second replay: " + again.getStats().rejected() + " rejected, expected " + expectedRejected);
+         checkCounts(failures, "second replay", counts(), expected);
+     } finally {
+         store.close();
+         DatabaseConnection.shutdown();
+         server.stop();
+     }
+ }
+
+ // orders, order lines, paid orders, bookings
+ private static int[] counts() throws SQLException {
+     try (Connection conn = DatabaseConnection.getConnection(); Statement statement = conn.createStatement()) {
+         return new int[]{
+             count(statement, "SELECT COUNT(*) FROM orders"),
+             count(statement, "SELECT COUNT(*) FROM order_items"),
+             count(statement, "SELECT COUNT(*) FROM orders WHERE is_paid = 1"),
+             count(statement, "SELECT COUNT(*) FROM table_bookings")};
+     }
+ }
+
+ private static int count(Statement statement, String sql) throws SQLException {
+     try (ResultSet rs = statement.executeQuery(sql)) {
+         rs.next();
+         return rs.getInt(1);
+     }
+ }
+
+ private static void checkCounts(List<String> failures, String stage, int[] actual, int[] expected) {
+     String[] names = {"orders", "order lines", "paid orders", "bookings"};
+     for (int i = 0; i < names.length; i++) {
+         expect(failures, actual[i] == expected[i], stage + ": " + actual[i] + " " + names[i] + ", expected " + expected[i]);
+     }
+ }
+
+ private static void expect(List<String> failures, boolean condition, String failure) {
+     if (!condition) {
+         failures.add(failure);
+     }
+ }
+}
@@ -0,0 +1,61 @@
+package benchmarks;
+//OrderLookupBenchmark.java
+
+import application.DataStore;
+import application.OrderDetails;
+import application.OrderDetailsService;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// checkOrderBtn in createPaymentPane: order header plus its lines
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkData.H2_URL, BenchmarkData.H2_DRIVER, BenchmarkData.H2_USER, BenchmarkData.H2_PASSWORD})
+public class OrderLookupBenchmark {
+
+ @Param({"memory", "h2"})
+ public String store;
+
+ @Param({"10000"})
+ public int orders;
+
+ private DataStore dataStore;
+ private int[] orderIds;
+ private OrderDetailsService orderDetails;
+
+ @Setup
+ public void setUp() throws SQLException {
+     dataStore = BenchmarkData.open(store);
+     int[] customerIds = BenchmarkData.seedCustomers(dataStore, 1_000);
+     orderIds = BenchmarkData.seedOrders(dataStore, customerIds, orders, 4, new Random(42));
+     orderDetails = new OrderDetailsService(dataStore.orders(), dataStore.payments(), 256);
+ }
+
+ @Benchmark
+ public Optional<OrderDetails> lookUpOrder() throws SQLException {
+     return dataStore.orders().findDetails(orderIds[ThreadLocalRandom.current().nextInt(orderIds.length)]);
+ }
+
+ // The till case: the same handful of open orders looked up again and again
+ @Benchmark
+ public Optional<OrderDetails> lookUpHotOrder() throws SQLException {
+     return orderDetails.find(orderIds[ThreadLocalRandom.current().nextInt(16)]);
+ }
+}
@@ -0,0 +1,57 @@
+package benchmarks;
+//OrderPlacementBenchmark.java
+
+import application.DataStore;
+import application.OrderLine;
+import application.PlacedOrder;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// placeOrderBtn's submission path: price the cart, insert the order and its lines
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkData.H2_URL, BenchmarkData.H2_DRIVER, BenchmarkData.H2_USER, BenchmarkData.H2_PASSWORD})
+public class OrderPlacementBenchmark {
+
+ @Param({"memory", "h2"})
+ public String store;
+
+ @Param({"1", "12"})
+ public int linesPerOrder;
+
+ private DataStore dataStore;
+ private int[] customerIds;
+ private List<OrderLine> cart;
+
+ @Setup
+ public void setUp() throws SQLException {
+     dataStore = BenchmarkData.open(store);
+     customerIds = BenchmarkData.seedCustomers(dataStore, 1_000);
+     cart = BenchmarkData.cart(dataStore, linesPerOrder);
+     // Some history so inserts don't run against empty tables
+     BenchmarkData.seedOrders(dataStore, customerIds, 1_000, linesPerOrder, new Random(42));
+ }
+
+ @Benchmark
+ public PlacedOrder placeOrder() throws SQLException {
+     int customerId = customerIds[ThreadLocalRandom.current().nextInt(customerIds.length)];
+     return dataStore.orders().place(customerId, cart);
+ }
+}
@@ -0,0 +1,118 @@
+package benchmarks;
+//OrderPlacementProbe.java
+
+import application.DataStore;
+import application.DatabaseConnection;
+import application.JdbcOrderRepository;
+import application.OrderLine;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+// Places orders against H2 in Oracle mode, first with the old per-line statements and then
+// through JdbcOrderRepository, and prints round trips and latency per order. Round trips are
+// what matter against a remote Oracle; H2 in-process only shows how many there are.
+//
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.OrderPlacementProbe [orders] [linesPerOrder]
+public final class OrderPlacementProbe {
+
+ private OrderPlacementProbe() {
+ }
+
+ public static void main(String[] args) throws SQLException {
+     int orders = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+     int linesPerOrder = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+
+     // Must be set before DatabaseConnection is first touched
+     for (String property : List.of(BenchmarkData.H2_URL, BenchmarkData.H2_DRIVER,
+             BenchmarkData.H2_USER, BenchmarkData.H2_PASSWORD)) {
+         String[] pair = property.substring(2).split("=", 2);
+         System.setProperty(pair[0], pair[1]);
+     }
+     DataStore store = BenchmarkData.open("h2");
+     int customerId = BenchmarkData.seedCustomers(store, 1)[0];
+     List<OrderLine> lines = BenchmarkData.cart(store, linesPerOrder);
+
+     JdbcOrderRepository repository = new JdbcOrderRepository();
+     RoundTripCounter counter = new RoundTripCounter();
+
+     // Warm up the pool and the JIT before measuring
+     try (Connection conn = DatabaseConnection.getConnection()) {
+         placeOrderPerLine(conn, customerId, lines);
+         repository.place(conn, customerId, lines);
+     }
+
+     report("per-line (before)", orders, linesPerOrder, counter, () -> {
+         try (Connection conn = counter.wrap(DatabaseConnection.getConnection())) {
+             placeOrderPerLine(conn, customerId, lines);
+         }
+     });
+     report("batched (after)", orders, linesPerOrder, counter, () -> {
+         try (Connection conn = counter.wrap(DatabaseConnection.getConnection())) {
+             repository.place(conn, customerId, lines);
+         }
+     });
+
+     store.close();
+     DatabaseConnection.shutdown();
+ }
+
+ private interface OrderRun {
+     void run() throws SQLException;
+ }
+
+ private static void report(String label, int orders, int linesPerOrder, RoundTripCounter counter, OrderRun run)
+         throws SQLException {
+     counter.reset();
+     long start = System.nanoTime();
+     for (int i = 0; i < orders; i++) {
+         run.run();
+     }
+     long elapsed = System.nanoTime() - start;
+     System.out.printf("%-18s %d orders x %d lines: %.1f round trips/order, %.2f ms/order%n",
+         label, orders, linesPerOrder, counter.getRoundTrips() / (double) orders, elapsed / 1_000_000.0 / orders);
+ }
+
+ // The submission path placeOrderBtn used before batching: one SELECT per line,
+ // one INSERT per line
+ private static void placeOrderPerLine(Connection conn, int customerId, List<OrderLine> lines) throws SQLException {
+     conn.setAutoCommit(false);
+     double totalAmount = 0;
+     for (OrderLine line : lines) {
+         try (PreparedStatement priceStmt = conn.prepareStatement("SELECT price FROM menu_items WHERE id = ?")) {
+             priceStmt.setInt(1, line.menuItemId());
+             try (ResultSet rs = priceStmt.executeQuery()) {
+                 if (rs.next()) {
+                     totalAmount += rs.getDouble("price") * line.quantity();
+                 }
+             }
+         }
+     }
+
+     int orderId;
+     String orderSql = "INSERT INTO orders (order_id, customer_id, total_amount) VALUES (order_seq.NEXTVAL, ?, ?)";
+     try (PreparedStatement orderStmt = conn.prepareStatement(orderSql, new String[]{"order_id"})) {
+         orderStmt.setInt(1, customerId);
+         orderStmt.setDouble(2, totalAmount);
+         orderStmt.executeUpdate();
+         try (ResultSet rs = orderStmt.getGeneratedKeys()) {
+             rs.next();
+             orderId = rs.getInt(1);
+         }
+     }
+
+     String itemSql = "INSERT INTO order_items (id, order_id, menu_item_id, quantity) VALUES (order_item_seq.NEXTVAL, ?, ?, ?)";
+     try (PreparedStatement itemStmt = conn.prepareStatement(itemSql)) {
+         for (OrderLine line : lines) {
+             itemStmt.setInt(1, orderId);
+             itemStmt.setInt(2, line.menuItemId());
+             itemStmt.setInt(3, line.quantity());
+             itemStmt.executeUpdate();
+         }
+     }
+     conn.commit();
+     conn.setAutoCommit(true);
+ }
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+//PasswordHashingBenchmark.java
+
+import application.PasswordHasher;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// What one admin login costs at each work factor; pick restaurant.password.iterations from this
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+ @Param({"10000", "100000", "310000", "600000"})
+ public int iterations;
+
+ private PasswordHasher hasher;
+ private String stored;
+
+ @Setup
+ public void setUp() {
+     hasher = new PasswordHasher(iterations);
+     stored = hasher.hash("admin123");
+ }
+
+ @Benchmark
+ public boolean verify() {
+     return hasher.verify("admin123", stored);
+ }
+
+ @Benchmark
+ public String hash() {
+     return hasher.hash("admin123");
+ }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+//RoundTripCounter.java
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Wraps a connection and counts the calls that cost a trip to the server:
+// statement executions, batch flushes, commits and rollbacks.
+final class RoundTripCounter {
+
+ private static final Set<String> ROUND_TRIP_METHODS = Set.of(
+     "execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+     "executeBatch", "executeLargeBatch", "commit", "rollback");
+
+ private final AtomicLong roundTrips = new AtomicLong();
+
+ public Connection wrap(Connection conn) {
+     return proxy(Connection.class, conn);
+ }
+
+ public long getRoundTrips() {
+     return roundTrips.get();
+ }
+
+ public void reset() {
+     roundTrips.set(0);
+ }
+
+ @SuppressWarnings("unchecked")
+ private <T> T proxy(Class<T> type, T target) {
+     return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+         if (ROUND_TRIP_METHODS.contains(method.getName())) {
+             roundTrips.incrementAndGet();
+         }
+         Object result;
+         try {
+             result = method.invoke(target, args);
+         } catch (InvocationTargetException e) {
+             throw e.getCause();
+         }
+         // Statements handed out by the connection must be counted too
+         if (result instanceof Statement && method.getReturnType().isInterface()
+                 && Statement.class.isAssignableFrom(method.getReturnType())) {
+             return proxy((Class<Object>) method.getReturnType(), result);
+         }
+         return result;
+     });
+ }
+}
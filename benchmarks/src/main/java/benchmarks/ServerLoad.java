@@ -0,0 +1,232 @@
+package benchmarks;
+//ServerLoad.java
+
+import application.DataStore;
+import application.DatabaseConnection;
+import application.JdbcBookingRepository;
+import application.LatencyHistogram;
+import application.MenuCatalog;
+import application.RestaurantServer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Terminals driving a RestaurantServer over HTTP for a fixed time. Each visit is what a till
+// does for one table: read the menu, place an order, look it up, pay it and leave feedback,
+// with a table search every visit and a registration, booking and analytics read now and
+// then. Reports requests per second and per-endpoint latency, and checks that every order
+// placed was settled exactly once and nothing came back with an unexpected status. On h2 it
+// also checks that a table booked by another till is refused rather than double-booked.
+//
+// The clients run in the same JVM as the server, so the figures include their own CPU.
+//
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.ServerLoad [memory|h2] [terminals] [seconds]
+public final class ServerLoad {
+
+ private static final long MENU_TTL_MILLIS = 10 * 60_000;
+ private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+ private static final Pattern ORDER_ID = Pattern.compile("\"orderId\":(\\d+)");
+ private static final Pattern TOTAL = Pattern.compile("\"totalAmount\":([0-9.]+)");
+
+ private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+ private final String base;
+ private final Map<String, LatencyHistogram> latency = new ConcurrentHashMap<>();
+ private final LongAdder requests = new LongAdder();
+ private final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+
+ private ServerLoad(String base) {
+     this.base = base;
+ }
+
+ public static void main(String[] args) throws Exception {
+     String kind = args.length > 0 ? args[0] : "memory";
+     int terminals = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+     int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+     if (kind.equals("h2")) {
+         // Must be set before DatabaseConnection is first touched
+         for (String property : List.of(BenchmarkData.H2_URL, BenchmarkData.H2_DRIVER,
+                 BenchmarkData.H2_USER, BenchmarkData.H2_PASSWORD)) {
+             String[] pair = property.substring(2).split("=", 2);
+             System.setProperty(pair[0], pair[1]);
+         }
+     }
+     DataStore store = BenchmarkData.open(kind);
+     int[] customerIds = BenchmarkData.seedCustomers(store, 200);
+     store.preload();
+     RestaurantServer server = new RestaurantServer(store, new MenuCatalog(store.menu()::findAll, MENU_TTL_MILLIS),
+         new InetSocketAddress("127.0.0.1", 0));
+     server.start();
+     ServerLoad load = new ServerLoad("http://127.0.0.1:" + server.port());
+     try {
+         load.run(kind, terminals, seconds, customerIds);
+     } finally {
+         server.stop();
+         store.close();
+         DatabaseConnection.shutdown();
+     }
+     if (!load.failures.isEmpty()) {
+         load.failures.stream().limit(20).forEach(System.err::println);
+         System.err.println("FAILED");
+         System.exit(1);
+     }
+     System.out.println("OK");
+ }
+
+ private void run(String kind, int terminals, int seconds, int[] customerIds) throws Exception {
+
+     List<Integer> menuIds = new ArrayList<>();
+     Matcher ids = ID.matcher(call("GET /menu", "GET", "/menu", null, 200));
+     while (ids.find()) {
+         menuIds.add(Integer.parseInt(ids.group(1)));
+     }
+
+     AtomicInteger placed = new AtomicInteger();
+     AtomicInteger settled = new AtomicInteger();
+     AtomicInteger bookingSlot = new AtomicInteger();
+     long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+     CountDownLatch go = new CountDownLatch(1);
+     long began;
+     // Platform threads: each terminal is its own client, not a task sharing carriers with the server
+     try (ExecutorService executor = Executors.newFixedThreadPool(terminals)) {
+         List<Future<?>> futures = new ArrayList<>();
+         for (int t = 0; t < terminals; t++) {
+             int terminal = t;
+             futures.add(executor.submit(() -> {
+                 go.await();
+                 for (int visit = 0; System.nanoTime() < deadline; visit++) {
+                     int customerId = customerIds[(terminal * 7 + visit) % customerIds.length];
+                     visit(terminal, visit, customerId, menuIds, placed, settled, bookingSlot);
+                 }
+                 return null;
+             }));
+         }
+         began = System.nanoTime();
+         go.countDown();
+         for (Future<?> future : futures) {
+             future.get();
+         }
+     }
+     double elapsed = (System.nanoTime() - began) / 1e9;
+
+     System.out.printf("%s, %d terminals, %.1fs: %d requests, %.0f requests/s, %d orders placed and %d settled%n",
+         kind, terminals, elapsed, requests.sum(), requests.sum() / elapsed, placed.get(), settled.get());
+     System.out.printf("  %-24s %9s %9s %9s %9s%n", "endpoint", "count", "p50 us", "p99 us", "max us");
+     new TreeMap<>(latency).forEach((name, histogram) -> System.out.printf("  %-24s %9d %9d %9d %9d%n",
+         name, histogram.getCount(), histogram.valueAtPercentile(50), histogram.valueAtPercentile(99),
+         histogram.getMaxMicros()));
+
+     if (placed.get() != settled.get()) {
+         failures.add("placed " + placed.get() + " orders but settled " + settled.get());
+     }
+
+     if (kind.equals("h2")) {
+         // Another till books a table behind the server's back: the server's index doesn't know,
+         // the database must turn the second booking down and the index catch up
+         String time = BenchmarkData.slotTime(100_000).toString();
+         new JdbcBookingRepository().book(1, customerIds[0], LocalDateTime.parse(time), 2);
+         call("POST /bookings (taken)", "POST", "/bookings",
+             form("tableNumber", 1, "customerId", customerIds[0], "time", time, "partySize", 2), 409);
+         String available = call("GET /tables/available", "GET", "/tables/available?" + form("partySize", 2, "time", time), null, 200);
+         if (available != null && available.contains("\"tableNumber\":1,")) {
+             failures.add("table 1 still shown available after the database turned a booking down: " + available);
+         }
+     }
+ }
+
+ private void visit(int terminal, int visit, int customerId, List<Integer> menuIds, AtomicInteger placed,
+                    AtomicInteger settled, AtomicInteger bookingSlot) throws Exception {
+     call("GET /menu", "GET", "/menu", null, 200);
+
+     int first = menuIds.get((terminal + visit) % menuIds.size());
+     int second = menuIds.get((terminal + visit + 3) % menuIds.size());
+     String order = call("POST /orders", "POST", "/orders",
+         form("customerId", customerId, "items", first + ":2," + second + ":1"), 201);
+     if (order == null) {
+         return;
+     }
+     placed.incrementAndGet();
+     String orderId = group(ORDER_ID, order);
+     String total = group(TOTAL, order);
+
+     call("GET /orders/{id}", "GET", "/orders/" + orderId, null, 200);
+     if (call("POST /payments", "POST", "/payments", form("orderId", orderId, "amount", total), 200) != null) {
+         settled.incrementAndGet();
+     }
+     call("POST /feedback", "POST", "/feedback",
+         form("customerId", customerId, "comment", "Terminal " + terminal + " & co: \"great\"", "rating", 1 + visit % 5), 202);
+
+     String time = BenchmarkData.slotTime(visit % 200).toString();
+     call("GET /tables/available", "GET", "/tables/available?" + form("partySize", 2, "time", time), null, 200);
+     if (visit % 5 == 0) {
+         call("POST /bookings", "POST", "/bookings", form("tableNumber", 1 + terminal % 5, "customerId", customerId,
+             "time", BenchmarkData.slotTime(bookingSlot.addAndGet(2)).toString(), "partySize", 2), 201);
+     }
+     if (visit % 10 == 0) {
+         String registered = call("POST /customers", "POST", "/customers", form("name", "Walk-in " + terminal + "-" + visit), 201);
+         if (registered != null) {
+             call("GET /customers/search", "GET", "/customers/search?" + form("q", "walk " + terminal), null, 200);
+         }
+         call("GET /analytics", "GET", "/analytics", null, 200);
+     }
+ }
+
+ // The body, or null (with a failure noted) when the status isn't the expected one
+ private String call(String endpoint, String method, String path, String body, int expected) throws Exception {
+     HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path));
+     if (method.equals("POST")) {
+         request.header("Content-Type", "application/x-www-form-urlencoded")
+             .POST(HttpRequest.BodyPublishers.ofString(body));
+     } else {
+         request.GET();
+     }
+     long start = System.nanoTime();
+     HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+     latency.computeIfAbsent(endpoint, name -> new LatencyHistogram()).recordNanos(System.nanoTime() - start);
+     requests.increment();
+     if (response.statusCode() != expected) {
+         failures.add(endpoint + ": " + response.statusCode() + " " + response.body());
+         return null;
+     }
+     return response.body();
+ }
+
+ private static String form(Object... namesAndValues) {
+     StringBuilder out = new StringBuilder();
+     for (int i = 0; i < namesAndValues.length; i += 2) {
+         if (i > 0) {
+             out.append('&');
+         }
+         out.append(namesAndValues[i]).append('=')
+            .append(URLEncoder.encode(String.valueOf(namesAndValues[i + 1]), StandardCharsets.UTF_8));
+     }
+     return out.toString();
+ }
+
+ private static String group(Pattern pattern, String json) {
+     Matcher matcher = pattern.matcher(json);
+     if (!matcher.find()) {
+         throw new IllegalStateException("No " + pattern + " in " + json);
+     }
+     return matcher.group(1);
+ }
+}
@@ -0,0 +1,127 @@
+package benchmarks;
+//SettlementStress.java
+
+import application.DataStore;
+import application.DatabaseConnection;
+import application.OrderDetailsService;
+import application.PlacedOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Several tills pay the same orders at the same moment. Every order must be settled exactly
+// once, underpayments must never settle, and the takings must equal the order totals.
+//
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.SettlementStress [memory|h2] [orders] [tills]
+public final class SettlementStress {
+
+ private SettlementStress() {
+ }
+
+ public static void main(String[] args) throws Exception {
+     String kind = args.length > 0 ? args[0] : "h2";
+     int orderCount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+     int tills = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+     if (kind.equals("h2")) {
+         // Must be set before DatabaseConnection is first touched
+         for (String property : List.of(BenchmarkData.H2_URL, BenchmarkData.H2_DRIVER,
+                 BenchmarkData.H2_USER, BenchmarkData.H2_PASSWORD)) {
+             String[] pair = property.substring(2).split("=", 2);
+             System.setProperty(pair[0], pair[1]);
+         }
+     }
+
+     DataStore store = BenchmarkData.open(kind);
+     Random random = new Random(42);
+     int[] customerIds = BenchmarkData.seedCustomers(store, 20);
+     List<PlacedOrder> placed = new ArrayList<>();
+     for (int i = 0; i < orderCount; i++) {
+         int customerId = customerIds[random.nextInt(customerIds.length)];
+         placed.add(store.orders().place(customerId, BenchmarkData.cart(store, 1 + i % 4)));
+     }
+
+     OrderDetailsService service = new OrderDetailsService(store.orders(), store.payments(), 256);
+     Map<Integer, AtomicInteger> settledCount = new ConcurrentHashMap<>();
+     AtomicInteger underpaidSettled = new AtomicInteger();
+     AtomicInteger alreadyPaid = new AtomicInteger();
+     AtomicInteger insufficient = new AtomicInteger();
+     CountDownLatch start = new CountDownLatch(1);
+
+     long began;
+     try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+         List<Future<?>> futures = new ArrayList<>();
+         for (int till = 0; till < tills; till++) {
+             int tillNumber = till;
+             futures.add(executor.submit(() -> {
+                 start.await();
+                 for (PlacedOrder order : placed) {
+                     // Even tills hand over exact money, odd ones come up a rupee short
+                     boolean underpay = tillNumber % 2 == 1;
+                     double tendered = underpay ? order.totalAmount() - 1 : order.totalAmount();
+                     // Warm the open-order cache so settle also has to evict it
+                     service.find(order.orderId());
+                     OrderDetailsService.Settlement outcome = service.settle(order.orderId(), tendered);
+                     switch (outcome.result()) {
+                         case SETTLED -> {
+                             settledCount.computeIfAbsent(order.orderId(), id -> new AtomicInteger()).incrementAndGet();
+                             if (underpay) {
+                                 underpaidSettled.incrementAndGet();
+                             }
+                         }
+                         case ALREADY_PAID -> alreadyPaid.incrementAndGet();
+                         case INSUFFICIENT -> insufficient.incrementAndGet();
+                         case NOT_FOUND -> throw new IllegalStateException("Order " + order.orderId() + " vanished");
+                     }
+                 }
+                 return null;
+             }));
+         }
+         began = System.nanoTime();
+         start.countDown();
+         for (Future<?> future : futures) {
+             future.get();
+         }
+     }
+     long elapsedMillis = (System.nanoTime() - began) / 1_000_000;
+
+     List<String> failures = new ArrayList<>();
+     double expectedTakings = 0;
+     double settledTakings = 0;
+     for (PlacedOrder order : placed) {
+         expectedTakings += order.totalAmount();
+         AtomicInteger count = settledCount.get(order.orderId());
+         if (count == null || count.get() != 1) {
+             failures.add("order " + order.orderId() + " settled " + (count == null ? 0 : count.get()) + " times");
+         } else {
+             settledTakings += order.totalAmount();
+         }
+         if (!store.payments().findBalance(order.orderId()).orElseThrow().paid()) {
+             failures.add("order " + order.orderId() + " is not marked paid");
+         }
+     }
+     if (underpaidSettled.get() > 0) {
+         failures.add(underpaidSettled.get() + " underpayments settled");
+     }
+
+     System.out.printf("%s: %d orders x %d tills in %dms, settled=%d alreadyPaid=%d insufficient=%d%n",
+         kind, orderCount, tills, elapsedMillis, settledCount.size(), alreadyPaid.get(), insufficient.get());
+     System.out.printf("takings %.2f, expected %.2f%n", settledTakings, expectedTakings);
+     if (kind.equals("h2")) {
+         DatabaseConnection.shutdown();
+     }
+     if (!failures.isEmpty() || Math.abs(settledTakings - expectedTakings) > 0.005) {
+         failures.stream().limit(20).forEach(System.err::println);
+         System.err.println("FAILED");
+         System.exit(1);
+     }
+     System.out.println("OK");
+ }
+}
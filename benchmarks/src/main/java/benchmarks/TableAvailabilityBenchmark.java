@@ -0,0 +1,56 @@
+package benchmarks;
+//TableAvailabilityBenchmark.java
+
+import application.DataStore;
+import application.DiningTable;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// checkAvailabilityBtn in createBookingPane: free tables for a party at a given time
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkData.H2_URL, BenchmarkData.H2_DRIVER, BenchmarkData.H2_USER, BenchmarkData.H2_PASSWORD})
+public class TableAvailabilityBenchmark {
+
+ @Param({"memory", "h2"})
+ public String store;
+
+ @Param({"1000", "20000"})
+ public int bookings;
+
+ private DataStore dataStore;
+ private int bookedSlots;
+
+ @Setup
+ public void setUp() throws SQLException {
+     dataStore = BenchmarkData.open(store);
+     int[] customerIds = BenchmarkData.seedCustomers(dataStore, 500);
+     BenchmarkData.seedBookings(dataStore, customerIds, bookings, new Random(42));
+     bookedSlots = 2 * (bookings / 5);
+ }
+
+ @Benchmark
+ public List<DiningTable> checkAvailability() throws SQLException {
+     // Alternate between busy slots and slots past the end of the booked range
+     LocalDateTime time = BenchmarkData.slotTime(ThreadLocalRandom.current().nextInt(bookedSlots * 2));
+     return dataStore.bookings().findAvailableTables(2, time);
+ }
+}
@@ -9,6 +9,12 @@ module application {
     // Requires java.sql for JDBC database connectivity
     requires java.sql;
 
+    // Requires jdk.jfr for the Flight Recorder events in Diagnostics
+    requires jdk.jfr;
+
+    // Requires jdk.httpserver for the headless RestaurantServer
+    requires jdk.httpserver;
+
     // Opens packages containing FXML controllers to javafx.fxml module
     // This is crucial for FXML to inject UI elements and call controller methods.
     // Ensure this matches your actual controller package!